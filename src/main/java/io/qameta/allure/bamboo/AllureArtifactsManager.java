@@ -48,6 +48,9 @@ import com.atlassian.plugin.predicate.EnabledModulePredicate;
 import com.atlassian.plugin.predicate.ModuleOfClassPredicate;
 import com.atlassian.sal.api.ApplicationProperties;
 import com.atlassian.sal.api.UrlMode;
+import io.qameta.allure.bamboo.util.ArtifactDownloader;
+import io.qameta.allure.bamboo.util.LinkUtil;
+import io.qameta.allure.bamboo.util.ZipUtil;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -68,7 +71,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
@@ -78,6 +80,7 @@ import java.util.UUID;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
 import java.util.stream.Collector;
+import java.util.stream.Stream;
 
 import static com.atlassian.bamboo.build.artifact.AbstractArtifactHandler.configProvider;
 import static com.atlassian.bamboo.plan.PlanKeys.getPlanKey;
@@ -90,11 +93,10 @@ import static io.qameta.allure.bamboo.util.ExceptionUtil.stackTraceToString;
 import static jakarta.ws.rs.core.UriBuilder.fromPath;
 import static java.lang.Integer.parseInt;
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isEmpty;
-import static org.codehaus.plexus.util.FileUtils.copyDirectory;
-import static org.codehaus.plexus.util.FileUtils.copyURLToFile;
 
 @SuppressWarnings(
     {
@@ -105,6 +107,8 @@ import static org.codehaus.plexus.util.FileUtils.copyURLToFile;
 )
 public class AllureArtifactsManager {
 
+    static final int DEFAULT_MAX_PARALLEL_DOWNLOADS = 8;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(AllureArtifactsManager.class);
     private static final String REPORTS_SUBDIR = "allure-reports";
     private static final String FAILED_TO_DOWNLOAD_ARTIFACTS_TO = "Failed to download artifacts to ";
@@ -121,6 +125,8 @@ public class AllureArtifactsManager {
     private final ArtifactLinkManager artifactLinkManager;
     private final ApplicationProperties appProperties;
     private final AllureSettingsManager settingsManager;
+    private final AllureIoExecutor ioExecutor;
+    private final ArtifactDownloader artifactDownloader;
 
     public AllureArtifactsManager(final PluginAccessor pluginAccessor,
                                   final ArtifactHandlersService artifactHandlersService,
@@ -128,7 +134,9 @@ public class AllureArtifactsManager {
                                   final ResultsSummaryManager resultsSummaryManager,
                                   final ArtifactLinkManager artifactLinkManager,
                                   final ApplicationProperties appProperties,
-                                  final AllureSettingsManager settingsManager) {
+                                  final AllureSettingsManager settingsManager,
+                                  final AllureIoExecutor ioExecutor,
+                                  final ArtifactDownloader artifactDownloader) {
         this.pluginAccessor = pluginAccessor;
         this.artifactHandlersService = artifactHandlersService;
         this.buildDefinitionManager = buildDefinitionManager;
@@ -136,6 +144,8 @@ public class AllureArtifactsManager {
         this.artifactLinkManager = artifactLinkManager;
         this.appProperties = appProperties;
         this.settingsManager = settingsManager;
+        this.ioExecutor = ioExecutor;
+        this.artifactDownloader = artifactDownloader;
     }
 
     String getBaseHost() throws Exception {
@@ -258,86 +268,229 @@ public class AllureArtifactsManager {
      * @param baseDir             temporary directory
      * @param artifactName        name of the artifact to use (all artifacts will be used if null)
      */
-    @SuppressWarnings("PMD.CognitiveComplexity")
     Collection<Path> downloadAllArtifactsTo(final @NotNull ChainResultsSummary chainResultsSummary,
                                             final File baseDir,
                                             @Nullable final String artifactName)
             throws IOException {
+        return downloadAllArtifactsTo(
+                chainResultsSummary, baseDir, artifactName, Map.of(), AllureResultsFilter.ALL, AllureIngestionBudget.unlimited()
+        );
+    }
+
+    /**
+     * Downloads all artifacts of a build chain to a temporary directory, except for the jobs whose
+     * results are already staged there.
+     *
+     * @param chainResultsSummary chain results
+     * @param baseDir             temporary directory
+     * @param artifactName        name of the artifact to use (all artifacts will be used if null)
+     * @param stagedJobs          results directories under the base directory by job result key
+     * @param filter              files of the artifacts to download
+     * @param budget              limits on what is downloaded, shared by all jobs
+     */
+    Collection<Path> downloadAllArtifactsTo(final @NotNull ChainResultsSummary chainResultsSummary,
+                                            final File baseDir,
+                                            @Nullable final String artifactName,
+                                            final Map<String, List<Path>> stagedJobs,
+                                            final AllureResultsFilter filter,
+                                            final AllureIngestionBudget budget)
+            throws IOException {
         final List<Path> resultsPaths = new ArrayList<>();
+        final List<AllureIoExecutor.IoTask<Void>> downloads = new ArrayList<>();
         for (ChainStageResult stageResult : chainResultsSummary.getStageResults()) {
             for (BuildResultsSummary resultsSummary : stageResult.getBuildResults()) {
-                LOGGER.info(
-                        "Found {} artifacts totally for the build {}-{}",
-                        Optional.of(resultsSummary.getProducedArtifactLinks()).map(Collection::size).orElse(0),
-                        chainResultsSummary.getPlanKey(), chainResultsSummary.getBuildNumber()
-                );
-                for (ArtifactLink link : resultsSummary.getProducedArtifactLinks()) {
-                    final MutableArtifact artifact = link.getArtifact();
-                    if (isBlank(artifactName) || artifact.getLabel().equals(artifactName)) {
-                        LOGGER.info(
-                                "artifact {} matches the configured artifact name {} for the build {}-{}",
-                                artifact.getLabel(), artifactName,
-                                chainResultsSummary.getPlanKey(), chainResultsSummary.getBuildNumber()
-                        );
-                        final File stageDir = new File(baseDir, UUID.randomUUID().toString());
-                        FileUtils.forceMkdir(stageDir);
-                        resultsPaths.add(stageDir.toPath());
-                        final ArtifactLinkDataProvider dataProvider = artifactLinkManager.getArtifactLinkDataProvider(artifact);
-                        if (dataProvider instanceof FileSystemArtifactLinkDataProvider) {
-                            downloadAllArtifactsTo((FileSystemArtifactLinkDataProvider) dataProvider, stageDir);
-                        } else {
-                            downloadAllArtifactsTo(dataProvider, stageDir, "");
-                        }
-                    }
+                final List<Path> staged = stagedJobs.isEmpty()
+                        ? null
+                        : stagedJobs.get(resultsSummary.getPlanResultKey().getKey());
+                if (staged != null) {
+                    LOGGER.info("Using the results staged for the job {}", resultsSummary.getPlanResultKey());
+                    resultsPaths.addAll(staged);
+                } else {
+                    downloads.addAll(linkDownloads(resultsSummary, baseDir, artifactName, filter, budget, resultsPaths));
                 }
             }
         }
+        runDownloads(downloads);
         return resultsPaths;
     }
 
-    @SuppressWarnings("UnstableApiUsage")
-    private void downloadAllArtifactsTo(final @NotNull FileSystemArtifactLinkDataProvider dataProvider,
-                                        final File tempDir) {
-        Optional.ofNullable(dataProvider.getFile().listFiles())
-                .map(Arrays::asList)
-                .ifPresent(list -> list.forEach(file -> {
-                    try {
-                        if (file.isFile()) {
-                            Files.copy(file.toPath(), Paths.get(tempDir.getPath(), file.getName()));
-                        } else if (!StringUtils.equals(file.getName(), ".")
-                                && !StringUtils.equals(file.getName(), CS_2)) {
-                            copyDirectory(file, new File(tempDir, file.getName()));
-                        }
-                    } catch (IOException e) {
-                        logAndThrow(e, FAILED_TO_DOWNLOAD_ARTIFACTS_TO + tempDir);
-                    }
+    /**
+     * Downloads the artifacts of a single job, each matching artifact into its own directory
+     * under the base directory.
+     *
+     * @param resultsSummary job results
+     * @param baseDir        temporary directory
+     * @param artifactName   name of the artifact to use (all artifacts will be used if null)
+     * @param filter         files of the artifacts to download
+     * @param budget         limits on what is downloaded
+     * @return the directories the artifacts were downloaded to
+     */
+    List<Path> downloadJobArtifactsTo(final @NotNull BuildResultsSummary resultsSummary,
+                                      final File baseDir,
+                                      @Nullable final String artifactName,
+                                      final AllureResultsFilter filter,
+                                      final AllureIngestionBudget budget)
+            throws IOException {
+        final List<Path> resultsPaths = new ArrayList<>();
+        runDownloads(linkDownloads(resultsSummary, baseDir, artifactName, filter, budget, resultsPaths));
+        return resultsPaths;
+    }
+
+    /**
+     * Sums the sizes Bamboo recorded for the matching artifacts of a build chain, except for the
+     * jobs whose results are already staged. Artifacts of unknown size count as empty.
+     *
+     * @param chainResultsSummary chain results
+     * @param artifactName        name of the artifact to use (all artifacts will be used if null)
+     * @param stagedJobs          result keys of the jobs whose results are already staged
+     */
+    long getExpectedArtifactsSize(final @NotNull ChainResultsSummary chainResultsSummary,
+                                  @Nullable final String artifactName,
+                                  final Collection<String> stagedJobs) {
+        long size = 0;
+        for (ChainStageResult stageResult : chainResultsSummary.getStageResults()) {
+            for (BuildResultsSummary resultsSummary : stageResult.getBuildResults()) {
+                if (!stagedJobs.contains(resultsSummary.getPlanResultKey().getKey())) {
+                    size += getExpectedArtifactsSize(resultsSummary, artifactName);
                 }
-                ));
+            }
+        }
+        return size;
     }
 
-    private void downloadAllArtifactsTo(final ArtifactLinkDataProvider dataProvider,
-                                        final File tempDir,
-                                        final String startFrom) {
-        for (ArtifactFileData data : requireNonNull(dataProvider).listObjects(startFrom)) {
-            try {
-                if (data instanceof TrampolineArtifactFileData) {
-
-                    final TrampolineArtifactFileData trampolineData = (TrampolineArtifactFileData) data;
-                    final ArtifactFileData delegateData = trampolineData.getDelegate();
-
-                    if (delegateData.getFileType() == ArtifactFileData.FileType.REGULAR_FILE) {
-                        final String fileName = Paths.get(delegateData.getName()).toFile().getName();
-                        copyURLToFile(
-                                new URL(requireNonNull(delegateData.getUrl())),
-                                Paths.get(tempDir.getPath(), fileName).toFile()
-                        );
+    /**
+     * Sums the sizes Bamboo recorded for the matching artifacts of a single job. Artifacts of
+     * unknown size count as empty.
+     */
+    long getExpectedArtifactsSize(final @NotNull BuildResultsSummary resultsSummary,
+                                  @Nullable final String artifactName) {
+        long size = 0;
+        for (ArtifactLink link : resultsSummary.getProducedArtifactLinks()) {
+            final MutableArtifact artifact = link.getArtifact();
+            if (isBlank(artifactName) || artifact.getLabel().equals(artifactName)) {
+                size += Math.max(0, artifact.getSize());
+            }
+        }
+        return size;
+    }
+
+    static int parallelDownloadsFor(final AllureGlobalConfig config) {
+        final int configured = config.getMaxParallelDownloads();
+        return configured > 0 ? configured : DEFAULT_MAX_PARALLEL_DOWNLOADS;
+    }
+
+    /**
+     * Creates the directory of every matching artifact of the job up front, so the results paths
+     * keep the order of the links whichever download finishes first. Artifacts on the server file
+     * system are read where they are when staging {@link AllureStagingMode#IN_PLACE}, unless only
+     * some of their files are wanted or the ingestion budget is limited: these are linked instead.
+     *
+     * @return the downloads filling the created directories
+     */
+    private List<AllureIoExecutor.IoTask<Void>> linkDownloads(final @NotNull BuildResultsSummary resultsSummary,
+                                                              final File baseDir,
+                                                              @Nullable final String artifactName,
+                                                              final AllureResultsFilter filter,
+                                                              final AllureIngestionBudget budget,
+                                                              final List<Path> resultsPaths)
+            throws IOException {
+        final List<AllureIoExecutor.IoTask<Void>> downloads = new ArrayList<>();
+        final AllureStagingMode configuredMode = settingsManager.getSettings().getStagingMode();
+        final AllureStagingMode stagingMode = configuredMode == AllureStagingMode.IN_PLACE && (!filter.isAll() || budget.isLimited())
+                ? AllureStagingMode.LINK
+                : configuredMode;
+        LOGGER.info(
+                "Found {} artifacts totally for the build {}",
+                Optional.of(resultsSummary.getProducedArtifactLinks()).map(Collection::size).orElse(0),
+                resultsSummary.getPlanResultKey()
+        );
+        for (ArtifactLink link : resultsSummary.getProducedArtifactLinks()) {
+            final MutableArtifact artifact = link.getArtifact();
+            if (isBlank(artifactName) || artifact.getLabel().equals(artifactName)) {
+                LOGGER.info(
+                        "artifact {} matches the configured artifact name {} for the build {}",
+                        artifact.getLabel(), artifactName, resultsSummary.getPlanResultKey()
+                );
+                final ArtifactLinkDataProvider dataProvider = artifactLinkManager.getArtifactLinkDataProvider(artifact);
+                if (stagingMode == AllureStagingMode.IN_PLACE && dataProvider instanceof FileSystemArtifactLinkDataProvider) {
+                    final Path artifactDir = ((FileSystemArtifactLinkDataProvider) dataProvider).getFile().toPath();
+                    if (findSingleArchive(artifactDir).isEmpty()) {
+                        resultsPaths.add(artifactDir);
+                        continue;
+                    }
+                }
+                final File stageDir = new File(baseDir, UUID.randomUUID().toString());
+                FileUtils.forceMkdir(stageDir);
+                resultsPaths.add(stageDir.toPath());
+                downloads.add(() -> {
+                    if (budget.isExhausted()) {
+                        LOGGER.info("Skipping the artifact {}, the results budget is exhausted", artifact.getLabel());
+                    } else if (dataProvider instanceof FileSystemArtifactLinkDataProvider) {
+                        downloadAllArtifactsTo((FileSystemArtifactLinkDataProvider) dataProvider, stageDir, stagingMode, filter, budget);
                     } else {
-                        downloadAllArtifactsTo(dataProvider, tempDir, trampolineData.getTag());
+                        new RemoteArtifactWalker(ioExecutor, artifactDownloader, dataProvider, stageDir.toPath(), filter, budget).walk();
                     }
+                    return null;
+                });
+            }
+        }
+        return downloads;
+    }
+
+    /**
+     * Downloads the artifacts concurrently. Each download may fan out into file transfers on the
+     * I/O executor, so the artifacts themselves are bounded separately.
+     */
+    private void runDownloads(final List<AllureIoExecutor.IoTask<Void>> downloads) throws IOException {
+        ioExecutor.invokeAll(downloads, parallelDownloadsFor(settingsManager.getSettings()));
+    }
+
+    @SuppressWarnings("UnstableApiUsage")
+    private void downloadAllArtifactsTo(final @NotNull FileSystemArtifactLinkDataProvider dataProvider,
+                                        final File tempDir,
+                                        final AllureStagingMode stagingMode,
+                                        final AllureResultsFilter filter,
+                                        final AllureIngestionBudget budget) {
+        final Path source = dataProvider.getFile().toPath();
+        final Predicate<Path> files = path -> filter.acceptsFile(path.toString())
+                && budget.admit(path.toString(), source.resolve(path).toFile().length()) != AllureIngestionBudget.REFUSED;
+        final Predicate<Path> directories = path -> filter.acceptsDirectory(path.toString()) && !budget.isExhausted();
+        try {
+            final Optional<Path> archive = findSingleArchive(source);
+            if (archive.isPresent()) {
+                try (InputStream input = Files.newInputStream(archive.get())) {
+                    final long extracted = ZipUtil.extract(
+                            input, archive.get().getFileName().toString(), tempDir.toPath(), filter::acceptsEntry, budget
+                    );
+                    LOGGER.debug("Extracted {} files of {} into {}", extracted, archive.get(), tempDir);
                 }
-            } catch (IOException e) {
-                logAndThrow(e, FAILED_TO_DOWNLOAD_ARTIFACTS_TO + tempDir);
+            } else if (stagingMode == AllureStagingMode.LINK) {
+                final long linked = LinkUtil.linkTree(source, tempDir.toPath(), files, directories);
+                LOGGER.debug("Hard-linked {} files of {} into {}", linked, source, tempDir);
+            } else {
+                LinkUtil.copyTree(source, tempDir.toPath(), files, directories);
             }
+        } catch (IOException e) {
+            logAndThrow(e, FAILED_TO_DOWNLOAD_ARTIFACTS_TO + tempDir);
+        }
+    }
+
+    /**
+     * An artifact holding nothing but a {@code .zip} or {@code .tar.gz} archive is published as
+     * such by agents that ship their results as a single file; it is extracted rather than staged.
+     */
+    private static Optional<Path> findSingleArchive(final Path artifactDir) {
+        if (!Files.isDirectory(artifactDir)) {
+            return Optional.empty();
+        }
+        try (Stream<Path> entries = Files.list(artifactDir)) {
+            final List<Path> all = entries.limit(2).collect(toList());
+            return all.size() == 1 && Files.isRegularFile(all.get(0)) && ZipUtil.isArchive(all.get(0).getFileName().toString())
+                    ? Optional.of(all.get(0))
+                    : Optional.empty();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to list the artifact {}", artifactDir, e);
+            return Optional.empty();
         }
     }
 
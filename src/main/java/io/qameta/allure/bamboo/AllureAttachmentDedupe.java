@@ -0,0 +1,279 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_BUILD_REPORT_DEDUPE_PREFIX;
+import static java.util.stream.Collectors.counting;
+import static java.util.stream.Collectors.groupingBy;
+
+/**
+ * Stores identical attachments of the staged results only once. Parallel jobs tend to attach the
+ * same files over and over, so attachments of equal size are hashed, and every further copy of a
+ * content is replaced by a hard link to the first one. Attachments hard-linked from the artifact
+ * storage take no scratch space of their own, so they are left out rather than read. The counts are
+ * stored in the custom build data of the chain result, next to the {@link AllureReportTimings}.
+ */
+public final class AllureAttachmentDedupe implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AllureAttachmentDedupe.class);
+
+    private static final String ATTACHMENT_MARKER = "-attachment";
+    private static final String FILES_KEY = "files";
+    private static final String DUPLICATES_KEY = "duplicates";
+    private static final String BYTES_KEY = "bytes";
+    private static final String SAVED_BYTES_KEY = "saved.bytes";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String LINKS_ATTRIBUTE = "unix:nlink";
+
+    private final long files;
+    private final long duplicates;
+    private final long bytes;
+    private final long savedBytes;
+
+    AllureAttachmentDedupe(final long files,
+                           final long duplicates,
+                           final long bytes,
+                           final long savedBytes) {
+        this.files = files;
+        this.duplicates = duplicates;
+        this.bytes = bytes;
+        this.savedBytes = savedBytes;
+    }
+
+    /**
+     * Links the duplicate attachments found under the given results directories. Contents are
+     * hashed on the I/O executor; only attachments sharing their size with another one are read.
+     */
+    static AllureAttachmentDedupe deduplicate(final AllureIoExecutor ioExecutor,
+                                              final Collection<Path> resultsDirs) throws IOException {
+        final List<Attachment> staged = new ArrayList<>();
+        for (final Path resultsDir : resultsDirs) {
+            staged.addAll(attachments(resultsDir));
+        }
+        final Map<Object, Long> stagedLinks = staged.stream()
+                .filter(attachment -> attachment.fileKey != null)
+                .collect(groupingBy(attachment -> attachment.fileKey, counting()));
+        final Map<Long, List<Attachment>> bySize = new HashMap<>();
+        long files = 0;
+        long bytes = 0;
+        for (final Attachment attachment : staged) {
+            if (attachment.links > stagedLinks.getOrDefault(attachment.fileKey, 1L)) {
+                // linked from the artifact storage, there is no scratch space to save
+                continue;
+            }
+            bySize.computeIfAbsent(attachment.size, size -> new ArrayList<>()).add(attachment);
+            files++;
+            bytes += attachment.size;
+        }
+        final List<AllureIoExecutor.IoTask<Attachment>> hashes = new ArrayList<>();
+        bySize.values().stream()
+                .filter(sameSize -> sameSize.size() > 1)
+                .flatMap(List::stream)
+                .forEach(attachment -> hashes.add(() -> attachment.hash()));
+        final Map<String, Attachment> originals = new HashMap<>();
+        long duplicates = 0;
+        long savedBytes = 0;
+        boolean linking = true;
+        for (final Attachment attachment : ioExecutor.invokeAll(hashes)) {
+            final Attachment original = originals.putIfAbsent(attachment.size + ":" + attachment.digest, attachment);
+            if (original == null) {
+                continue;
+            }
+            if (!original.isSameFile(attachment)) {
+                if (!linking || !link(original.path, attachment.path)) {
+                    linking = false;
+                    continue;
+                }
+            }
+            duplicates++;
+            savedBytes += attachment.size;
+        }
+        final AllureAttachmentDedupe dedupe = new AllureAttachmentDedupe(files, duplicates, bytes, savedBytes);
+        LOGGER.info("Staged {} attachments, {} of them duplicates: {}", files, duplicates, dedupe.getSummary());
+        return dedupe;
+    }
+
+    void dumpToCustomData(final Map<String, String> data) {
+        data.put(key(FILES_KEY), String.valueOf(files));
+        data.put(key(DUPLICATES_KEY), String.valueOf(duplicates));
+        data.put(key(BYTES_KEY), String.valueOf(bytes));
+        data.put(key(SAVED_BYTES_KEY), String.valueOf(savedBytes));
+    }
+
+    /**
+     * @return the stored counts, or {@code null} if the build has none
+     */
+    static AllureAttachmentDedupe fromCustomData(final Map<String, String> data) {
+        if (!data.containsKey(key(FILES_KEY))) {
+            return null;
+        }
+        return new AllureAttachmentDedupe(
+                NumberUtils.toLong(data.get(key(FILES_KEY))),
+                NumberUtils.toLong(data.get(key(DUPLICATES_KEY))),
+                NumberUtils.toLong(data.get(key(BYTES_KEY))),
+                NumberUtils.toLong(data.get(key(SAVED_BYTES_KEY)))
+        );
+    }
+
+    public long getFiles() {
+        return files;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getSavedBytes() {
+        return savedBytes;
+    }
+
+    /**
+     * @return the size of the attachments divided by the disk space they take once deduplicated
+     */
+    public double getRatio() {
+        final long diskBytes = bytes - savedBytes;
+        return diskBytes > 0 ? (double) bytes / diskBytes : 1;
+    }
+
+    public String getSummary() {
+        return String.format(
+                Locale.ROOT, "%s on disk for %s of attachments, dedupe ratio %.2f",
+                FileUtils.byteCountToDisplaySize(bytes - savedBytes), FileUtils.byteCountToDisplaySize(bytes), getRatio()
+        );
+    }
+
+    private static List<Attachment> attachments(final Path resultsDir) throws IOException {
+        final List<Attachment> attachments = new ArrayList<>();
+        if (!Files.isDirectory(resultsDir)) {
+            return attachments;
+        }
+        final boolean countsLinks = resultsDir.getFileSystem().supportedFileAttributeViews().contains("unix");
+        try (Stream<Path> paths = Files.walk(resultsDir)) {
+            for (final Path path : (Iterable<Path>) paths::iterator) {
+                if (path.getFileName().toString().contains(ATTACHMENT_MARKER)) {
+                    final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    if (attributes.isRegularFile() && attributes.size() > 0) {
+                        final long links = countsLinks ? ((Number) Files.getAttribute(path, LINKS_ATTRIBUTE)).longValue() : 1;
+                        attachments.add(new Attachment(path, attributes.size(), attributes.fileKey(), links));
+                    }
+                }
+            }
+        }
+        return attachments;
+    }
+
+    /**
+     * Replaces the duplicate with a link to the original. The link is created next to the
+     * duplicate and moved over it, so the duplicate stays in place if anything fails.
+     *
+     * @return false if the file system does not support links
+     */
+    private static boolean link(final Path original,
+                                final Path duplicate) throws IOException {
+        final Path link = duplicate.resolveSibling(duplicate.getFileName() + ".link");
+        try {
+            Files.deleteIfExists(link);
+            Files.createLink(link, original);
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            LOGGER.debug("Could not link {} to {}, keeping duplicate attachments", duplicate, original, e);
+            return false;
+        }
+        Files.move(link, duplicate, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return true;
+    }
+
+    private static String key(final String suffix) {
+        return ALLURE_BUILD_REPORT_DEDUPE_PREFIX + suffix;
+    }
+
+    /**
+     * A staged attachment along with the hash of its content, once computed.
+     */
+    private static final class Attachment {
+
+        private final Path path;
+        private final long size;
+        private final Object fileKey;
+        private final long links;
+        private String digest;
+
+        private Attachment(final Path path,
+                           final long size,
+                           final Object fileKey,
+                           final long links) {
+            this.path = path;
+            this.size = size;
+            this.fileKey = fileKey;
+            this.links = links;
+        }
+
+        private boolean isSameFile(final Attachment other) {
+            return fileKey != null && fileKey.equals(other.fileKey);
+        }
+
+        private Attachment hash() throws IOException {
+            final MessageDigest sha256;
+            try {
+                sha256 = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            try (InputStream in = Files.newInputStream(path)) {
+                int read = in.read(buffer);
+                while (read >= 0) {
+                    sha256.update(buffer, 0, read);
+                    read = in.read(buffer);
+                }
+            }
+            final StringBuilder hex = new StringBuilder();
+            for (final byte b : sha256.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            digest = hex.toString();
+            return this;
+        }
+    }
+}
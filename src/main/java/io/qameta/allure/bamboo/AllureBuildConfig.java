@@ -23,11 +23,16 @@ import java.io.Serializable;
 import java.util.Map;
 
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_ARTIFACT_NAME;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_COALESCE_BUILDS;
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_CUSTOM_LOGO_PATH;
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_ENABLED;
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_EXECUTABLE;
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_FAILED_ONLY;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_GENERATE_ON_DEMAND;
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_MAX_STORED_REPORTS_COUNT;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_PRIORITY;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_RESULTS_EXCLUDE;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_RESULTS_INCLUDE;
 import static java.lang.Boolean.FALSE;
 import static java.lang.Boolean.TRUE;
 import static java.util.Optional.ofNullable;
@@ -37,6 +42,8 @@ public final class AllureBuildConfig implements Serializable {
     private static final long serialVersionUID = 1L;
 
     private static final String DEFAULT_ARTIFACT_NAME = "allure-results";
+    static final int MAX_PRIORITY = 10;
+
     private static final String DEFAULT_CUSTOM_LOGO_URL = "https://allurereport.org/svg/logo-report-sign.svg";
 
     private final boolean onlyForFailed;
@@ -45,13 +52,21 @@ public final class AllureBuildConfig implements Serializable {
     private final String artifactName;
     private final String logoUrl;
     private final Integer maxStoredReportsCount;
+    private final boolean coalesceBuilds;
+    private final boolean generateOnDemand;
+    private final int priority;
+    private final AllureResultsFilter resultsFilter;
 
     private AllureBuildConfig(final String executable,
                               final String enabled,
                               final String onlyForFailed,
                               final String artifactName,
                               final String logoUrl,
-                              final String maxStoredReportsCount) {
+                              final String maxStoredReportsCount,
+                              final String coalesceBuilds,
+                              final String generateOnDemand,
+                              final String priority,
+                              final AllureResultsFilter resultsFilter) {
         this.onlyForFailed = StringUtils.isBlank(onlyForFailed)
                 ? TRUE
                 : Boolean.parseBoolean(onlyForFailed);
@@ -64,6 +79,10 @@ public final class AllureBuildConfig implements Serializable {
         this.maxStoredReportsCount = StringUtils.isBlank(maxStoredReportsCount) || !StringUtils.isNumeric(maxStoredReportsCount)
                 ? -1
                 : NumberUtils.toInt(maxStoredReportsCount);
+        this.coalesceBuilds = Boolean.parseBoolean(coalesceBuilds);
+        this.generateOnDemand = Boolean.parseBoolean(generateOnDemand);
+        this.priority = Math.max(0, Math.min(MAX_PRIORITY, NumberUtils.toInt(priority)));
+        this.resultsFilter = resultsFilter;
     }
 
     static AllureBuildConfig fromContext(final Map<String, String> context) {
@@ -73,7 +92,14 @@ public final class AllureBuildConfig implements Serializable {
                 getSingleValue(context, ALLURE_CONFIG_FAILED_ONLY, FALSE.toString()),
                 getSingleValue(context, ALLURE_CONFIG_ARTIFACT_NAME, DEFAULT_ARTIFACT_NAME),
                 getSingleValue(context, ALLURE_CONFIG_CUSTOM_LOGO_PATH, DEFAULT_CUSTOM_LOGO_URL),
-                getSingleValue(context, ALLURE_CONFIG_MAX_STORED_REPORTS_COUNT, null)
+                getSingleValue(context, ALLURE_CONFIG_MAX_STORED_REPORTS_COUNT, null),
+                getSingleValue(context, ALLURE_CONFIG_COALESCE_BUILDS, FALSE.toString()),
+                getSingleValue(context, ALLURE_CONFIG_GENERATE_ON_DEMAND, FALSE.toString()),
+                getSingleValue(context, ALLURE_CONFIG_PRIORITY, null),
+                AllureResultsFilter.of(
+                        getSingleValue(context, ALLURE_CONFIG_RESULTS_INCLUDE, null),
+                        getSingleValue(context, ALLURE_CONFIG_RESULTS_EXCLUDE, null)
+                )
         );
     }
 
@@ -102,6 +128,13 @@ public final class AllureBuildConfig implements Serializable {
         return enabled;
     }
 
+    /**
+     * Whether the plan has reports, falling back to the server default when the plan does not say.
+     */
+    boolean isEnabledWith(final AllureGlobalConfig globalConfig) {
+        return isEnabled() || !isEnabledSet() && globalConfig.isEnabledByDefault();
+    }
+
     public String getArtifactName() {
         return artifactName;
     }
@@ -114,4 +147,26 @@ public final class AllureBuildConfig implements Serializable {
         return maxStoredReportsCount;
     }
 
+    boolean isCoalesceBuilds() {
+        return coalesceBuilds;
+    }
+
+    boolean isGenerateOnDemand() {
+        return generateOnDemand;
+    }
+
+    /**
+     * Admin-assigned plan priority from 0 to {@link #MAX_PRIORITY}, higher is generated sooner.
+     */
+    int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Files of the results artifacts staged for the report, all of them unless patterns are set.
+     */
+    AllureResultsFilter getResultsFilter() {
+        return resultsFilter;
+    }
+
 }
@@ -27,9 +27,13 @@ import static com.atlassian.bamboo.plan.PlanClassHelper.isChain;
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_ENABLED;
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_EXECUTABLE;
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_FAILED_ONLY;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_PRIORITY;
 import static java.lang.Boolean.TRUE;
 import static java.util.Optional.ofNullable;
+import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isEmpty;
+import static org.apache.commons.lang3.StringUtils.isNumeric;
+import static org.apache.commons.lang3.math.NumberUtils.toInt;
 
 public class AllureBuildConfigurator extends BaseConfigurablePlugin
         implements
@@ -60,9 +64,17 @@ public class AllureBuildConfigurator extends BaseConfigurablePlugin
                 && isEmpty(buildConfiguration.getString(ALLURE_CONFIG_EXECUTABLE))) {
             collection.addError(ALLURE_CONFIG_EXECUTABLE, "Cannot be empty!");
         }
+        final String priority = buildConfiguration.getString(ALLURE_CONFIG_PRIORITY);
+        if (!isBlank(priority) && !isValidPriority(priority.trim())) {
+            collection.addError(ALLURE_CONFIG_PRIORITY, "Must be a number from 0 to " + AllureBuildConfig.MAX_PRIORITY + "!");
+        }
         return collection;
     }
 
+    private static boolean isValidPriority(final String priority) {
+        return isNumeric(priority) && toInt(priority, -1) <= AllureBuildConfig.MAX_PRIORITY;
+    }
+
     @Override
     public void prepareConfigObject(final @NotNull BuildConfiguration buildConfiguration) {
         super.prepareConfigObject(buildConfiguration);
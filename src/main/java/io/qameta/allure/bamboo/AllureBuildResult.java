@@ -20,6 +20,9 @@ import java.util.Map;
 
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_BUILD_REPORT_ARTIFACT_HANDLER;
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_BUILD_REPORT_FAILURE_DETAILS;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_BUILD_REPORT_PARTIAL;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_BUILD_REPORT_RESULTS_ARTIFACT;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_BUILD_REPORT_STATUS;
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_BUILD_REPORT_SUCCESS;
 import static java.lang.Boolean.parseBoolean;
 import static org.apache.commons.lang3.StringUtils.isEmpty;
@@ -31,6 +34,9 @@ class AllureBuildResult implements Serializable {
     private final boolean success;
     private String artifactHandlerClass;
     private String failureDetails;
+    private AllureReportStatus status = AllureReportStatus.FINISHED;
+    private String resultsArtifactName;
+    private boolean partial;
 
     AllureBuildResult(final boolean success) {
         this.success = success;
@@ -47,10 +53,19 @@ class AllureBuildResult implements Serializable {
         return new AllureBuildResult(success, failureDetails);
     }
 
+    static AllureBuildResult withReportStatus(final AllureReportStatus status) {
+        final AllureBuildResult result = new AllureBuildResult(false);
+        result.setStatus(status);
+        return result;
+    }
+
     static AllureBuildResult fromCustomData(final Map<String, String> data) {
         final AllureBuildResult result = new AllureBuildResult(parseBoolean(data.get(ALLURE_BUILD_REPORT_SUCCESS)));
         result.setArtifactHandlerClass(data.get(ALLURE_BUILD_REPORT_ARTIFACT_HANDLER));
         result.setFailureDetails(data.get(ALLURE_BUILD_REPORT_FAILURE_DETAILS));
+        result.setStatus(AllureReportStatus.fromValue(data.get(ALLURE_BUILD_REPORT_STATUS)));
+        result.setResultsArtifactName(data.get(ALLURE_BUILD_REPORT_RESULTS_ARTIFACT));
+        result.setPartial(parseBoolean(data.get(ALLURE_BUILD_REPORT_PARTIAL)));
         return result;
     }
 
@@ -58,6 +73,11 @@ class AllureBuildResult implements Serializable {
         data.put(ALLURE_BUILD_REPORT_ARTIFACT_HANDLER, artifactHandlerClass);
         data.put(ALLURE_BUILD_REPORT_SUCCESS, String.valueOf(success));
         data.put(ALLURE_BUILD_REPORT_FAILURE_DETAILS, failureDetails);
+        data.put(ALLURE_BUILD_REPORT_STATUS, status.name());
+        if (resultsArtifactName != null) {
+            data.put(ALLURE_BUILD_REPORT_RESULTS_ARTIFACT, resultsArtifactName);
+        }
+        data.put(ALLURE_BUILD_REPORT_PARTIAL, String.valueOf(partial));
     }
 
     AllureBuildResult withHandlerClass(final String artifactHandlerClass) {
@@ -85,7 +105,51 @@ class AllureBuildResult implements Serializable {
         this.failureDetails = failureDetails;
     }
 
+    AllureBuildResult withResultsArtifactName(final String resultsArtifactName) {
+        setResultsArtifactName(resultsArtifactName);
+        return this;
+    }
+
+    /**
+     * Name of the artifact holding the raw results, recorded for reports that are generated later
+     * than the build, so a later change of the plan configuration does not affect them.
+     */
+    String getResultsArtifactName() {
+        return resultsArtifactName;
+    }
+
+    void setResultsArtifactName(final String resultsArtifactName) {
+        this.resultsArtifactName = resultsArtifactName;
+    }
+
+    /**
+     * Marks a report built from only some of the results, the details telling what was left out.
+     */
+    AllureBuildResult withPartialDetails(final String partialDetails) {
+        if (partialDetails != null) {
+            setPartial(true);
+            setFailureDetails(partialDetails);
+        }
+        return this;
+    }
+
+    boolean isPartial() {
+        return partial;
+    }
+
+    void setPartial(final boolean partial) {
+        this.partial = partial;
+    }
+
+    AllureReportStatus getStatus() {
+        return status;
+    }
+
+    void setStatus(final AllureReportStatus status) {
+        this.status = status;
+    }
+
     boolean hasInfo() {
-        return !isEmpty(this.failureDetails) || !isEmpty(artifactHandlerClass);
+        return !isEmpty(this.failureDetails) || !isEmpty(artifactHandlerClass) || status != AllureReportStatus.FINISHED;
     }
 }
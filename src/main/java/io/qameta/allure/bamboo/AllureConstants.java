@@ -32,13 +32,41 @@ final class AllureConstants {
     static final String ALLURE_BUILD_REPORT_SUCCESS = "custom.allure.build.report.success";
     static final String ALLURE_BUILD_REPORT_ARTIFACT_HANDLER = "custom.allure.build.report.artifact.handler";
     static final String ALLURE_BUILD_REPORT_FAILURE_DETAILS = "custom.allure.build.report.output";
+    static final String ALLURE_BUILD_REPORT_STATUS = "custom.allure.build.report.status";
+    static final String ALLURE_BUILD_REPORT_RESULTS_ARTIFACT = "custom.allure.build.report.results.artifact";
+    static final String ALLURE_BUILD_REPORT_PARTIAL = "custom.allure.build.report.partial";
+    static final String ALLURE_BUILD_REPORT_TIMING_PREFIX = "custom.allure.build.report.timing.";
+    static final String ALLURE_BUILD_REPORT_DEDUPE_PREFIX = "custom.allure.build.report.dedupe.";
     static final String ALLURE_CONFIG_ENABLED = "custom.allure.config.enabled";
     static final String ALLURE_CONFIG_FAILED_ONLY = "custom.allure.config.failed.only";
     static final String ALLURE_CONFIG_ARTIFACT_NAME = "custom.allure.artifact.name";
+    static final String ALLURE_CONFIG_COALESCE_BUILDS = "custom.allure.config.coalesce.builds";
+    static final String ALLURE_CONFIG_GENERATE_ON_DEMAND = "custom.allure.config.generate.on.demand";
+    static final String ALLURE_CONFIG_PRIORITY = "custom.allure.config.priority";
+    static final String ALLURE_CONFIG_RESULTS_INCLUDE = "custom.allure.config.results.include";
+    static final String ALLURE_CONFIG_RESULTS_EXCLUDE = "custom.allure.config.results.exclude";
     static final String ALLURE_CONFIG_DOWNLOAD_ENABLED = "custom.allure.config.download.enabled";
     static final String ALLURE_CONFIG_ENABLED_BY_DEFAULT = "custom.allure.config.enabled.default";
     static final String ALLURE_CONFIG_DOWNLOAD_URL = "custom.allure.config.download.url";
     static final String ALLURE_CONFIG_LOCAL_STORAGE = "custom.allure.config.local.storage";
+    static final String ALLURE_CONFIG_SCRATCH_PATH = "custom.allure.config.scratch.path";
+
+    // ALLURE REPORT GENERATION LIMITS
+    static final String ALLURE_CONFIG_MAX_CONCURRENT_GENERATIONS = "custom.allure.config.max.concurrent.generations";
+    static final String ALLURE_CONFIG_MAX_IO_CONCURRENCY = "custom.allure.config.max.io.concurrency";
+    static final String ALLURE_CONFIG_MAX_PARALLEL_DOWNLOADS = "custom.allure.config.max.parallel.downloads";
+    static final String ALLURE_CONFIG_STAGING_MODE = "custom.allure.config.staging.mode";
+
+    // ALLURE RESULTS INGESTION BUDGET
+    static final String ALLURE_CONFIG_MAX_RESULTS_MB = "custom.allure.config.max.results.mb";
+    static final String ALLURE_CONFIG_MAX_RESULTS_FILES = "custom.allure.config.max.results.files";
+    static final String ALLURE_CONFIG_MAX_RESULT_FILE_MB = "custom.allure.config.max.result.file.mb";
+    static final String ALLURE_CONFIG_OVERSIZE_ACTION = "custom.allure.config.oversize.action";
+
+    // ALLURE HISTORY COMPACTION
+    static final String ALLURE_CONFIG_HISTORY_MAX_ITEMS = "custom.allure.config.history.max.items";
+    static final String ALLURE_CONFIG_HISTORY_MAX_AGE_BUILDS = "custom.allure.config.history.max.age.builds";
+    static final String ALLURE_CONFIG_HISTORY_TREND_WINDOW = "custom.allure.config.history.trend.window";
 
     // ALLURE CUSTOM LOGO
     static final String ALLURE_CONFIG_CUSTOM_LOGO_ENABLED = "custom.allure.config.logo.enabled";
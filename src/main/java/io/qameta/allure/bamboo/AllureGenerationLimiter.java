@@ -0,0 +1,91 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+/**
+ * Caps the number of report generations (artifact download, {@code allure generate} and upload)
+ * running at once on the Bamboo server. Waiting jobs are admitted in FIFO order. The cap is read
+ * from the global settings on every acquire, so changes made on the admin page apply to the next
+ * job without a restart.
+ */
+public class AllureGenerationLimiter {
+
+    private static final long MEMORY_PER_GENERATION = 1024L * 1024L * 1024L;
+
+    private final AllureSettingsManager settingsManager;
+    private final ResizableSemaphore semaphore = new ResizableSemaphore(true);
+
+    public AllureGenerationLimiter(final AllureSettingsManager settingsManager) {
+        this.settingsManager = settingsManager;
+    }
+
+    /**
+     * Blocks until a generation slot is free.
+     */
+    void acquire() throws InterruptedException {
+        refreshPermits();
+        semaphore.acquire();
+    }
+
+    /**
+     * Applies the cap currently configured on the admin page.
+     *
+     * @return the number of slots.
+     */
+    int refreshPermits() {
+        resize(permitsFor(settingsManager.getSettings()));
+        return getPermits();
+    }
+
+    void release() {
+        semaphore.release();
+    }
+
+    /**
+     * Changes the number of slots. Shrinking never interrupts running generations.
+     */
+    void resize(final int newPermits) {
+        semaphore.resize(newPermits);
+    }
+
+    int getPermits() {
+        return semaphore.getPermits();
+    }
+
+    int getActivePermits() {
+        return semaphore.getActivePermits();
+    }
+
+    int getQueueLength() {
+        return semaphore.getQueueLength();
+    }
+
+    static int permitsFor(final AllureGlobalConfig config) {
+        final int configured = config.getMaxConcurrentGenerations();
+        return configured > 0 ? configured : defaultPermits();
+    }
+
+    /**
+     * Half of the available cores, but no more than one generation per gigabyte of heap the
+     * Bamboo JVM may use for downloading and packing results.
+     */
+    static int defaultPermits() {
+        final Runtime runtime = Runtime.getRuntime();
+        final long byMemory = runtime.maxMemory() / MEMORY_PER_GENERATION;
+        final int byCores = runtime.availableProcessors() / 2;
+        return (int) Math.max(1, Math.min(byCores, byMemory));
+    }
+}
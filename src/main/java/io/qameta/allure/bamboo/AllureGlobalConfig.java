@@ -16,9 +16,12 @@
 package io.qameta.allure.bamboo;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 
 import java.io.File;
 import java.io.Serializable;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 import static java.lang.Boolean.FALSE;
 import static java.lang.Boolean.TRUE;
@@ -28,6 +31,11 @@ import static org.apache.commons.lang3.SystemUtils.getJavaIoTmpDir;
 public class AllureGlobalConfig implements Serializable {
 
     private static final long serialVersionUID = 1L;
+    private static final long MEGABYTE = 1024 * 1024;
+    /**
+     * Largest size in megabytes whose number of bytes still fits a {@code long}.
+     */
+    static final long MAX_MEGABYTES = Long.MAX_VALUE / MEGABYTE;
 
     private static final String DEFAULT_DOWNLOAD_BASE_URL = "https://github.com/allure-framework/allure2/releases/download/";
     private static final String DEFAULT_CLI_BASE_URL = "https://repo.maven.apache.org/maven2/io/qameta/allure/";
@@ -38,6 +46,18 @@ public class AllureGlobalConfig implements Serializable {
     private final boolean enabledReportsCleanup;
     private final String localStoragePath;
     private final String downloadBaseUrl;
+    private int maxConcurrentGenerations;
+    private int maxIoConcurrency;
+    private int maxParallelDownloads;
+    private AllureStagingMode stagingMode = AllureStagingMode.LINK;
+    private long maxResultsMb;
+    private long maxResultsFiles;
+    private long maxResultFileMb;
+    private AllureOversizeAction oversizeAction = AllureOversizeAction.SKIP;
+    private String scratchPath;
+    private int historyMaxItems;
+    private int historyMaxAgeBuilds;
+    private int historyTrendWindow;
 
     public AllureGlobalConfig() {
         this(
@@ -94,6 +114,114 @@ public class AllureGlobalConfig implements Serializable {
         this.enabledReportsCleanup = enabledReportsCleanup;
     }
 
+    /**
+     * Sets the maximum number of report generations allowed to run at once; blank, non-numeric or
+     * non-positive values mean the limit is derived from the server resources.
+     */
+    AllureGlobalConfig withMaxConcurrentGenerations(final String maxConcurrentGenerations) {
+        this.maxConcurrentGenerations = Math.max(0, NumberUtils.toInt(maxConcurrentGenerations, 0));
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of artifact transfers in flight across all generations; blank,
+     * non-numeric or non-positive values mean the built-in default.
+     */
+    AllureGlobalConfig withMaxIoConcurrency(final String maxIoConcurrency) {
+        this.maxIoConcurrency = Math.max(0, NumberUtils.toInt(maxIoConcurrency, 0));
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of job artifacts a single generation downloads at once; blank,
+     * non-numeric or non-positive values mean the built-in default.
+     */
+    AllureGlobalConfig withMaxParallelDownloads(final String maxParallelDownloads) {
+        this.maxParallelDownloads = Math.max(0, NumberUtils.toInt(maxParallelDownloads, 0));
+        return this;
+    }
+
+    /**
+     * Sets how results stored on the server file system are staged; blank or unknown values mean
+     * hard links.
+     */
+    AllureGlobalConfig withStagingMode(final String stagingMode) {
+        this.stagingMode = AllureStagingMode.fromName(stagingMode);
+        return this;
+    }
+
+    /**
+     * Sets the size in megabytes up to which a report stages results; blank, non-numeric or
+     * non-positive values mean no limit.
+     */
+    AllureGlobalConfig withMaxResultsMb(final String maxResultsMb) {
+        this.maxResultsMb = Math.max(0, NumberUtils.toLong(maxResultsMb, 0));
+        return this;
+    }
+
+    /**
+     * Sets the number of files up to which a report stages results; blank, non-numeric or
+     * non-positive values mean no limit.
+     */
+    AllureGlobalConfig withMaxResultsFiles(final String maxResultsFiles) {
+        this.maxResultsFiles = Math.max(0, NumberUtils.toLong(maxResultsFiles, 0));
+        return this;
+    }
+
+    /**
+     * Sets the size in megabytes of the largest results file a report stages; blank, non-numeric
+     * or non-positive values mean no limit.
+     */
+    AllureGlobalConfig withMaxResultFileMb(final String maxResultFileMb) {
+        this.maxResultFileMb = Math.max(0, NumberUtils.toLong(maxResultFileMb, 0));
+        return this;
+    }
+
+    /**
+     * Sets what staging does with files over the single file limit; blank or unknown values mean
+     * they are skipped.
+     */
+    AllureGlobalConfig withOversizeAction(final String oversizeAction) {
+        this.oversizeAction = AllureOversizeAction.fromName(oversizeAction);
+        return this;
+    }
+
+    /**
+     * Sets the directory reports are staged and generated in; blank values mean the local storage
+     * path.
+     */
+    AllureGlobalConfig withScratchPath(final String scratchPath) {
+        this.scratchPath = StringUtils.trimToNull(scratchPath);
+        return this;
+    }
+
+    /**
+     * Sets the number of history items kept per test; blank, non-numeric or non-positive values
+     * mean all of them.
+     */
+    AllureGlobalConfig withHistoryMaxItems(final String historyMaxItems) {
+        this.historyMaxItems = Math.max(0, NumberUtils.toInt(historyMaxItems, 0));
+        return this;
+    }
+
+    /**
+     * Sets the number of builds after which the history of a test not seen since is dropped;
+     * blank, non-numeric or non-positive values mean it is kept.
+     */
+    AllureGlobalConfig withHistoryMaxAgeBuilds(final String historyMaxAgeBuilds) {
+        this.historyMaxAgeBuilds = Math.max(0, NumberUtils.toInt(historyMaxAgeBuilds, 0));
+        return this;
+    }
+
+    /**
+     * Sets the number of builds the trend charts show; blank, non-numeric or non-positive values
+     * mean all of them.
+     */
+    AllureGlobalConfig withHistoryTrendWindow(final String historyTrendWindow) {
+        this.historyTrendWindow = Math.max(0, NumberUtils.toInt(historyTrendWindow, 0));
+        return this;
+    }
+
     boolean isDownloadEnabled() {
         return downloadEnabled;
     }
@@ -121,4 +249,77 @@ public class AllureGlobalConfig implements Serializable {
     public String getLocalStoragePath() {
         return localStoragePath;
     }
+
+    int getMaxConcurrentGenerations() {
+        return maxConcurrentGenerations;
+    }
+
+    int getMaxIoConcurrency() {
+        return maxIoConcurrency;
+    }
+
+    int getMaxParallelDownloads() {
+        return maxParallelDownloads;
+    }
+
+    AllureStagingMode getStagingMode() {
+        return stagingMode;
+    }
+
+    long getMaxResultsMb() {
+        return maxResultsMb;
+    }
+
+    long getMaxResultsBytes() {
+        return maxResultsMb * MEGABYTE;
+    }
+
+    long getMaxResultsFiles() {
+        return maxResultsFiles;
+    }
+
+    long getMaxResultFileMb() {
+        return maxResultFileMb;
+    }
+
+    long getMaxResultFileBytes() {
+        return maxResultFileMb * MEGABYTE;
+    }
+
+    AllureOversizeAction getOversizeAction() {
+        return oversizeAction;
+    }
+
+    int getHistoryMaxItems() {
+        return historyMaxItems;
+    }
+
+    int getHistoryMaxAgeBuilds() {
+        return historyMaxAgeBuilds;
+    }
+
+    int getHistoryTrendWindow() {
+        return historyTrendWindow;
+    }
+
+    /**
+     * @return whether the history of the previous build is compacted before it is used
+     */
+    boolean isHistoryCompactionEnabled() {
+        return historyMaxItems > 0 || historyMaxAgeBuilds > 0 || historyTrendWindow > 0;
+    }
+
+    /**
+     * @return the configured scratch directory, {@code null} when reports use the local storage path
+     */
+    String getScratchPath() {
+        return scratchPath;
+    }
+
+    /**
+     * @return the directory reports are staged and generated in
+     */
+    Path getScratchDir() {
+        return Paths.get(scratchPath != null ? scratchPath : localStoragePath);
+    }
 }
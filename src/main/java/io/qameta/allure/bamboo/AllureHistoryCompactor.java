@@ -0,0 +1,212 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.OptionalInt;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static io.qameta.allure.bamboo.AllureHistoryStore.HISTORY_FILES;
+import static io.qameta.allure.bamboo.AllureHistoryStore.HISTORY_JSON;
+
+/**
+ * Keeps the history of a plan from growing without bound. Before the history of the previous build
+ * is used, every test keeps only its newest runs, tests that have not run for a number of builds
+ * are dropped, and the trend files are cut to a window of builds. The files are streamed through,
+ * holding a single test at a time, so memory stays bounded however large the history is. Each
+ * file is rewritten into a temporary file and moved into place, so a failure leaves it untouched.
+ */
+class AllureHistoryCompactor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AllureHistoryCompactor.class);
+    private static final ObjectMapper MAPPER = new JsonMapper();
+    private static final String ITEMS = "items";
+    private static final String REPORT_URL = "reportUrl";
+    private static final String TMP_SUFFIX = ".tmp";
+    /**
+     * Build number in the report url the plugin writes into the executor info of every report.
+     */
+    private static final Pattern REPORT_BUILD = Pattern.compile("/plugins/servlet/allure/report/[^/]+/(\\d+)/");
+
+    /**
+     * Compacts the history files of the previous builds in the given directory, as configured.
+     *
+     * @param buildNumber the build the history is fetched for
+     */
+    void compact(final AllureGlobalConfig globalConfig,
+                 final Path historyDir,
+                 final int buildNumber) throws IOException {
+        final Path historyJson = historyDir.resolve(HISTORY_JSON);
+        if ((globalConfig.getHistoryMaxItems() > 0 || globalConfig.getHistoryMaxAgeBuilds() > 0)
+                && Files.isRegularFile(historyJson)) {
+            compactHistory(historyJson, globalConfig.getHistoryMaxItems(), globalConfig.getHistoryMaxAgeBuilds(), buildNumber);
+        }
+        if (globalConfig.getHistoryTrendWindow() > 0) {
+            // The report adds the build itself to the trends.
+            final int keep = globalConfig.getHistoryTrendWindow() - 1;
+            for (final String historyFile : HISTORY_FILES) {
+                final Path trendJson = historyDir.resolve(historyFile);
+                if (!HISTORY_JSON.equals(historyFile) && Files.isRegularFile(trendJson)) {
+                    trimTrend(trendJson, keep);
+                }
+            }
+        }
+    }
+
+    private static void compactHistory(final Path historyJson,
+                                       final int maxItems,
+                                       final int maxAgeBuilds,
+                                       final int buildNumber) throws IOException {
+        int kept = 0;
+        int dropped = 0;
+        final Path tmp = historyJson.resolveSibling(historyJson.getFileName() + TMP_SUFFIX);
+        try {
+            try (JsonParser parser = MAPPER.createParser(historyJson.toFile());
+                 JsonGenerator generator = MAPPER.createGenerator(tmp.toFile(), JsonEncoding.UTF8)) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    LOGGER.warn("Skipping compaction of {}, it is not a JSON object", historyJson);
+                    return;
+                }
+                generator.writeStartObject();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String historyId = parser.currentName();
+                    parser.nextToken();
+                    final JsonNode entry = readEntry(parser, maxItems);
+                    if (maxAgeBuilds > 0 && isStale(entry, maxAgeBuilds, buildNumber)) {
+                        dropped++;
+                        continue;
+                    }
+                    generator.writeFieldName(historyId);
+                    MAPPER.writeTree(generator, entry);
+                    kept++;
+                }
+                generator.writeEndObject();
+            }
+            replace(tmp, historyJson);
+            LOGGER.info("Compacted {}: kept the history of {} tests, dropped {}", historyJson, kept, dropped);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Reads the history of a single test, keeping only its newest items.
+     */
+    private static JsonNode readEntry(final JsonParser parser,
+                                      final int maxItems) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            return MAPPER.readTree(parser);
+        }
+        final ObjectNode entry = MAPPER.createObjectNode();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.currentName();
+            parser.nextToken();
+            if (ITEMS.equals(field) && parser.currentToken() == JsonToken.START_ARRAY) {
+                final ArrayNode items = entry.putArray(ITEMS);
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (maxItems > 0 && items.size() >= maxItems) {
+                        parser.skipChildren();
+                    } else {
+                        items.add(MAPPER.<JsonNode>readTree(parser));
+                    }
+                }
+            } else {
+                entry.set(field, MAPPER.readTree(parser));
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Whether the newest item of the test comes from a build more than the given number of builds
+     * ago. Tests whose items do not tell their build are kept.
+     */
+    private static boolean isStale(final JsonNode entry,
+                                   final int maxAgeBuilds,
+                                   final int buildNumber) {
+        final OptionalInt lastSeen = buildOf(entry.path(ITEMS).path(0).path(REPORT_URL).asText(""));
+        return lastSeen.isPresent() && buildNumber - lastSeen.getAsInt() > maxAgeBuilds;
+    }
+
+    private static OptionalInt buildOf(final String reportUrl) {
+        final Matcher matcher = REPORT_BUILD.matcher(reportUrl);
+        if (!matcher.find()) {
+            return OptionalInt.empty();
+        }
+        try {
+            return OptionalInt.of(Integer.parseInt(matcher.group(1)));
+        } catch (NumberFormatException e) {
+            return OptionalInt.empty();
+        }
+    }
+
+    /**
+     * Keeps the given number of newest builds of a trend, the trends list the newest build first.
+     */
+    private static void trimTrend(final Path trendJson,
+                                  final int keep) throws IOException {
+        final Path tmp = trendJson.resolveSibling(trendJson.getFileName() + TMP_SUFFIX);
+        try {
+            try (JsonParser parser = MAPPER.createParser(trendJson.toFile());
+                 JsonGenerator generator = MAPPER.createGenerator(tmp.toFile(), JsonEncoding.UTF8)) {
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    LOGGER.warn("Skipping compaction of {}, it is not a JSON array", trendJson);
+                    return;
+                }
+                generator.writeStartArray();
+                int count = 0;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (count < keep) {
+                        generator.copyCurrentStructure(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                    count++;
+                }
+                generator.writeEndArray();
+            }
+            replace(tmp, trendJson);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void replace(final Path source,
+                                final Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * Per-plan record of the builds whose published report carries a valid history, kept as a small
+ * JSON file under the local storage path. The history of the previous build is then found with a
+ * single read, instead of walking back build by build and parsing the history of each. Only the
+ * newest {@link #MAX_BUILDS} builds are kept. Plans without an index yet are looked up the old way.
+ */
+class AllureHistoryIndex {
+
+    static final String INDEX_SUBDIR = "allure-history-index";
+    static final int MAX_BUILDS = 20;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AllureHistoryIndex.class);
+    private static final ObjectMapper MAPPER = new JsonMapper();
+    private static final TypeReference<List<Integer>> BUILDS = new TypeReference<>() {
+    };
+
+    /**
+     * @return the builds of the plan with history, empty if the plan has no readable index
+     */
+    synchronized Optional<NavigableSet<Integer>> read(final AllureGlobalConfig globalConfig,
+                                                      final String planKey) {
+        final Path file = indexOf(globalConfig, planKey);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new TreeSet<>(MAPPER.readValue(file.toFile(), BUILDS)));
+        } catch (IOException e) {
+            LOGGER.warn("Ignoring unreadable Allure history index {}", file, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Adds a build whose report with a valid history was published. The index is replaced
+     * atomically, so readers never see it half-written.
+     */
+    synchronized void record(final AllureGlobalConfig globalConfig,
+                             final String planKey,
+                             final int buildNumber) throws IOException {
+        final NavigableSet<Integer> builds = read(globalConfig, planKey).orElseGet(TreeSet::new);
+        builds.add(buildNumber);
+        while (builds.size() > MAX_BUILDS) {
+            builds.pollFirst();
+        }
+        write(globalConfig, planKey, builds);
+    }
+
+    /**
+     * Drops a build whose history can no longer be found.
+     */
+    synchronized void remove(final AllureGlobalConfig globalConfig,
+                             final String planKey,
+                             final int buildNumber) throws IOException {
+        final Optional<NavigableSet<Integer>> builds = read(globalConfig, planKey);
+        if (builds.isPresent() && builds.get().remove(buildNumber)) {
+            write(globalConfig, planKey, builds.get());
+        }
+    }
+
+    private static void write(final AllureGlobalConfig globalConfig,
+                              final String planKey,
+                              final NavigableSet<Integer> builds) throws IOException {
+        final Path file = indexOf(globalConfig, planKey);
+        Files.createDirectories(file.getParent());
+        final Path tmp = Files.createTempFile(file.getParent(), planKey, ".tmp");
+        try {
+            MAPPER.writeValue(tmp.toFile(), builds.descendingSet());
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    static Path indexOf(final AllureGlobalConfig globalConfig,
+                        final String planKey) {
+        return Paths.get(globalConfig.getLocalStoragePath(), INDEX_SUBDIR, planKey + ".json");
+    }
+}
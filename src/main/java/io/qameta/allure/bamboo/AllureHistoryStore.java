@@ -0,0 +1,139 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Server-local copy of the history files of the latest published report of every plan, under the
+ * local storage path. The history of the previous build is copied from here, and only fetched from
+ * the report artifact of that build, possibly in remote storage, when the store holds another build.
+ * The files of a build are written into a temporary directory and moved into place at once, so a
+ * report never picks up the history of a build half-written.
+ */
+class AllureHistoryStore {
+
+    static final String STORE_SUBDIR = "allure-history";
+    static final String HISTORY_JSON = "history.json";
+    static final List<String> HISTORY_FILES = Arrays.asList(
+            HISTORY_JSON,
+            "history-trend.json", "categories-trend.json", "duration-trend.json"
+    );
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AllureHistoryStore.class);
+    private static final String TMP_PREFIX = ".tmp-";
+
+    /**
+     * Whether the store holds the history of the given build.
+     */
+    synchronized boolean contains(final AllureGlobalConfig globalConfig,
+                                  final String planKey,
+                                  final int buildNumber) {
+        return Files.isRegularFile(planDir(globalConfig, planKey).resolve(String.valueOf(buildNumber)).resolve(HISTORY_JSON));
+    }
+
+    /**
+     * Copies the stored history of the given build into the history directory.
+     *
+     * @return false if the store holds no history of the build
+     */
+    synchronized boolean copyTo(final AllureGlobalConfig globalConfig,
+                                final String planKey,
+                                final int buildNumber,
+                                final Path historyDir) {
+        final Path stored = planDir(globalConfig, planKey).resolve(String.valueOf(buildNumber));
+        if (!Files.isRegularFile(stored.resolve(HISTORY_JSON))) {
+            return false;
+        }
+        try {
+            FileUtils.deleteQuietly(historyDir.toFile());
+            FileUtils.copyDirectory(stored.toFile(), historyDir.toFile());
+            return true;
+        } catch (IOException e) {
+            LOGGER.warn("Failed to copy the stored history of {}-{}", planKey, buildNumber, e);
+            FileUtils.deleteQuietly(historyDir.toFile());
+            return false;
+        }
+    }
+
+    /**
+     * Replaces the stored history of the plan with the history files of the given build, unless a
+     * later build is stored already.
+     */
+    synchronized void save(final AllureGlobalConfig globalConfig,
+                           final String planKey,
+                           final int buildNumber,
+                           final Path historyDir) throws IOException {
+        final Path planDir = planDir(globalConfig, planKey);
+        if (latestBuild(planDir).filter(latest -> latest > buildNumber).isPresent()) {
+            return;
+        }
+        Files.createDirectories(planDir);
+        final Path tmp = Files.createTempDirectory(planDir, TMP_PREFIX);
+        try {
+            for (final String historyFile : HISTORY_FILES) {
+                final Path source = historyDir.resolve(historyFile);
+                if (Files.isRegularFile(source)) {
+                    Files.copy(source, tmp.resolve(historyFile));
+                }
+            }
+            final Path target = planDir.resolve(String.valueOf(buildNumber));
+            FileUtils.deleteQuietly(target.toFile());
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target);
+            }
+        } finally {
+            FileUtils.deleteQuietly(tmp.toFile());
+        }
+        try (Stream<Path> entries = Files.list(planDir)) {
+            entries.filter(entry -> !entry.endsWith(String.valueOf(buildNumber)))
+                    .forEach(entry -> FileUtils.deleteQuietly(entry.toFile()));
+        }
+    }
+
+    static Path planDir(final AllureGlobalConfig globalConfig,
+                        final String planKey) {
+        return Paths.get(globalConfig.getLocalStoragePath(), STORE_SUBDIR, planKey);
+    }
+
+    private static Optional<Integer> latestBuild(final Path planDir) throws IOException {
+        if (!Files.isDirectory(planDir)) {
+            return Optional.empty();
+        }
+        try (Stream<Path> entries = Files.list(planDir)) {
+            return entries.map(entry -> entry.getFileName().toString())
+                    .filter(NumberUtils::isDigits)
+                    .map(Integer::valueOf)
+                    .max(Integer::compare);
+        }
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Limits on what a single report stages from the results artifacts: the total number of bytes,
+ * the number of files and the size of a single file. Every file is admitted before it is written.
+ * A file whose size is only known once written may be written up to the single file limit or
+ * what is left of the total, but reserves no more than {@link #UNKNOWN_SIZE_RESERVATION} of it, so
+ * that concurrent downloads are not serialized. It is settled afterwards, giving back its
+ * reservation, and removed if rejected. While the reservations of files in flight hold what is left
+ * of the total, further files wait for them to settle. Once the total limits are reached staging
+ * stops, while an oversized file is skipped or stops staging as configured. Either way the report
+ * is built from what was staged so far and marked as partial. The budget is shared by the
+ * concurrent downloads of a build.
+ */
+public final class AllureIngestionBudget {
+
+    /**
+     * Size of a file that is admitted before its size is known.
+     */
+    public static final long UNKNOWN_SIZE = -1;
+    /**
+     * Returned by {@link #admit} for a file that may not be written.
+     */
+    public static final long REFUSED = -1;
+    /**
+     * Most of the total a file of unknown size holds back from other files while it is written.
+     */
+    static final long UNKNOWN_SIZE_RESERVATION = 8L * 1024 * 1024;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AllureIngestionBudget.class);
+    private static final String BYTES_LIMIT_REACHED = "the limit of %s was reached";
+
+    private final long maxBytes;
+    private final long maxFiles;
+    private final long maxFileBytes;
+    private final AllureOversizeAction oversizeAction;
+    private final List<String> stagedReasons = new ArrayList<>();
+
+    private long files;
+    private long bytes;
+    private long reserved;
+    private long skippedFiles;
+    private String stopReason;
+
+    AllureIngestionBudget(final long maxBytes,
+                          final long maxFiles,
+                          final long maxFileBytes,
+                          final AllureOversizeAction oversizeAction) {
+        this.maxBytes = maxBytes;
+        this.maxFiles = maxFiles;
+        this.maxFileBytes = maxFileBytes;
+        this.oversizeAction = oversizeAction;
+    }
+
+    static AllureIngestionBudget of(final AllureGlobalConfig config) {
+        return new AllureIngestionBudget(
+                config.getMaxResultsBytes(),
+                config.getMaxResultsFiles(),
+                config.getMaxResultFileBytes(),
+                config.getOversizeAction()
+        );
+    }
+
+    public static AllureIngestionBudget unlimited() {
+        return new AllureIngestionBudget(0, 0, 0, AllureOversizeAction.SKIP);
+    }
+
+    boolean isLimited() {
+        return maxBytes > 0 || maxFiles > 0 || maxFileBytes > 0;
+    }
+
+    /**
+     * Reserves room for a file about to be written, waiting while the files in flight hold the
+     * room it needs.
+     *
+     * @param path path of the file within its artifact, for the log
+     * @param size size of the file, or {@link #UNKNOWN_SIZE} to settle it once written
+     * @return the number of bytes the file may be written up to, its size if known, or
+     * {@link #REFUSED} if it may not be written
+     */
+    public synchronized long admit(final String path,
+                                   final long size) {
+        if (stopReason != null || isOversized(path, size)) {
+            return REFUSED;
+        }
+        try {
+            while (stopReason == null && reserved > 0 && bytes + reserved + reservationOf(allowanceOf(size)) > maxBytes) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return REFUSED;
+        }
+        if (stopReason != null) {
+            return REFUSED;
+        }
+        if (maxFiles > 0 && files >= maxFiles) {
+            stop(String.format("the limit of %d files was reached", maxFiles));
+            return REFUSED;
+        }
+        final long allowance = allowanceOf(size);
+        if (size < 0 && allowance <= 0) {
+            stop(String.format(BYTES_LIMIT_REACHED, FileUtils.byteCountToDisplaySize(maxBytes)));
+            return REFUSED;
+        }
+        if (exceedsBytes(allowance)) {
+            return REFUSED;
+        }
+        files++;
+        if (size >= 0) {
+            bytes += size;
+        } else if (maxBytes > 0) {
+            reserved += reservationOf(allowance);
+        }
+        return allowance;
+    }
+
+    /**
+     * Accounts for a file admitted with an {@link #UNKNOWN_SIZE} once it is written, giving back
+     * the room reserved for it.
+     *
+     * @param allowance what {@link #admit} returned for the file
+     * @return whether the file may be kept; the caller removes it otherwise
+     */
+    public synchronized boolean settle(final String path,
+                                       final long allowance,
+                                       final long size) {
+        unreserve(allowance);
+        if (isOversized(path, size) || exceedsBytes(size)) {
+            files--;
+            return false;
+        }
+        bytes += size;
+        return true;
+    }
+
+    /**
+     * Gives back the room of a file admitted with an {@link #UNKNOWN_SIZE} that failed to be
+     * written.
+     *
+     * @param allowance what {@link #admit} returned for the file
+     */
+    public synchronized void release(final long allowance) {
+        unreserve(allowance);
+        files--;
+    }
+
+    /**
+     * Gives back files that were admitted with a known size or settled, but are not kept after
+     * all, as those of an archive read that failed and is made again.
+     *
+     * @param keptFiles the number of files
+     * @param keptBytes their size, as admitted or settled
+     */
+    public synchronized void refund(final long keptFiles,
+                                    final long keptBytes) {
+        files -= keptFiles;
+        bytes -= keptBytes;
+        notifyAll();
+    }
+
+    public synchronized boolean isExhausted() {
+        return stopReason != null;
+    }
+
+    /**
+     * Accounts for results staged before the build report started, as by the prestager, along
+     * with what their own budget left out.
+     */
+    synchronized void charge(final long stagedFiles,
+                             final long stagedBytes,
+                             final List<String> partialReasons) {
+        files += stagedFiles;
+        bytes += stagedBytes;
+        stagedReasons.addAll(partialReasons);
+        if (maxFiles > 0 && files > maxFiles || maxBytes > 0 && bytes > maxBytes) {
+            stop(String.format("%d files of %s were staged ahead of the report", files, FileUtils.byteCountToDisplaySize(bytes)));
+        }
+    }
+
+    synchronized boolean isPartial() {
+        return !getPartialReasons().isEmpty();
+    }
+
+    /**
+     * @return what was left out, empty if all results were staged
+     */
+    synchronized List<String> getPartialReasons() {
+        final List<String> reasons = new ArrayList<>();
+        if (stopReason != null) {
+            reasons.add("staging stopped as " + stopReason);
+        }
+        if (skippedFiles > 0) {
+            reasons.add(String.format("%d files over %s were skipped", skippedFiles, FileUtils.byteCountToDisplaySize(maxFileBytes)));
+        }
+        reasons.addAll(stagedReasons);
+        return reasons;
+    }
+
+    /**
+     * @return why the report is partial, {@code null} if nothing was left out
+     */
+    synchronized String getPartialDetails() {
+        final List<String> reasons = getPartialReasons();
+        return reasons.isEmpty() ? null : "Partial report: " + String.join("; ", reasons) + ".";
+    }
+
+    private boolean isOversized(final String path,
+                                final long size) {
+        if (maxFileBytes <= 0 || size <= maxFileBytes) {
+            return false;
+        }
+        if (oversizeAction == AllureOversizeAction.STOP) {
+            stop(String.format("%s exceeds the single file limit of %s", path, FileUtils.byteCountToDisplaySize(maxFileBytes)));
+        } else {
+            skippedFiles++;
+            LOGGER.warn("Skipping {}, it exceeds the single file limit of {}", path, FileUtils.byteCountToDisplaySize(maxFileBytes));
+        }
+        return true;
+    }
+
+    /**
+     * @return the size of a file, or for a file of unknown size the most it may be written up to
+     */
+    private long allowanceOf(final long size) {
+        if (size >= 0) {
+            return size;
+        }
+        final long fileLimit = maxFileBytes > 0 ? maxFileBytes : Long.MAX_VALUE;
+        return maxBytes > 0 ? Math.min(fileLimit, maxBytes - bytes) : fileLimit;
+    }
+
+    /**
+     * @return the room a file of unknown size holds back while it is written
+     */
+    private static long reservationOf(final long allowance) {
+        return Math.min(allowance, UNKNOWN_SIZE_RESERVATION);
+    }
+
+    private void unreserve(final long allowance) {
+        if (maxBytes > 0) {
+            reserved -= reservationOf(allowance);
+            notifyAll();
+        }
+    }
+
+    private boolean exceedsBytes(final long size) {
+        if (maxBytes > 0 && bytes + Math.max(0, size) > maxBytes) {
+            stop(String.format(BYTES_LIMIT_REACHED, FileUtils.byteCountToDisplaySize(maxBytes)));
+            return true;
+        }
+        return false;
+    }
+
+    private void stop(final String reason) {
+        if (stopReason == null) {
+            stopReason = reason;
+            LOGGER.warn("Stopped staging results: {}", reason);
+            notifyAll();
+        }
+    }
+}
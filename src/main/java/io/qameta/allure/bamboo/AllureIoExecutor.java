@@ -0,0 +1,152 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs the blocking I/O of report generation (artifact downloads, history fetches) on virtual
+ * threads. The number of tasks in flight is bounded by a setting rather than by the server cores,
+ * since these tasks mostly wait on storage or network. The bound is read from the global settings
+ * whenever a task starts.
+ *
+ * <p>Tasks must not wait for other tasks of this executor, or they may hold every permit while
+ * waiting for a task that never gets one.
+ */
+public class AllureIoExecutor {
+
+    static final int DEFAULT_MAX_IO_CONCURRENCY = 32;
+
+    private final AllureSettingsManager settingsManager;
+    private final ResizableSemaphore inFlight = new ResizableSemaphore(false);
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("allure-io-", 0).factory()
+    );
+
+    public AllureIoExecutor(final AllureSettingsManager settingsManager) {
+        this.settingsManager = settingsManager;
+    }
+
+    /**
+     * Starts the given task on a virtual thread once an I/O permit is free.
+     */
+    <T> Future<T> submit(final IoTask<T> task) {
+        return executor.submit(() -> {
+            inFlight.resize(permitsFor(settingsManager.getSettings()));
+            inFlight.acquire();
+            try {
+                return task.call();
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    /**
+     * Starts a task that coordinates other I/O tasks. It runs on its own virtual thread without
+     * taking a permit, so it may wait for the tasks it submits.
+     */
+    <T> Future<T> fork(final IoTask<T> task) {
+        return executor.submit(task::call);
+    }
+
+    /**
+     * Runs all tasks concurrently and returns their results in the order of the tasks. The first
+     * failure cancels the tasks still running and is rethrown.
+     */
+    <T> List<T> invokeAll(final List<? extends IoTask<T>> tasks) throws IOException {
+        final List<Future<T>> futures = new ArrayList<>(tasks.size());
+        tasks.forEach(task -> futures.add(submit(task)));
+        return await(futures);
+    }
+
+    /**
+     * Runs the tasks concurrently, at most {@code parallelism} of them at a time, and returns their
+     * results in the order of the tasks. Like {@link #fork(IoTask)} they take no permit, so they may
+     * themselves wait for tasks of this executor. The first failure cancels the others and is rethrown.
+     */
+    <T> List<T> invokeAll(final List<? extends IoTask<T>> tasks,
+                          final int parallelism) throws IOException {
+        final Semaphore slots = new Semaphore(Math.max(1, parallelism));
+        final List<Future<T>> futures = new ArrayList<>(tasks.size());
+        tasks.forEach(task -> futures.add(executor.submit(() -> {
+            slots.acquire();
+            try {
+                return task.call();
+            } finally {
+                slots.release();
+            }
+        })));
+        return await(futures);
+    }
+
+    private static <T> List<T> await(final List<Future<T>> futures) throws IOException {
+        final List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (final Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for I/O tasks", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return results;
+    }
+
+    static int permitsFor(final AllureGlobalConfig config) {
+        final int configured = config.getMaxIoConcurrency();
+        return configured > 0 ? configured : DEFAULT_MAX_IO_CONCURRENCY;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static IOException unwrap(final ExecutionException e) {
+        final Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof UncheckedIOException) {
+            return ((UncheckedIOException) cause).getCause();
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        return new IOException(cause);
+    }
+
+    /**
+     * Blocking I/O that may fail with an {@link IOException}.
+     */
+    @FunctionalInterface
+    interface IoTask<T> {
+
+        T call() throws IOException;
+    }
+}
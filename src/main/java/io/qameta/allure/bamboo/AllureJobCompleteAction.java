@@ -0,0 +1,65 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import com.atlassian.bamboo.chains.StageExecution;
+import com.atlassian.bamboo.chains.plugins.PostJobAction;
+import com.atlassian.bamboo.plan.cache.ImmutableChain;
+import com.atlassian.bamboo.plan.cache.ImmutableJob;
+import com.atlassian.bamboo.resultsummary.BuildResultsSummary;
+import com.atlassian.bamboo.v2.build.BaseConfigurablePlugin;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Hands the results of every finished job to the {@link AllureResultsPrestager}, so they are
+ * already local when the chain completes and its report is generated.
+ */
+public class AllureJobCompleteAction extends BaseConfigurablePlugin implements PostJobAction {
+
+    private final AllureSettingsManager settingsManager;
+    private final AllureResultsPrestager prestager;
+
+    public AllureJobCompleteAction(final AllureSettingsManager settingsManager,
+                                   final AllureResultsPrestager prestager) {
+        this.settingsManager = settingsManager;
+        this.prestager = prestager;
+    }
+
+    @Override
+    public void execute(final @NotNull StageExecution stageExecution,
+                        final @NotNull ImmutableJob job,
+                        final @NotNull BuildResultsSummary buildResultsSummary) {
+
+        final ImmutableChain chain = job.getParent();
+        final AllureGlobalConfig globalConfig = settingsManager.getSettings();
+        final AllureBuildConfig buildConfig = AllureBuildConfig
+                .fromContext(chain.getBuildDefinition().getCustomConfiguration());
+        // A passed job of a plan reporting failures only may end up in no report at all, and on
+        // demand reports may never be opened: their results are left to the chain.
+        if (!buildConfig.isEnabledWith(globalConfig)
+                || buildConfig.isOnlyForFailed() && !buildResultsSummary.isFailed()
+                || buildConfig.isGenerateOnDemand()) {
+            return;
+        }
+        prestager.stageAsync(
+                AllureReportJournal.workspaceOf(globalConfig, chain.getPlanKey().getKey(), buildResultsSummary.getBuildNumber()),
+                buildResultsSummary,
+                buildConfig.getArtifactName(),
+                buildConfig.getResultsFilter(),
+                globalConfig
+        );
+    }
+}
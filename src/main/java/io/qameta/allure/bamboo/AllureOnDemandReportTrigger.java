@@ -0,0 +1,121 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import com.atlassian.bamboo.chains.ChainResultsSummary;
+import com.atlassian.bamboo.plan.PlanResultKey;
+import com.atlassian.bamboo.plan.cache.CachedPlanManager;
+import com.atlassian.bamboo.plan.cache.ImmutableChain;
+import com.atlassian.bamboo.resultsummary.ResultsSummaryManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.qameta.allure.bamboo.AllureBuildResult.fromCustomData;
+import static io.qameta.allure.bamboo.AllureBuildResult.withReportStatus;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_ARTIFACT_NAME;
+
+/**
+ * Queues the report of a build outside of the post-chain action: once somebody opens a report that
+ * was not generated with its build, either because the plan generates reports on demand or because
+ * the build was superseded, and on start for reports interrupted by a shutdown.
+ */
+public class AllureOnDemandReportTrigger {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AllureOnDemandReportTrigger.class);
+
+    private final CachedPlanManager planManager;
+    private final ResultsSummaryManager resultsSummaryManager;
+    private final AllureSettingsManager settingsManager;
+    private final AllureReportQueue reportQueue;
+    private final Set<String> starting = ConcurrentHashMap.newKeySet();
+
+    public AllureOnDemandReportTrigger(final CachedPlanManager planManager,
+                                       final ResultsSummaryManager resultsSummaryManager,
+                                       final AllureSettingsManager settingsManager,
+                                       final AllureReportQueue reportQueue) {
+        this.planManager = planManager;
+        this.resultsSummaryManager = resultsSummaryManager;
+        this.settingsManager = settingsManager;
+        this.reportQueue = reportQueue;
+    }
+
+    /**
+     * Queues the report of the given build unless it has been queued already.
+     *
+     * @return false if the build or its plan no longer exists.
+     */
+    boolean start(final PlanResultKey planResultKey) {
+        return queue(planResultKey, true, true);
+    }
+
+    /**
+     * Queues the report of a build whose generation was interrupted by a shutdown, whatever state
+     * was last recorded for it.
+     *
+     * @return false if the build or its plan no longer exists.
+     */
+    boolean resume(final PlanResultKey planResultKey,
+                   final boolean onDemand) {
+        return queue(planResultKey, onDemand, false);
+    }
+
+    private boolean queue(final PlanResultKey planResultKey,
+                          final boolean onDemand,
+                          final boolean onlyIfNotGenerated) {
+        if (!starting.add(planResultKey.getKey())) {
+            // a concurrent request is queueing this very report
+            return true;
+        }
+        try {
+            final ChainResultsSummary summary = resultsSummaryManager
+                    .getResultsSummary(planResultKey, ChainResultsSummary.class);
+            final ImmutableChain chain = planManager.getPlanByKey(planResultKey.getPlanKey(), ImmutableChain.class);
+            if (summary == null || chain == null) {
+                LOGGER.warn("Cannot generate Allure Report, {} no longer exists", planResultKey);
+                return false;
+            }
+            final AllureBuildResult recorded = fromCustomData(summary.getCustomBuildData());
+            if (onlyIfNotGenerated && !recorded.getStatus().isGeneratedOnView()) {
+                return true;
+            }
+            final Map<String, String> context = new HashMap<>(chain.getBuildDefinition().getCustomConfiguration());
+            if (recorded.getResultsArtifactName() != null) {
+                context.put(ALLURE_CONFIG_ARTIFACT_NAME, recorded.getResultsArtifactName());
+            }
+            // Persist the pending state before queueing, so later requests do not queue the report again.
+            withReportStatus(AllureReportStatus.PENDING)
+                    .withResultsArtifactName(recorded.getResultsArtifactName())
+                    .dumpToCustomData(summary.getCustomBuildData());
+            resultsSummaryManager.saveResultsSummary(summary);
+            reportQueue.submit(new AllureReportJob(
+                    chain,
+                    summary,
+                    AllureBuildConfig.fromContext(context),
+                    settingsManager.getSettings(),
+                    onDemand
+            ));
+            LOGGER.info("Allure Report for {} has been queued outside of its build", planResultKey);
+            return true;
+        } finally {
+            starting.remove(planResultKey.getKey());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import java.util.Arrays;
+
+/**
+ * What staging does with a results file larger than the configured single file limit.
+ */
+enum AllureOversizeAction {
+
+    SKIP("Skip the file"),
+    STOP("Stop staging");
+
+    private final String label;
+
+    AllureOversizeAction(final String label) {
+        this.label = label;
+    }
+
+    String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return the action of the given name, {@link #SKIP} when blank or unknown.
+     */
+    static AllureOversizeAction fromName(final String name) {
+        return Arrays.stream(values())
+                .filter(action -> action.name().equalsIgnoreCase(name))
+                .findFirst()
+                .orElse(SKIP);
+    }
+}
@@ -0,0 +1,722 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import com.atlassian.bamboo.chains.ChainResultsSummary;
+import com.atlassian.bamboo.configuration.AdministrationConfiguration;
+import com.atlassian.bamboo.plan.cache.ImmutableChain;
+import com.atlassian.bamboo.resultsummary.ResultsSummary;
+import com.atlassian.bamboo.resultsummary.ResultsSummaryManager;
+import com.atlassian.spring.container.ContainerManager;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.qameta.allure.bamboo.info.AddExecutorInfo;
+import io.qameta.allure.bamboo.info.allurewidgets.summary.Summary;
+import io.qameta.allure.bamboo.util.FileStringReplacer;
+import io.qameta.allure.bamboo.util.ZipUtil;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.TeeInputStream;
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static io.qameta.allure.bamboo.AllureBuildResult.allureBuildResult;
+import static io.qameta.allure.bamboo.AllureBuildResult.withReportStatus;
+import static io.qameta.allure.bamboo.AllureHistoryStore.HISTORY_FILES;
+import static io.qameta.allure.bamboo.AllureHistoryStore.HISTORY_JSON;
+import static io.qameta.allure.bamboo.AllureReportTimings.sizeOf;
+import static io.qameta.allure.bamboo.util.ExceptionUtil.stackTraceToString;
+import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Runs the download, generate, zip and upload pipeline of a single {@link AllureReportJob}.
+ */
+@SuppressWarnings("ConstantConditions")
+public class AllureReportGenerator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AllureReportGenerator.class);
+    private static final String HISTORY = "history";
+    private static final String ARTIFACTS_DIR = "artifacts";
+    private static final String REPORT_DIR = "report";
+    private static final String OVERLAY_DIR = "overlay";
+    private static final String PUBLISHED_HISTORY_DIR = "published-history";
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final AllureExecutableProvider allureExecutable;
+    private final AllureArtifactsManager artifactsManager;
+    private final BambooExecutablesManager executablesManager;
+    private final ResultsSummaryManager resultsSummaryManager;
+    private final AllureIoExecutor ioExecutor;
+    private final AllureResultsPrestager prestager;
+    private final AllureScratchSpace scratchSpace;
+    private final AllureHistoryIndex historyIndex = new AllureHistoryIndex();
+    private final AllureHistoryStore historyStore = new AllureHistoryStore();
+    private final AllureHistoryCompactor historyCompactor = new AllureHistoryCompactor();
+    private AdministrationConfiguration adminConfiguration;
+
+    public AllureReportGenerator(final AllureExecutableProvider allureExecutable,
+                                 final AllureArtifactsManager artifactsManager,
+                                 final BambooExecutablesManager executablesManager,
+                                 final ResultsSummaryManager resultsSummaryManager,
+                                 final AllureIoExecutor ioExecutor,
+                                 final AllureResultsPrestager prestager) {
+        this(allureExecutable, artifactsManager, executablesManager, resultsSummaryManager, ioExecutor, prestager, null);
+    }
+
+    AllureReportGenerator(final AllureExecutableProvider allureExecutable,
+                          final AllureArtifactsManager artifactsManager,
+                          final BambooExecutablesManager executablesManager,
+                          final ResultsSummaryManager resultsSummaryManager,
+                          final AllureIoExecutor ioExecutor,
+                          final AllureResultsPrestager prestager,
+                          final AdministrationConfiguration adminConfiguration) {
+        this.allureExecutable = allureExecutable;
+        this.artifactsManager = artifactsManager;
+        this.executablesManager = executablesManager;
+        this.resultsSummaryManager = resultsSummaryManager;
+        this.ioExecutor = ioExecutor;
+        this.prestager = prestager;
+        this.scratchSpace = prestager.getScratchSpace();
+        this.adminConfiguration = adminConfiguration;
+    }
+
+    /**
+     * Builds the report of the given job and records the outcome into the given custom build data.
+     * The job works in its own workspace under the local storage path. Progress is recorded in an
+     * {@link AllureReportJournal} there, so a job interrupted by a shutdown resumes from the last
+     * completed stage when it is submitted again.
+     */
+    void generate(final @NotNull AllureReportJob job,
+                  final @NotNull Map<String, String> customBuildData) {
+        final Path workspace = AllureReportJournal
+                .workspaceOf(job.getGlobalConfig(), job.getPlanKey(), job.getBuildNumber());
+        final AllureReportJournal journal;
+        try {
+            journal = openJournal(workspace, job);
+        } catch (Exception e) {
+            LOGGER.error("Failed to prepare the workspace to build report.", e);
+            allureBuildResult(false, stackTraceToString(e)).dumpToCustomData(customBuildData);
+            FileUtils.deleteQuietly(workspace.toFile());
+            return;
+        }
+
+        buildReport(workspace, journal, job, customBuildData);
+
+        if (Thread.currentThread().isInterrupted()) {
+            // Shutting down: keep the workspace and the journal, the job is resumed on the next start.
+            LOGGER.info("Allure Report for {} was interrupted, it will be resumed on the next start", job);
+            customBuildData.clear();
+            withReportStatus(AllureReportStatus.PENDING).dumpToCustomData(customBuildData);
+        } else {
+            FileUtils.deleteQuietly(workspace.toFile());
+        }
+    }
+
+    /**
+     * Removes the workspace of a job that is never going to run, along with the results staged
+     * for it and its journal, so it is not resumed on start.
+     */
+    void discard(final @NotNull AllureReportJob job) {
+        final Path workspace = AllureReportJournal
+                .workspaceOf(job.getGlobalConfig(), job.getPlanKey(), job.getBuildNumber());
+        prestager.discard(workspace);
+        FileUtils.deleteQuietly(workspace.toFile());
+    }
+
+    /**
+     * Reuses the journal left by an interrupted run when its downloaded results are intact, and
+     * otherwise starts over in a clean workspace. Results staged by the jobs are kept either way.
+     */
+    private AllureReportJournal openJournal(final Path workspace,
+                                           final AllureReportJob job) throws IOException {
+        final Optional<AllureReportJournal> previous = AllureReportJournal.read(workspace)
+                .filter(journal -> journal.isCompleted(AllureReportStage.DOWNLOAD))
+                .filter(journal -> hasIntactResults(workspace, journal));
+        if (previous.isPresent()) {
+            LOGGER.info("Resuming Allure Report for {} after stages {}", job, previous.get().getCompletedStages());
+            return previous.get();
+        }
+        cleanWorkspace(workspace);
+        Files.createDirectories(workspace.resolve(ARTIFACTS_DIR));
+        Files.createDirectories(workspace.resolve(REPORT_DIR));
+        final AllureReportJournal journal = new AllureReportJournal(job);
+        journal.write(workspace);
+        return journal;
+    }
+
+    private static void cleanWorkspace(final Path workspace) throws IOException {
+        if (!Files.isDirectory(workspace)) {
+            return;
+        }
+        try (Stream<Path> entries = Files.list(workspace)) {
+            entries.filter(entry -> !entry.endsWith(AllureResultsPrestager.PRESTAGED_DIR))
+                    .forEach(entry -> FileUtils.deleteQuietly(entry.toFile()));
+        }
+    }
+
+    private static boolean hasIntactResults(final Path workspace,
+                                            final AllureReportJournal journal) {
+        final Path artifactsDir = workspace.resolve(ARTIFACTS_DIR);
+        return Files.isDirectory(workspace.resolve(REPORT_DIR))
+                && journal.getArtifactsPaths().stream().allMatch(path -> Files.isDirectory(artifactsDir.resolve(path)))
+                && sizeOf(artifactsDir) >= journal.getDownloadedBytes();
+    }
+
+    private void buildReport(final Path workspace,
+                             final AllureReportJournal journal,
+                             final AllureReportJob job,
+                             final Map<String, String> customBuildData) {
+
+        final ImmutableChain chain = job.getChain();
+        final ChainResultsSummary chainResultsSummary = job.getChainResultsSummary();
+        final AllureBuildConfig buildConfig = job.getBuildConfig();
+        final AllureGlobalConfig globalConfig = job.getGlobalConfig();
+        final AllureReportTimings timings = new AllureReportTimings();
+        final Path artifactsTempDir = workspace.resolve(ARTIFACTS_DIR);
+        final Path allureReportDir = workspace.resolve(REPORT_DIR);
+        final Path overlayDir = workspace.resolve(OVERLAY_DIR);
+        final Path historyDir = overlayDir.resolve(HISTORY);
+        Future<Long> historyFetch = null;
+        AllureScratchSpace.Reservation reservation = null;
+        try {
+            final String executable = Optional.ofNullable(buildConfig.getExecutable())
+                    .orElse(
+                            executablesManager.getDefaultAllureExecutable()
+                                    .orElseThrow(
+                                            () -> new RuntimeException(
+                                                    "Could not find default Allure executable!"
+                                                            + " Please configure plugin properly!"
+                                            )
+                                    )
+                    );
+
+            LOGGER.info("Allure Report is enabled for {}", chain.getName());
+            LOGGER.info("Trying to get executable by name {} for {}", executable, chain.getName());
+
+            AllureExecutable allure = allureExecutable.provide(globalConfig, executable)
+                    .orElseThrow(() -> new RuntimeException("Failed to find Allure executable by name " + executable));
+
+            // Creating a copy for customize report
+            final Path copyPath = Files.createTempDirectory(workspace, "tmp_cmd");
+            if (globalConfig.isCustomLogoEnabled()) {
+                allure = allure.getTempCopy(copyPath);
+            }
+
+            if (!journal.isCompleted(AllureReportStage.HISTORY)) {
+                historyFetch = fetchHistory(historyDir, globalConfig, chain.getPlanKey().getKey(), job.getBuildNumber(), timings);
+            }
+            final Collection<Path> artifactsPaths;
+            if (journal.isCompleted(AllureReportStage.DOWNLOAD)) {
+                reservation = scratchSpace.reserve(workspace, journal.getDownloadedBytes(), journal.getDownloadedBytes(), job);
+                artifactsPaths = journal.getArtifactsPaths().stream().map(artifactsTempDir::resolve).collect(toList());
+            } else {
+                LOGGER.info("Starting artifacts downloading into {} for {}", artifactsTempDir, chain.getName());
+                timings.start(AllureReportStage.DOWNLOAD);
+                final AllureIngestionBudget budget = AllureIngestionBudget.of(globalConfig);
+                final Map<String, List<Path>> stagedJobs = prestager.adopt(workspace, artifactsTempDir, budget);
+                final long stagedBytes = sizeOf(artifactsTempDir);
+                reservation = scratchSpace.reserve(
+                        workspace, stagedBytes + expectedDownloadSize(job, stagedJobs.keySet()), stagedBytes, job
+                );
+                artifactsPaths = artifactsManager.downloadAllArtifactsTo(
+                        chainResultsSummary, artifactsTempDir.toFile(), buildConfig.getArtifactName(), stagedJobs,
+                        buildConfig.getResultsFilter(), budget
+                );
+                if (budget.isPartial()) {
+                    LOGGER.warn("Generating a partial report for {}: {}", chain.getName(), budget.getPartialDetails());
+                }
+                journal.setPartialDetails(budget.getPartialDetails());
+                timings.finish(AllureReportStage.DOWNLOAD, sizeOf(artifactsTempDir));
+                // Results read in place are not ours to replace with links.
+                timings.start(AllureReportStage.DEDUPE);
+                final AllureAttachmentDedupe dedupe = AllureAttachmentDedupe.deduplicate(
+                        ioExecutor, artifactsPaths.stream().filter(path -> path.startsWith(artifactsTempDir)).collect(toList())
+                );
+                timings.finish(AllureReportStage.DEDUPE, dedupe.getSavedBytes());
+                dedupe.dumpToCustomData(customBuildData);
+                journal.setArtifactsPaths(
+                        artifactsPaths.stream()
+                                .map(path -> path.startsWith(artifactsTempDir) ? artifactsTempDir.relativize(path) : path)
+                                .map(Path::toString)
+                                .collect(toList())
+                );
+                journal.setDownloadedBytes(sizeOf(artifactsTempDir));
+                journal.complete(AllureReportStage.DOWNLOAD, workspace);
+            }
+            if (artifactsPaths.isEmpty()) {
+                allureBuildResult(false, "Build result does not have any uploaded artifacts!")
+                        .dumpToCustomData(customBuildData);
+            } else {
+                LOGGER.info("Starting allure generate into {} for {}", allureReportDir, chain.getName());
+                if (!journal.isCompleted(AllureReportStage.HISTORY)) {
+                    prepareResults(overlayDir, chain, job.getBuildNumber(), historyFetch);
+                    journal.complete(AllureReportStage.HISTORY, workspace);
+                }
+
+                if (!journal.isCompleted(AllureReportStage.GENERATE)) {
+                    // Setting the new logo in the allure libraries before generate the report.
+                    if (globalConfig.isCustomLogoEnabled()) {
+                        allure.setCustomLogo(buildConfig.getCustomLogoUrl());
+                    }
+                    // A generation interrupted half-way leaves a partial report behind.
+                    FileUtils.cleanDirectory(allureReportDir.toFile());
+                    timings.start(AllureReportStage.GENERATE);
+                    final List<Path> resultsPaths = new ArrayList<>(artifactsPaths);
+                    if (Files.isDirectory(overlayDir)) {
+                        resultsPaths.add(overlayDir);
+                    }
+                    allure.generate(resultsPaths, allureReportDir);
+                    timings.finish(AllureReportStage.GENERATE, sizeOf(allureReportDir));
+                    journal.complete(AllureReportStage.GENERATE, workspace);
+                }
+                if (!journal.isCompleted(AllureReportStage.FINALIZE)) {
+                    // Setting report name
+                    timings.start(AllureReportStage.FINALIZE);
+                    this.finalizeReport(allureReportDir, job.getBuildNumber(), chain.getBuildName());
+                    timings.finish(AllureReportStage.FINALIZE, 0);
+                    journal.complete(AllureReportStage.FINALIZE, workspace);
+                }
+
+                // Create an exportable zip with the report
+                final Path reportZip = allureReportDir.resolve("report.zip");
+                if (!journal.isCompleted(AllureReportStage.ZIP)) {
+                    Files.deleteIfExists(reportZip);
+                    timings.start(AllureReportStage.ZIP);
+                    ZipUtil.zipReportFolder(allureReportDir, reportZip, workspace);
+                    timings.finish(AllureReportStage.ZIP, sizeOf(reportZip));
+                    journal.complete(AllureReportStage.ZIP, workspace);
+                }
+
+                // The upload is not journaled: its result is needed to publish the report, so it
+                // always runs, and running it again just replaces the stored report.
+                LOGGER.info("Allure has been generated successfully for {}", chain.getName());
+                // The report directory may be moved away by the upload.
+                final Path publishedHistory = workspace.resolve(PUBLISHED_HISTORY_DIR);
+                final boolean withHistory = hasValidHistory(allureReportDir);
+                if (withHistory) {
+                    FileUtils.deleteQuietly(publishedHistory.toFile());
+                    FileUtils.copyDirectory(allureReportDir.resolve(HISTORY).toFile(), publishedHistory.toFile());
+                }
+                final long reportBytes = sizeOf(allureReportDir);
+                timings.start(AllureReportStage.UPLOAD);
+                final Optional<AllureBuildResult> uploaded = artifactsManager
+                        .uploadReportArtifacts(chain, chainResultsSummary, allureReportDir.toFile());
+                uploaded.map(result -> result.withPartialDetails(journal.getPartialDetails()))
+                        .orElseGet(() -> allureBuildResult(false, "Failed to upload the report"))
+                        .dumpToCustomData(customBuildData);
+                timings.finish(AllureReportStage.UPLOAD, reportBytes);
+                if (withHistory && uploaded.map(AllureBuildResult::isSuccess).orElse(false)) {
+                    recordHistory(globalConfig, chain.getPlanKey().getKey(), job.getBuildNumber(), publishedHistory);
+                }
+            }
+            FileUtils.deleteQuietly(copyPath.toFile());
+            if (globalConfig.isEnabledReportsCleanup()
+                    && buildConfig.getMaxStoredReportsCount() != null
+                    && buildConfig.getMaxStoredReportsCount() > 0) {
+                artifactsManager.cleanupOldReportArtifacts(chain, buildConfig.getMaxStoredReportsCount());
+            }
+        } catch (Exception e) {
+            LOGGER.error("Failed to build allure report for {}", chain.getName(), e);
+            allureBuildResult(false, stackTraceToString(e)).dumpToCustomData(customBuildData);
+        } finally {
+            if (historyFetch != null) {
+                historyFetch.cancel(true);
+            }
+            if (reservation != null) {
+                reservation.close();
+            }
+            timings.dumpToCustomData(customBuildData);
+            logTimings(job, timings);
+        }
+    }
+
+    /**
+     * Size of the artifacts still to download, up to the results budget.
+     */
+    private long expectedDownloadSize(final AllureReportJob job,
+                                      final Collection<String> stagedJobs) {
+        final long expected = artifactsManager.getExpectedArtifactsSize(
+                job.getChainResultsSummary(), job.getBuildConfig().getArtifactName(), stagedJobs
+        );
+        final long maxResultsBytes = job.getGlobalConfig().getMaxResultsBytes();
+        return maxResultsBytes > 0 ? Math.min(expected, maxResultsBytes) : expected;
+    }
+
+    /**
+     * Appends the stage timings to the build log. Reports generated on demand run long after the
+     * build, so their timings are only kept in the custom build data.
+     */
+    private void logTimings(final AllureReportJob job,
+                            final AllureReportTimings timings) {
+        if (job.isOnDemand()) {
+            return;
+        }
+        try {
+            timings.logTo(job.getChain().getBuildLogger());
+        } catch (Exception e) {
+            LOGGER.warn("Failed to write Allure Report timings into the build log of {}", job, e);
+        }
+    }
+
+    private void finalizeReport(final @NotNull Path allureReportDir,
+                                final int buildNumber,
+                                final String buildName)
+            throws IOException {
+
+        // Update Report Name (It is the way now)
+        final Path widgetsJsonPath = allureReportDir
+                .resolve("widgets")
+                .resolve("summary.json");
+        final ObjectMapper mapper = new JsonMapper();
+        final Summary summary = mapper.readValue(widgetsJsonPath.toFile(), Summary.class);
+        summary.setReportName(format("Build %s - %s", buildNumber, buildName));
+        mapper.writeValue(widgetsJsonPath.toFile(), summary);
+
+        // Deleting title from Logo. Allure 2.44+ bundles the UI under assets/ without app.js
+        // or the logo markup, so the legacy patch applies only when the file is present.
+        final Path appJsPath = allureReportDir.resolve("app.js");
+        if (Files.exists(appJsPath)) {
+            FileStringReplacer.replaceInFile(
+                    appJsPath,
+                    Pattern.compile(
+                            ">Allure</span>",
+                            Pattern.CASE_INSENSITIVE | Pattern.MULTILINE | Pattern.COMMENTS
+                    ),
+                    ">&nbsp;</span>"
+            );
+        }
+
+        // Changing page title
+        final Path indexHtmlPath = allureReportDir.resolve("index.html");
+        FileStringReplacer.replaceInFile(
+                indexHtmlPath,
+                Pattern.compile(
+                        "<title>.*</title>",
+                        Pattern.CASE_INSENSITIVE | Pattern.MULTILINE | Pattern.COMMENTS
+                ),
+                format("<title> Build %s - %s </title>", buildNumber, buildName)
+        );
+    }
+
+    /**
+     * Writes the files of the plugin into the overlay, a results directory of its own passed to
+     * {@code allure generate} after the staged ones. The history is fetched right into it, so it
+     * is staged once however many results directories the report has, and results read in place
+     * stay untouched.
+     */
+    private void prepareResults(final Path overlayDir,
+                                final @NotNull ImmutableChain chain,
+                                final int buildNumber,
+                                final Future<Long> historyFetch) throws IOException {
+        awaitHistory(historyFetch);
+        Files.createDirectories(overlayDir);
+        addExecutorInfo(overlayDir.toFile(), chain, buildNumber);
+    }
+
+    /**
+     * Looks up and fetches the history of the previous builds in the background. It does not
+     * depend on the results of this build, so it runs while they are being downloaded. The history
+     * is copied from the {@link AllureHistoryStore} when it holds the build, and read from the
+     * report artifact of the build otherwise. It is then compacted by the
+     * {@link AllureHistoryCompactor} when configured.
+     *
+     * @return the size of the history files found, once fetched.
+     */
+    private Future<Long> fetchHistory(final Path historyDir,
+                                      final AllureGlobalConfig globalConfig,
+                                      final String planKey,
+                                      final int buildNumber,
+                                      final AllureReportTimings timings) {
+        return ioExecutor.fork(() -> {
+            timings.start(AllureReportStage.HISTORY);
+            FileUtils.deleteQuietly(historyDir.toFile());
+            final Optional<Integer> previous = getLastBuildNumberWithHistory(globalConfig, planKey, buildNumber, historyDir);
+            if (previous.isPresent() && !historyStore.copyTo(globalConfig, planKey, previous.get(), historyDir)) {
+                copyHistoryFiles(planKey, historyDir, previous.get());
+            }
+            if (globalConfig.isHistoryCompactionEnabled() && Files.isDirectory(historyDir)) {
+                compactHistory(globalConfig, historyDir, planKey, buildNumber);
+            }
+            final long historyBytes = sizeOf(historyDir);
+            timings.finish(AllureReportStage.HISTORY, historyBytes);
+            return historyBytes;
+        });
+    }
+
+    /**
+     * Compacts the fetched history. The report is still generated with the history as fetched if
+     * it fails.
+     */
+    private void compactHistory(final AllureGlobalConfig globalConfig,
+                                final Path historyDir,
+                                final String planKey,
+                                final int buildNumber) {
+        try {
+            historyCompactor.compact(globalConfig, historyDir, buildNumber);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to compact the history for {}-{}", planKey, buildNumber, e);
+        }
+    }
+
+    /**
+     * Waits for the history fetch. The report is still generated without history if it failed.
+     */
+    private static void awaitHistory(final Future<Long> historyFetch) throws InterruptedIOException {
+        try {
+            historyFetch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while fetching history");
+        } catch (ExecutionException e) {
+            LOGGER.error("Failed to fetch history", e.getCause());
+        }
+    }
+
+    /**
+     * Fetches the history files concurrently, each of them is a separate request to the artifact
+     * storage. A history.json already fetched while looking the build up is not fetched again.
+     */
+    private void copyHistoryFiles(final String planKey,
+                                  final Path historyDir,
+                                  final Integer buildNumber) {
+        final boolean historyJsonFetched = Files.isRegularFile(historyDir.resolve(HISTORY_JSON));
+        final List<AllureIoExecutor.IoTask<Void>> fetches = HISTORY_FILES.stream()
+                .filter(historyFile -> !(historyJsonFetched && HISTORY_JSON.equals(historyFile)))
+                .map(historyFile -> (AllureIoExecutor.IoTask<Void>) () -> {
+                    if (HISTORY_JSON.equals(historyFile)) {
+                        fetchHistoryJson(historyDir, planKey, buildNumber);
+                    } else {
+                        copyArtifactToHistoryFolder(historyDir, historyFile, planKey, buildNumber);
+                    }
+                    return null;
+                })
+                .collect(toList());
+        try {
+            ioExecutor.invokeAll(fetches);
+        } catch (IOException e) {
+            LOGGER.error("Could not copy history files of {}-{}", planKey, buildNumber, e);
+        }
+    }
+
+    /**
+     * Looks the previous build with history up in the {@link AllureHistoryIndex} of the plan, and
+     * walks back the builds one by one only when the index knows no earlier build. An indexed build
+     * is used only if the {@link AllureHistoryStore} holds its history or its history.json can be
+     * fetched, otherwise it is dropped from the index. Fetching leaves the history.json of the
+     * build found in the history directory.
+     */
+    private Optional<Integer> getLastBuildNumberWithHistory(final AllureGlobalConfig globalConfig,
+                                                            final String planKey,
+                                                            final int buildNumber,
+                                                            final Path historyDir) {
+        final Optional<NavigableSet<Integer>> indexed = historyIndex.read(globalConfig, planKey);
+        if (indexed.isPresent()) {
+            for (final Integer build : indexed.get().headSet(buildNumber, false).descendingSet()) {
+                if (historyStore.contains(globalConfig, planKey, build) || fetchHistoryJson(historyDir, planKey, build)) {
+                    return Optional.of(build);
+                }
+                dropFromIndex(globalConfig, planKey, build);
+            }
+        }
+        int currentBuild = buildNumber;
+        do {
+            final ResultsSummary lastBuild = resultsSummaryManager.findLastBuildResultBefore(planKey, currentBuild);
+            if (Objects.isNull(lastBuild)) {
+                return Optional.empty();
+            }
+            currentBuild = lastBuild.getBuildNumber();
+        } while (!fetchHistoryJson(historyDir, planKey, currentBuild));
+        return Optional.of(currentBuild);
+    }
+
+    /**
+     * Forgets an indexed build whose history is no longer stored.
+     */
+    private void dropFromIndex(final AllureGlobalConfig globalConfig,
+                               final String planKey,
+                               final int buildNumber) {
+        LOGGER.warn("The history of {}-{} is gone, dropping it from the history index", planKey, buildNumber);
+        try {
+            historyIndex.remove(globalConfig, planKey, buildNumber);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to update the history index of {}", planKey, e);
+        }
+    }
+
+    /**
+     * Downloads the history.json of the given build into the history directory, checking that it
+     * parses on the way. The file is streamed through a parser as it is written, so it is read once
+     * and never held in memory.
+     *
+     * @return false, leaving no file behind, if the build has no valid history
+     */
+    private boolean fetchHistoryJson(final Path historyDir,
+                                     final String planKey,
+                                     final int buildId) {
+        final Path historyJson = historyDir.resolve(HISTORY_JSON);
+        try (InputStream in = artifactsManager
+                .getArtifactInputStream(planKey, String.valueOf(buildId), historyArtifactPath(HISTORY_JSON))
+                .orElse(null)) {
+            if (in == null) {
+                return false;
+            }
+            Files.createDirectories(historyDir);
+            try (OutputStream out = Files.newOutputStream(historyJson);
+                 JsonParser parser = JSON_FACTORY.createParser(new TeeInputStream(in, out))) {
+                if (isValidJson(parser)) {
+                    return true;
+                }
+            }
+            LOGGER.info("History artifact is empty for {}-{}", planKey, buildId);
+        } catch (Exception e) {
+            LOGGER.info("History artifact is not available or not valid for {}-{}", planKey, buildId, e);
+        }
+        FileUtils.deleteQuietly(historyJson.toFile());
+        return false;
+    }
+
+    /**
+     * Whether the generated report carries a history file that parses. The file is streamed
+     * through, so a large history is never held in memory.
+     */
+    private static boolean hasValidHistory(final Path allureReportDir) {
+        final Path historyJson = allureReportDir.resolve(HISTORY).resolve(HISTORY_JSON);
+        if (!Files.isRegularFile(historyJson)) {
+            return false;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(historyJson.toFile())) {
+            return isValidJson(parser);
+        } catch (IOException e) {
+            LOGGER.info("Generated history {} is not valid", historyJson, e);
+            return false;
+        }
+    }
+
+    /**
+     * Reads the parser to the end of its input without building any object tree.
+     *
+     * @return false if the input holds no JSON value at all
+     * @throws IOException if the input is not valid JSON
+     */
+    private static boolean isValidJson(final JsonParser parser) throws IOException {
+        if (parser.nextToken() == null) {
+            return false;
+        }
+        do {
+            parser.skipChildren();
+        } while (parser.nextToken() != null);
+        return true;
+    }
+
+    /**
+     * Keeps the published history in the {@link AllureHistoryStore} and adds the build to the
+     * {@link AllureHistoryIndex} of the plan.
+     */
+    private void recordHistory(final AllureGlobalConfig globalConfig,
+                               final String planKey,
+                               final int buildNumber,
+                               final Path publishedHistory) {
+        try {
+            historyStore.save(globalConfig, planKey, buildNumber, publishedHistory);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to store the history of {}-{}", planKey, buildNumber, e);
+        }
+        try {
+            historyIndex.record(globalConfig, planKey, buildNumber);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to record the history of {}-{} in the history index", planKey, buildNumber, e);
+        }
+    }
+
+    private void copyArtifactToHistoryFolder(final Path historyFolder,
+                                             final String fileName,
+                                             final String planKey,
+                                             final int buildId) {
+        try (InputStream inputStream = artifactsManager
+                .getArtifactInputStream(planKey, String.valueOf(buildId), historyArtifactPath(fileName))
+                .orElse(null)) {
+            if (inputStream == null) {
+                return;
+            }
+            Files.createDirectories(historyFolder);
+            Files.copy(inputStream, historyFolder.resolve(fileName), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOGGER.error("Could not copy history file {}", fileName, e);
+        }
+    }
+
+    private static String historyArtifactPath(final String fileName) {
+        return HISTORY + "/" + fileName;
+    }
+
+    private void addExecutorInfo(final @NotNull File resultsDir,
+                                 final @NotNull ImmutableChain chain,
+                                 final int buildNumber) {
+        final String rootUrl = getBambooBaseUrl();
+        final String buildName = chain.getBuildName();
+        final String buildUrl = format("%s/browse/%s-%s", rootUrl, chain.getPlanKey().getKey(), buildNumber);
+        final String reportUrl = format(
+                "%s/plugins/servlet/allure/report/%s/%s/", rootUrl,
+                chain.getPlanKey().getKey(), buildNumber
+        );
+        final AddExecutorInfo executorInfo = new AddExecutorInfo(
+                rootUrl, Integer.toString(buildNumber), buildName, buildUrl, reportUrl
+        );
+        executorInfo.invoke(resultsDir);
+    }
+
+    /**
+     * Returns the base url of bamboo server.
+     */
+    @NotNull
+    private String getBambooBaseUrl() {
+        if (this.adminConfiguration == null) {
+            // Resolved lazily: the generator is created with the plugin context, before Bamboo may expose it.
+            this.adminConfiguration = (AdministrationConfiguration) ContainerManager
+                    .getComponent("administrationConfiguration");
+        }
+        if (this.adminConfiguration != null) {
+            return StringUtils.isNoneBlank(this.adminConfiguration.getBaseUrl())
+                    ? this.adminConfiguration.getBaseUrl()
+                    : "";
+        }
+        return "";
+    }
+}
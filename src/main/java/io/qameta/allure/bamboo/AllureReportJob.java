@@ -0,0 +1,99 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import com.atlassian.bamboo.chains.ChainResultsSummary;
+import com.atlassian.bamboo.plan.PlanKeys;
+import com.atlassian.bamboo.plan.PlanResultKey;
+import com.atlassian.bamboo.plan.cache.ImmutableChain;
+
+/**
+ * Describes a single report generation queued by the post-chain action and run by
+ * {@link AllureReportQueue}.
+ */
+class AllureReportJob {
+
+    private final ImmutableChain chain;
+    private final ChainResultsSummary chainResultsSummary;
+    private final AllureBuildConfig buildConfig;
+    private final AllureGlobalConfig globalConfig;
+    private final long createdAt;
+    private final boolean onDemand;
+
+    AllureReportJob(final ImmutableChain chain,
+                    final ChainResultsSummary chainResultsSummary,
+                    final AllureBuildConfig buildConfig,
+                    final AllureGlobalConfig globalConfig) {
+        this(chain, chainResultsSummary, buildConfig, globalConfig, false);
+    }
+
+    AllureReportJob(final ImmutableChain chain,
+                    final ChainResultsSummary chainResultsSummary,
+                    final AllureBuildConfig buildConfig,
+                    final AllureGlobalConfig globalConfig,
+                    final boolean onDemand) {
+        this.chain = chain;
+        this.chainResultsSummary = chainResultsSummary;
+        this.buildConfig = buildConfig;
+        this.globalConfig = globalConfig;
+        this.createdAt = System.currentTimeMillis();
+        this.onDemand = onDemand;
+    }
+
+    ImmutableChain getChain() {
+        return chain;
+    }
+
+    ChainResultsSummary getChainResultsSummary() {
+        return chainResultsSummary;
+    }
+
+    AllureBuildConfig getBuildConfig() {
+        return buildConfig;
+    }
+
+    AllureGlobalConfig getGlobalConfig() {
+        return globalConfig;
+    }
+
+    long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Whether the job was requested by a report view rather than by the build itself.
+     */
+    boolean isOnDemand() {
+        return onDemand;
+    }
+
+    String getPlanKey() {
+        return chain.getPlanKey().getKey();
+    }
+
+    int getBuildNumber() {
+        return chainResultsSummary.getBuildNumber();
+    }
+
+    PlanResultKey getPlanResultKey() {
+        return PlanKeys.getPlanResultKey(getPlanKey(), getBuildNumber());
+    }
+
+    @Override
+    public String toString() {
+        return getPlanKey() + "-" + getBuildNumber();
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * On-disk record of how far the report of a single build has got through the pipeline. It lives
+ * next to the staged results in the job workspace, so a report interrupted by a server restart can
+ * be resumed from the last completed {@link AllureReportStage} instead of starting over.
+ */
+public class AllureReportJournal implements Serializable {
+
+    static final String FILE_NAME = "journal.json";
+    static final String WORK_SUBDIR = "allure-work";
+
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOGGER = LoggerFactory.getLogger(AllureReportJournal.class);
+    private static final ObjectMapper MAPPER = new JsonMapper();
+
+    private String planKey;
+    private int buildNumber;
+    private boolean onDemand;
+    private List<String> completedStages = new ArrayList<>();
+    private List<String> artifactsPaths = new ArrayList<>();
+    private long downloadedBytes;
+    private String partialDetails;
+
+    /**
+     * No args constructor for use in serialization.
+     */
+    public AllureReportJournal() {
+        //empty
+    }
+
+    AllureReportJournal(final AllureReportJob job) {
+        this.planKey = job.getPlanKey();
+        this.buildNumber = job.getBuildNumber();
+        this.onDemand = job.isOnDemand();
+    }
+
+    /**
+     * Directory holding the workspaces of all report jobs, under the scratch directory.
+     */
+    static Path workspaceRoot(final AllureGlobalConfig globalConfig) {
+        return globalConfig.getScratchDir().resolve(WORK_SUBDIR);
+    }
+
+    static Path workspaceOf(final AllureGlobalConfig globalConfig,
+                            final String planKey,
+                            final int buildNumber) {
+        return workspaceRoot(globalConfig).resolve(planKey).resolve(String.valueOf(buildNumber));
+    }
+
+    static Optional<AllureReportJournal> read(final Path workspace) {
+        final Path file = workspace.resolve(FILE_NAME);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(MAPPER.readValue(file.toFile(), AllureReportJournal.class));
+        } catch (IOException e) {
+            LOGGER.warn("Ignoring unreadable Allure Report journal {}", file, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Replaces the journal file atomically, so a crash never leaves a half-written journal behind.
+     */
+    void write(final Path workspace) throws IOException {
+        final Path file = workspace.resolve(FILE_NAME);
+        final Path tmp = workspace.resolve(FILE_NAME + ".tmp");
+        MAPPER.writeValue(tmp.toFile(), this);
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    void complete(final AllureReportStage stage,
+                  final Path workspace) throws IOException {
+        if (!isCompleted(stage)) {
+            completedStages.add(stage.name());
+        }
+        write(workspace);
+    }
+
+    boolean isCompleted(final AllureReportStage stage) {
+        return completedStages.contains(stage.name());
+    }
+
+    public String getPlanKey() {
+        return planKey;
+    }
+
+    public void setPlanKey(final String planKey) {
+        this.planKey = planKey;
+    }
+
+    public int getBuildNumber() {
+        return buildNumber;
+    }
+
+    public void setBuildNumber(final int buildNumber) {
+        this.buildNumber = buildNumber;
+    }
+
+    public boolean isOnDemand() {
+        return onDemand;
+    }
+
+    public void setOnDemand(final boolean onDemand) {
+        this.onDemand = onDemand;
+    }
+
+    public List<String> getCompletedStages() {
+        return completedStages;
+    }
+
+    public void setCompletedStages(final List<String> completedStages) {
+        this.completedStages = completedStages;
+    }
+
+    /**
+     * Results directories returned by the download, relative to the workspace artifacts directory.
+     */
+    public List<String> getArtifactsPaths() {
+        return artifactsPaths;
+    }
+
+    public void setArtifactsPaths(final List<String> artifactsPaths) {
+        this.artifactsPaths = artifactsPaths;
+    }
+
+    /**
+     * Size of the staged results right after the download; later stages only ever add files.
+     */
+    public long getDownloadedBytes() {
+        return downloadedBytes;
+    }
+
+    public void setDownloadedBytes(final long downloadedBytes) {
+        this.downloadedBytes = downloadedBytes;
+    }
+
+    /**
+     * What the download left out by the ingestion budget, {@code null} if all results were staged.
+     */
+    public String getPartialDetails() {
+        return partialDetails;
+    }
+
+    public void setPartialDetails(final String partialDetails) {
+        this.partialDetails = partialDetails;
+    }
+}
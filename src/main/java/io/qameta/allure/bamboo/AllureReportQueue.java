@@ -0,0 +1,322 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import com.atlassian.bamboo.resultsummary.ResultsSummary;
+import com.atlassian.bamboo.resultsummary.ResultsSummaryManager;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.qameta.allure.bamboo.AllureBuildResult.allureBuildResult;
+import static io.qameta.allure.bamboo.AllureBuildResult.withReportStatus;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_BUILD_REPORT_STATUS;
+import static io.qameta.allure.bamboo.util.ExceptionUtil.stackTraceToString;
+
+/**
+ * Plugin-owned queue of report jobs. The post-chain action only enqueues a job and returns, and a
+ * worker runs the actual generation once {@link AllureGenerationLimiter} grants it a slot, so a long
+ * {@code allure generate} never holds Bamboo's post-chain thread. For plans with coalescing enabled
+ * only the newest waiting build of the plan is generated, older ones are marked superseded.
+ *
+ * <p>Waiting jobs are not served in submission order. Each job is ranked by its submission time
+ * moved back by a head start: failed builds and reports somebody is waiting for get
+ * {@link #FAILED_HEAD_START_MILLIS}, and every level of the plan priority adds
+ * {@link #PRIORITY_HEAD_START_MILLIS}. Since the head starts are bounded, a job is never overtaken
+ * by jobs submitted more than their sum after it, however busy the queue is.
+ */
+public class AllureReportQueue {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AllureReportQueue.class);
+
+    static final long FAILED_HEAD_START_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    static final long PRIORITY_HEAD_START_MILLIS = TimeUnit.MINUTES.toMillis(2);
+
+    private static final Comparator<AllureReportJob> BY_RANK = Comparator
+            .comparingLong(AllureReportQueue::rank)
+            .thenComparingLong(AllureReportJob::getCreatedAt);
+
+    private final AllureReportGenerator generator;
+    private final ResultsSummaryManager resultsSummaryManager;
+    private final AllureGenerationLimiter limiter;
+    private final Executor workers;
+    private final Map<String, AllureReportJob> latestPendingByPlan = new ConcurrentHashMap<>();
+    private final BlockingQueue<AllureReportJob> waiting = new PriorityBlockingQueue<>(16, BY_RANK);
+    private final AtomicLong totalQueuedMillis = new AtomicLong();
+    private final AtomicLong startedJobs = new AtomicLong();
+    private final AtomicLong lastQueuedMillis = new AtomicLong();
+
+    public AllureReportQueue(final AllureReportGenerator generator,
+                             final ResultsSummaryManager resultsSummaryManager,
+                             final AllureGenerationLimiter limiter) {
+        this(generator, resultsSummaryManager, limiter, newWorkerPool(1));
+    }
+
+    AllureReportQueue(final AllureReportGenerator generator,
+                      final ResultsSummaryManager resultsSummaryManager,
+                      final AllureGenerationLimiter limiter,
+                      final Executor workers) {
+        this.generator = generator;
+        this.resultsSummaryManager = resultsSummaryManager;
+        this.limiter = limiter;
+        this.workers = workers;
+    }
+
+    /**
+     * Workers taking the tasks of submitted jobs in turn. The pool is resized to the generation
+     * slots of the {@link AllureGenerationLimiter} on every submit, so the limiter alone decides how
+     * many reports run at once. Idle workers stop, so the pool holds no threads while nothing is
+     * queued.
+     */
+    static ThreadPoolExecutor newWorkerPool(final int workers) {
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                workers, workers, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(), new WorkerThreadFactory()
+        );
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Marks the build report as pending and adds the job to the waiting jobs. Every submit starts
+     * one worker task, which generates whichever waiting job ranks first once it gets a slot.
+     * The job is journaled first, so {@link AllureReportRecovery} resumes it if the server stops
+     * before a worker gets to it.
+     */
+    void submit(final @NotNull AllureReportJob job) {
+        withReportStatus(AllureReportStatus.PENDING)
+                .dumpToCustomData(job.getChainResultsSummary().getCustomBuildData());
+        journal(job);
+        if (isCoalescing(job)) {
+            final AllureReportJob previous = latestPendingByPlan.put(job.getPlanKey(), job);
+            if (previous != null) {
+                waiting.remove(previous);
+                supersede(previous, job);
+            }
+        }
+        waiting.add(job);
+        try {
+            resizeWorkers();
+            workers.execute(this::runNext);
+            LOGGER.info("Allure Report for {} has been queued", job);
+        } catch (RejectedExecutionException e) {
+            LOGGER.error("Failed to queue Allure Report for {}", job, e);
+            waiting.remove(job);
+            generator.discard(job);
+            final Map<String, String> customBuildData = new HashMap<>();
+            allureBuildResult(false, stackTraceToString(e)).dumpToCustomData(customBuildData);
+            publish(job, customBuildData);
+        }
+    }
+
+    private void supersede(final AllureReportJob job,
+                           final AllureReportJob newer) {
+        LOGGER.info("Allure Report for {} is superseded by {}", job, newer);
+        generator.discard(job);
+        final Map<String, String> customBuildData = new HashMap<>();
+        withReportStatus(AllureReportStatus.SUPERSEDED)
+                .withResultsArtifactName(job.getBuildConfig().getArtifactName())
+                .dumpToCustomData(customBuildData);
+        publish(job, customBuildData);
+    }
+
+    /**
+     * Writes the journal of a job that has none yet. A job resumed after a restart keeps the
+     * journal of its interrupted run, which tells the generator where to pick up.
+     */
+    private static void journal(final AllureReportJob job) {
+        final Path workspace = AllureReportJournal.workspaceOf(job.getGlobalConfig(), job.getPlanKey(), job.getBuildNumber());
+        if (AllureReportJournal.read(workspace).isPresent()) {
+            return;
+        }
+        try {
+            Files.createDirectories(workspace);
+            new AllureReportJournal(job).write(workspace);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to journal Allure Report for {}, it is lost if the server stops before it runs", job, e);
+        }
+    }
+
+
+    /**
+     * Gives the pool a worker for every generation slot. The pool is grown before the core size is
+     * raised and shrunk after it is lowered, as the core size may never exceed the maximum.
+     */
+    private synchronized void resizeWorkers() {
+        if (!(workers instanceof ThreadPoolExecutor)) {
+            return;
+        }
+        final ThreadPoolExecutor pool = (ThreadPoolExecutor) workers;
+        final int size = limiter.refreshPermits();
+        if (size > pool.getMaximumPoolSize()) {
+            pool.setMaximumPoolSize(size);
+            pool.setCorePoolSize(size);
+        } else if (size < pool.getMaximumPoolSize()) {
+            pool.setCorePoolSize(size);
+            pool.setMaximumPoolSize(size);
+        }
+    }
+
+    /**
+     * Takes the job out of the pending set. Fails only when a newer build of the same plan has
+     * already superseded it, in which case the job must not be generated.
+     */
+    private boolean claim(final AllureReportJob job) {
+        return !isCoalescing(job) || latestPendingByPlan.remove(job.getPlanKey(), job);
+    }
+
+    private void runNext() {
+        try {
+            limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // Shutting down: the job keeps its journal and pending state, it is resumed on the next start.
+            final AllureReportJob job = waiting.poll();
+            if (job != null) {
+                LOGGER.info("Allure Report for {} was cancelled while waiting for a generation slot, it will be resumed on the next start", job);
+            }
+            return;
+        }
+        try {
+            // Superseded jobs leave the waiting jobs early, their tasks find nothing left to do.
+            final AllureReportJob job = waiting.poll();
+            if (job != null && claim(job)) {
+                recordQueued(job);
+                generate(job);
+            }
+        } finally {
+            limiter.release();
+        }
+    }
+
+    private void recordQueued(final AllureReportJob job) {
+        final long queued = Math.max(0, System.currentTimeMillis() - job.getCreatedAt());
+        lastQueuedMillis.set(queued);
+        totalQueuedMillis.addAndGet(queued);
+        startedJobs.incrementAndGet();
+    }
+
+    /**
+     * @return the jobs waiting for a generation slot.
+     */
+    int getWaitingJobs() {
+        return waiting.size();
+    }
+
+    /**
+     * @return how long the last job that started was queued.
+     */
+    long getLastQueuedMillis() {
+        return lastQueuedMillis.get();
+    }
+
+    long getAverageQueuedMillis() {
+        final long count = startedJobs.get();
+        return count == 0 ? 0 : totalQueuedMillis.get() / count;
+    }
+
+    /**
+     * Submission time moved back by the head starts of the job, lower ranks are generated first.
+     */
+    static long rank(final AllureReportJob job) {
+        long headStart = job.getBuildConfig().getPriority() * PRIORITY_HEAD_START_MILLIS;
+        if (job.isOnDemand() || job.getChainResultsSummary().isFailed()) {
+            headStart += FAILED_HEAD_START_MILLIS;
+        }
+        return job.getCreatedAt() - headStart;
+    }
+
+    /**
+     * Reports somebody explicitly asked for are never superseded, nor do they supersede others.
+     */
+    private static boolean isCoalescing(final AllureReportJob job) {
+        return job.getBuildConfig().isCoalesceBuilds() && !job.isOnDemand();
+    }
+
+    private void generate(final AllureReportJob job) {
+        final Map<String, String> inProgress = new HashMap<>();
+        withReportStatus(AllureReportStatus.IN_PROGRESS).dumpToCustomData(inProgress);
+        publish(job, inProgress);
+
+        final Map<String, String> customBuildData = new HashMap<>();
+        try {
+            generator.generate(job, customBuildData);
+        } catch (Exception e) {
+            LOGGER.error("Unexpected failure while building Allure Report for {}", job, e);
+            allureBuildResult(false, stackTraceToString(e)).dumpToCustomData(customBuildData);
+        }
+        publish(job, customBuildData);
+    }
+
+    /**
+     * Writes the given custom data both into the summary the job was created with and into the
+     * persisted result, since the worker may finish before or after Bamboo saves the chain result.
+     * Data without a report status finishes the report, so it is never left in progress.
+     */
+    private void publish(final AllureReportJob job,
+                         final Map<String, String> customBuildData) {
+        customBuildData.putIfAbsent(ALLURE_BUILD_REPORT_STATUS, AllureReportStatus.FINISHED.name());
+        job.getChainResultsSummary().getCustomBuildData().putAll(customBuildData);
+        try {
+            final ResultsSummary stored = resultsSummaryManager.getResultsSummary(job.getPlanResultKey());
+            if (stored != null) {
+                stored.getCustomBuildData().putAll(customBuildData);
+                resultsSummaryManager.saveResultsSummary(stored);
+            }
+        } catch (Exception e) {
+            LOGGER.error("Failed to store Allure Report state for {}", job, e);
+        }
+    }
+
+    /**
+     * Stops accepting jobs when the plugin is disabled; running generations are interrupted.
+     */
+    public void shutdown() {
+        if (workers instanceof ExecutorService) {
+            ((ExecutorService) workers).shutdownNow();
+        }
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final @NotNull Runnable runnable) {
+            final Thread thread = new Thread(runnable, "allure-report-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import com.atlassian.sal.api.lifecycle.LifecycleAware;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static com.atlassian.bamboo.plan.PlanKeys.getPlanResultKey;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Resumes the report jobs that were interrupted by a server restart. Every workspace still holding
+ * an {@link AllureReportJournal} on start belongs to such a job, whether it was being generated or
+ * still waiting in the queue; it is queued again and the generator picks up from the journal.
+ * Workspaces of builds that no longer exist are removed.
+ */
+public class AllureReportRecovery implements LifecycleAware {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AllureReportRecovery.class);
+
+    private final AllureSettingsManager settingsManager;
+    private final AllureOnDemandReportTrigger reportTrigger;
+
+    public AllureReportRecovery(final AllureSettingsManager settingsManager,
+                                final AllureOnDemandReportTrigger reportTrigger) {
+        this.settingsManager = settingsManager;
+        this.reportTrigger = reportTrigger;
+    }
+
+    @Override
+    public void onStart() {
+        final Path root = AllureReportJournal.workspaceRoot(settingsManager.getSettings());
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        for (final Path workspace : findWorkspaces(root)) {
+            final Optional<AllureReportJournal> journal = AllureReportJournal.read(workspace);
+            final boolean keep = journal
+                    .map(record -> resume(workspace, record))
+                    .orElse(false);
+            if (!keep) {
+                LOGGER.info("Removing abandoned Allure Report workspace {}", workspace);
+                FileUtils.deleteQuietly(workspace.toFile());
+            }
+        }
+    }
+
+    @Override
+    public void onStop() {
+        // interrupted jobs keep their workspaces and are resumed by onStart
+    }
+
+    /**
+     * @return whether the workspace is still needed.
+     */
+    private boolean resume(final Path workspace,
+                           final AllureReportJournal journal) {
+        try {
+            LOGGER.info("Resuming interrupted Allure Report in {}", workspace);
+            return reportTrigger.resume(
+                    getPlanResultKey(journal.getPlanKey(), journal.getBuildNumber()),
+                    journal.isOnDemand()
+            );
+        } catch (Exception e) {
+            // keep the staged results, the next start tries again
+            LOGGER.error("Failed to resume Allure Report in {}", workspace, e);
+            return true;
+        }
+    }
+
+    /**
+     * Workspaces are laid out as {@code <root>/<plan key>/<build number>}.
+     */
+    private static List<Path> findWorkspaces(final Path root) {
+        try (Stream<Path> paths = Files.find(root, 2, (path, attributes) -> attributes.isDirectory())) {
+            return paths
+                    .filter(path -> root.relativize(path).getNameCount() == 2)
+                    .collect(toList());
+        } catch (IOException e) {
+            LOGGER.error("Failed to list Allure Report workspaces in {}", root, e);
+            return List.of();
+        }
+    }
+}
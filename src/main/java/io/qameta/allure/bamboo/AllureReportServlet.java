@@ -48,6 +48,7 @@ import java.util.stream.Stream;
 
 import static com.atlassian.bamboo.plan.PlanKeys.getPlanKey;
 import static com.atlassian.bamboo.plan.PlanKeys.getPlanResultKey;
+import static io.qameta.allure.bamboo.AllureBuildResult.allureBuildResult;
 import static io.qameta.allure.bamboo.AllureBuildResult.fromCustomData;
 import static java.lang.Integer.parseInt;
 
@@ -66,6 +67,8 @@ public class AllureReportServlet extends HttpServlet {
     private static final String CONTENT_TYPE = "Content-Type";
     private static final String FAILED_TO_SEND_FILE_OF_ALLURE_REPORT = "Failed to send file {} of Allure Report ";
     private static final String X_FRAME_OPTIONS = "X-Frame-Options";
+    private static final String REFRESH = "Refresh";
+    private static final String REFRESH_INTERVAL_SECONDS = "10";
     private static final String PROTOCOL_FILE = "file";
     private static final String PROTOCOL_HTTP = "http";
     private static final String PROTOCOL_HTTPS = "https";
@@ -83,17 +86,20 @@ public class AllureReportServlet extends HttpServlet {
     private final transient BambooPermissionManager permissionManager;
     private final transient LoginUriProvider loginUriProvider;
     private final transient UserManager userManager;
+    private final transient AllureOnDemandReportTrigger onDemandReportTrigger;
 
     public AllureReportServlet(final AllureArtifactsManager artifactsManager,
                                final ResultsSummaryManager resultsSummaryManager,
                                final BambooPermissionManager permissionManager,
                                final LoginUriProvider loginUriProvider,
-                               final UserManager userManager) {
+                               final UserManager userManager,
+                               final AllureOnDemandReportTrigger onDemandReportTrigger) {
         this.artifactsManager = artifactsManager;
         this.resultsSummaryManager = resultsSummaryManager;
         this.permissionManager = permissionManager;
         this.loginUriProvider = loginUriProvider;
         this.userManager = userManager;
+        this.onDemandReportTrigger = onDemandReportTrigger;
     }
 
     static Pattern getUrlPattern() {
@@ -302,6 +308,18 @@ public class AllureReportServlet extends HttpServlet {
         final ResultsSummary results = resultsSummaryManager.getResultsSummary(planResultKey);
         if (results != null) {
             final AllureBuildResult uploadResult = fromCustomData(results.getCustomBuildData());
+            if (uploadResult.getStatus().isActive()) {
+                reportIsNotReady(response, uploadResult.getStatus());
+                return false;
+            }
+            if (uploadResult.getStatus().isGeneratedOnView()) {
+                if (onDemandReportTrigger.start(planResultKey)) {
+                    reportIsNotReady(response, AllureReportStatus.PENDING);
+                } else {
+                    uploadResultWasNotSuccess(response, allureBuildResult(false, "The build results no longer exist."));
+                }
+                return false;
+            }
             if (!uploadResult.isSuccess()) {
                 uploadResultWasNotSuccess(response, uploadResult);
                 return false;
@@ -311,6 +329,22 @@ public class AllureReportServlet extends HttpServlet {
         return false;
     }
 
+    private void reportIsNotReady(final HttpServletResponse response,
+                                  final AllureReportStatus status) {
+        final String message = status == AllureReportStatus.PENDING
+                ? "Allure Report is waiting in the generation queue. This page refreshes automatically."
+                : "Allure Report is being generated. This page refreshes automatically.";
+        try {
+            response.setStatus(HttpServletResponse.SC_ACCEPTED);
+            response.setHeader(CONTENT_TYPE, "text/plain");
+            response.setHeader(CONTENT_DISPOSITION, "inline");
+            response.setHeader(REFRESH, REFRESH_INTERVAL_SECONDS);
+            response.getWriter().write(message);
+        } catch (IOException e) {
+            LOGGER.error("Failed to render pending state of Allure Report build ", e);
+        }
+    }
+
     private void uploadResultWasNotSuccess(final HttpServletResponse response,
                                            final AllureBuildResult uploadResult) {
         final String errorMessage = StringUtils.isEmpty(uploadResult.getFailureDetails())
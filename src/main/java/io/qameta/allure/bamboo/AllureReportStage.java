@@ -0,0 +1,46 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import java.util.Locale;
+
+/**
+ * Stages of a single report generation, in the order {@link AllureReportGenerator} runs them.
+ */
+enum AllureReportStage {
+
+    DOWNLOAD("Artifacts download"),
+    DEDUPE("Attachment dedupe"),
+    HISTORY("History lookup"),
+    GENERATE("Allure generate"),
+    FINALIZE("Report finalization"),
+    ZIP("Report zip"),
+    UPLOAD("Report upload");
+
+    private final String label;
+
+    AllureReportStage(final String label) {
+        this.label = label;
+    }
+
+    String getLabel() {
+        return label;
+    }
+
+    String getKey() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
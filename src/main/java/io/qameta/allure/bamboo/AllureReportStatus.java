@@ -0,0 +1,68 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import java.util.Arrays;
+
+/**
+ * Lifecycle of the Allure report of a single chain result, as stored in its custom build data.
+ */
+enum AllureReportStatus {
+
+    /**
+     * The plan generates reports on demand and nobody has opened this one yet. The report is
+     * queued by the first request for it.
+     */
+    ON_DEMAND,
+    /**
+     * The report job has been queued but no worker has picked it up yet.
+     */
+    PENDING,
+    /**
+     * A worker is generating the report.
+     */
+    IN_PROGRESS,
+    /**
+     * A newer build of the same plan was queued before a worker picked this one up, so its report
+     * was skipped. The raw results of the build are kept, so it is generated on demand if opened.
+     */
+    SUPERSEDED,
+    /**
+     * Generation has finished, successfully or not; see the build result for details.
+     */
+    FINISHED;
+
+    boolean isActive() {
+        return this == PENDING || this == IN_PROGRESS;
+    }
+
+    /**
+     * Whether opening the report should queue its generation.
+     */
+    boolean isGeneratedOnView() {
+        return this == ON_DEMAND || this == SUPERSEDED;
+    }
+
+    /**
+     * Results stored before the status was introduced carry no status and are always finished.
+     */
+    static AllureReportStatus fromValue(final String value) {
+        return Arrays.stream(values())
+                .filter(status -> status.name().equals(value))
+                .findFirst()
+                .orElse(FINISHED);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import com.atlassian.bamboo.build.logger.BuildLogger;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_BUILD_REPORT_TIMING_PREFIX;
+
+/**
+ * Durations and byte counts of the stages of a report generation. They are stored in the custom
+ * build data of the chain result next to the {@link AllureBuildResult} keys. Stages may run on
+ * different threads, so recording is synchronized.
+ */
+public final class AllureReportTimings implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String MILLIS_SUFFIX = ".ms";
+    private static final String BYTES_SUFFIX = ".bytes";
+
+    private final Map<AllureReportStage, Long> startedAt = new EnumMap<>(AllureReportStage.class);
+    private final Map<AllureReportStage, StageTiming> finished = new EnumMap<>(AllureReportStage.class);
+
+    synchronized void start(final AllureReportStage stage) {
+        startedAt.put(stage, System.nanoTime());
+    }
+
+    /**
+     * Records the time passed since {@link #start(AllureReportStage)} and the amount of data the
+     * stage has produced or transferred.
+     */
+    synchronized void finish(final AllureReportStage stage,
+                             final long bytes) {
+        final Long start = startedAt.remove(stage);
+        if (start != null) {
+            final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            finished.put(stage, new StageTiming(stage, millis, bytes));
+        }
+    }
+
+    synchronized List<StageTiming> getStages() {
+        return new ArrayList<>(finished.values());
+    }
+
+    synchronized void dumpToCustomData(final Map<String, String> data) {
+        finished.values().forEach(timing -> {
+            data.put(key(timing.stage, MILLIS_SUFFIX), String.valueOf(timing.millis));
+            data.put(key(timing.stage, BYTES_SUFFIX), String.valueOf(timing.bytes));
+        });
+    }
+
+    static AllureReportTimings fromCustomData(final Map<String, String> data) {
+        final AllureReportTimings timings = new AllureReportTimings();
+        for (final AllureReportStage stage : AllureReportStage.values()) {
+            final String millis = data.get(key(stage, MILLIS_SUFFIX));
+            if (millis != null) {
+                timings.finished.put(stage, new StageTiming(
+                        stage,
+                        NumberUtils.toLong(millis),
+                        NumberUtils.toLong(data.get(key(stage, BYTES_SUFFIX)))
+                ));
+            }
+        }
+        return timings;
+    }
+
+    synchronized void logTo(final BuildLogger buildLogger) {
+        finished.values().forEach(timing -> buildLogger.addBuildLogEntry(
+                String.format("Allure Report: %s took %d ms, %s", timing.getStage(), timing.millis, timing.getSize())
+        ));
+    }
+
+    /**
+     * Size of a file or of all files under a directory; zero if it does not exist.
+     */
+    static long sizeOf(final Path path) {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        return Files.isDirectory(path)
+                ? FileUtils.sizeOfDirectory(path.toFile())
+                : FileUtils.sizeOf(path.toFile());
+    }
+
+    private static String key(final AllureReportStage stage,
+                              final String suffix) {
+        return ALLURE_BUILD_REPORT_TIMING_PREFIX + stage.getKey() + suffix;
+    }
+
+    /**
+     * Timing of a single stage, as shown on the build result page.
+     */
+    public static final class StageTiming implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final AllureReportStage stage;
+        private final long millis;
+        private final long bytes;
+
+        private StageTiming(final AllureReportStage stage,
+                            final long millis,
+                            final long bytes) {
+            this.stage = stage;
+            this.millis = millis;
+            this.bytes = bytes;
+        }
+
+        public String getStage() {
+            return stage.getLabel();
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public String getSize() {
+            return FileUtils.byteCountToDisplaySize(bytes);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Include and exclude glob patterns of the files a plan stages from its results artifacts. A
+ * pattern without a slash is matched against the file name, any other against the path relative to
+ * the artifact root. {@code *} and {@code ?} stay within a path segment, {@code **} crosses them.
+ * A file is staged when it matches an include pattern, or there are none, and no exclude pattern.
+ * Directories matching an exclude pattern are not descended into.
+ */
+public final class AllureResultsFilter implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    static final AllureResultsFilter ALL = new AllureResultsFilter(List.of(), List.of());
+
+    private static final String SEPARATOR = "/";
+
+    private final List<Pattern> includes;
+    private final List<Pattern> excludes;
+
+    private AllureResultsFilter(final List<Pattern> includes,
+                                final List<Pattern> excludes) {
+        this.includes = includes;
+        this.excludes = excludes;
+    }
+
+    /**
+     * @param includes comma or line separated globs of the files to stage, all files if blank
+     * @param excludes comma or line separated globs of the files and directories to leave out
+     */
+    static AllureResultsFilter of(final String includes,
+                                  final String excludes) {
+        final List<Pattern> includePatterns = compile(includes);
+        final List<Pattern> excludePatterns = compile(excludes);
+        return includePatterns.isEmpty() && excludePatterns.isEmpty()
+                ? ALL
+                : new AllureResultsFilter(includePatterns, excludePatterns);
+    }
+
+    boolean isAll() {
+        return includes.isEmpty() && excludes.isEmpty();
+    }
+
+    boolean acceptsFile(final String relativePath) {
+        final String path = normalize(relativePath);
+        return (includes.isEmpty() || matchesAny(includes, path)) && !matchesAny(excludes, path);
+    }
+
+    boolean acceptsDirectory(final String relativePath) {
+        return !matchesAny(excludes, normalize(relativePath));
+    }
+
+    /**
+     * Whether a file found by its full path, as in an archive, is accepted along with all of its
+     * parent directories.
+     */
+    boolean acceptsEntry(final String relativePath) {
+        final String path = normalize(relativePath);
+        int separator = path.indexOf(SEPARATOR);
+        while (separator > 0) {
+            if (!acceptsDirectory(path.substring(0, separator))) {
+                return false;
+            }
+            separator = path.indexOf(SEPARATOR, separator + 1);
+        }
+        return acceptsFile(path);
+    }
+
+    private static boolean matchesAny(final List<Pattern> patterns,
+                                      final String path) {
+        return patterns.stream().anyMatch(pattern -> pattern.matcher(path).matches());
+    }
+
+    private static String normalize(final String path) {
+        return StringUtils.strip(path.replace('\\', '/'), SEPARATOR);
+    }
+
+    private static List<Pattern> compile(final String globs) {
+        if (StringUtils.isBlank(globs)) {
+            return List.of();
+        }
+        return Arrays.stream(globs.split("[,\\r\\n]+"))
+                .map(String::trim)
+                .filter(StringUtils::isNotEmpty)
+                .map(glob -> Pattern.compile(toRegex(normalize(glob))))
+                .collect(toList());
+    }
+
+    private static String toRegex(final String glob) {
+        // a file name pattern matches in any directory
+        final StringBuilder regex = new StringBuilder(glob.contains(SEPARATOR) ? "" : "(?:.*/)?");
+        int i = 0;
+        while (i < glob.length()) {
+            final char c = glob.charAt(i);
+            if (glob.startsWith("**/", i)) {
+                // also matches no directory at all
+                regex.append("(?:.*/)?");
+                i += 3;
+                continue;
+            }
+            if (glob.startsWith("**", i)) {
+                regex.append(".*");
+                i++;
+            } else if (c == '*') {
+                regex.append("[^/]*");
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+            i++;
+        }
+        return regex.toString();
+    }
+}
@@ -0,0 +1,353 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import com.atlassian.bamboo.resultsummary.BuildResultsSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Serializable;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Stages the results of every job into the report workspace of its chain build as soon as the job
+ * finishes, so the chain report finds most of them local and goes almost straight to
+ * {@code allure generate}. Each job is staged under {@code prestaged/<job result key>} with a
+ * manifest written last; only jobs with a manifest are picked up by the report. The jobs of a
+ * chain build share one ingestion budget, so together they stage no more than its report may take,
+ * and each reserves scratch space for its results before they are downloaded.
+ */
+public class AllureResultsPrestager {
+
+    static final String PRESTAGED_DIR = "prestaged";
+    static final String MANIFEST_FILE = "staged.json";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AllureResultsPrestager.class);
+    private static final ObjectMapper MAPPER = new JsonMapper();
+    private static final String RESULT_SUFFIX = "-result.json";
+
+    private final AllureArtifactsManager artifactsManager;
+    private final AllureIoExecutor ioExecutor;
+    private final AllureScratchSpace scratchSpace;
+    private final Map<Path, List<Future<?>>> inFlight = new HashMap<>();
+    private final Map<Path, AllureIngestionBudget> budgets = new HashMap<>();
+
+    public AllureResultsPrestager(final AllureArtifactsManager artifactsManager,
+                                  final AllureIoExecutor ioExecutor) {
+        this(artifactsManager, ioExecutor, new AllureScratchSpace());
+    }
+
+    AllureResultsPrestager(final AllureArtifactsManager artifactsManager,
+                           final AllureIoExecutor ioExecutor,
+                           final AllureScratchSpace scratchSpace) {
+        this.artifactsManager = artifactsManager;
+        this.ioExecutor = ioExecutor;
+        this.scratchSpace = scratchSpace;
+    }
+
+    /**
+     * Starts staging the results of the given job in the background, within the budget shared by
+     * the jobs of its chain build.
+     */
+    void stageAsync(final Path workspace,
+                    final BuildResultsSummary jobResult,
+                    final String artifactName,
+                    final AllureResultsFilter filter,
+                    final AllureGlobalConfig globalConfig) {
+        final AllureIngestionBudget budget;
+        synchronized (inFlight) {
+            budget = budgets.computeIfAbsent(workspace, key -> AllureIngestionBudget.of(globalConfig));
+        }
+        final long maxResultsBytes = globalConfig.getMaxResultsBytes();
+        final long expected = artifactsManager.getExpectedArtifactsSize(jobResult, artifactName);
+        final long resultsBytes = maxResultsBytes > 0 ? Math.min(expected, maxResultsBytes) : expected;
+        final Future<?> staging = ioExecutor.fork(() -> {
+            boolean staged = false;
+            try (AllureScratchSpace.Reservation reservation = scratchSpace.reserveStaging(
+                    Files.createDirectories(workspace), resultsBytes, jobResult.getPlanResultKey())) {
+                stage(workspace, jobResult, artifactName, filter, budget);
+                staged = true;
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Failed to stage the results of {}, they are downloaded with the chain", jobResult.getPlanResultKey(), e);
+            } finally {
+                if (!staged) {
+                    // a staging that failed or was discarded leaves nothing behind
+                    FileUtils.deleteQuietly(jobDirOf(workspace, jobResult).toFile());
+                }
+            }
+            return null;
+        });
+        synchronized (inFlight) {
+            // forget finished stagings, including those of builds that are never reported
+            inFlight.values().forEach(stagings -> stagings.removeIf(Future::isDone));
+            inFlight.values().removeIf(List::isEmpty);
+            inFlight.computeIfAbsent(workspace, key -> new ArrayList<>()).add(staging);
+        }
+    }
+
+    /**
+     * Scratch space shared with the reports, so results staged ahead of them count against the
+     * same free space.
+     */
+    AllureScratchSpace getScratchSpace() {
+        return scratchSpace;
+    }
+
+    /**
+     * Downloads the results of the job, then validates and counts them into the manifest, along
+     * with what the budget of the chain build left out so far.
+     */
+    Manifest stage(final Path workspace,
+                   final BuildResultsSummary jobResult,
+                   final String artifactName,
+                   final AllureResultsFilter filter,
+                   final AllureIngestionBudget budget) throws IOException {
+        final Path jobDir = jobDirOf(workspace, jobResult);
+        FileUtils.deleteQuietly(jobDir.toFile());
+        Files.createDirectories(jobDir);
+        final List<Path> paths = artifactsManager.downloadJobArtifactsTo(jobResult, jobDir.toFile(), artifactName, filter, budget);
+        final Manifest manifest = new Manifest();
+        manifest.setPartialReasons(budget.getPartialReasons());
+        for (final Path path : paths) {
+            // results read in place stay where they are and are recorded by their absolute path
+            manifest.getPaths().add(path.startsWith(jobDir) ? jobDir.relativize(path).toString() : path.toString());
+            count(path, manifest);
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Interrupted while staging the results of " + jobResult.getPlanResultKey());
+        }
+        final Path tmp = jobDir.resolve(MANIFEST_FILE + ".tmp");
+        MAPPER.writeValue(tmp.toFile(), manifest);
+        Files.move(tmp, jobDir.resolve(MANIFEST_FILE), StandardCopyOption.ATOMIC_MOVE);
+        LOGGER.info(
+                "Staged {} results ({} invalid) and {} files of {} in {} bytes",
+                manifest.getResults(), manifest.getInvalidResults(), manifest.getFiles(),
+                jobResult.getPlanResultKey(), manifest.getBytes()
+        );
+        return manifest;
+    }
+
+    /**
+     * Waits for the stagings of the workspace still running, then moves every staged job into the
+     * artifacts directory and charges it to the budget of the build, along with what the shared
+     * staging budget left out. Results read in place are left where they are. The staging area is
+     * removed afterwards.
+     *
+     * @return the moved results directories by job result key.
+     */
+    Map<String, List<Path>> adopt(final Path workspace,
+                                  final Path artifactsDir,
+                                  final AllureIngestionBudget budget) throws IOException {
+        awaitStagings(workspace);
+        final AllureIngestionBudget stagingBudget;
+        synchronized (inFlight) {
+            stagingBudget = budgets.remove(workspace);
+        }
+        final Path prestagedDir = workspace.resolve(PRESTAGED_DIR);
+        final Map<String, List<Path>> staged = new HashMap<>();
+        if (!Files.isDirectory(prestagedDir)) {
+            return staged;
+        }
+        // the manifests of a build staged before a restart only hold what was left out so far
+        final Set<String> partialReasons = new LinkedHashSet<>();
+        try (DirectoryStream<Path> jobDirs = Files.newDirectoryStream(prestagedDir)) {
+            for (final Path jobDir : jobDirs) {
+                final Path manifestFile = jobDir.resolve(MANIFEST_FILE);
+                if (!Files.isRegularFile(manifestFile)) {
+                    continue;
+                }
+                final Manifest manifest = MAPPER.readValue(manifestFile.toFile(), Manifest.class);
+                final List<Path> moved = new ArrayList<>();
+                for (final String path : manifest.getPaths()) {
+                    final Path source = jobDir.resolve(path);
+                    if (!source.startsWith(jobDir)) {
+                        moved.add(source);
+                        continue;
+                    }
+                    final Path target = artifactsDir.resolve(source.getFileName());
+                    Files.move(source, target);
+                    moved.add(target);
+                }
+                budget.charge(manifest.getFiles(), manifest.getBytes(), List.of());
+                partialReasons.addAll(manifest.getPartialReasons());
+                staged.put(jobDir.getFileName().toString(), moved);
+            }
+            if (!staged.isEmpty()) {
+                budget.charge(0, 0, stagingBudget != null ? stagingBudget.getPartialReasons() : new ArrayList<>(partialReasons));
+            }
+        } finally {
+            FileUtils.deleteQuietly(prestagedDir.toFile());
+        }
+        return staged;
+    }
+
+    /**
+     * Drops the staged results of a build that is not going to be reported, because it was
+     * superseded or its chain ended without a report. Stagings still running are cancelled.
+     */
+    void discard(final Path workspace) {
+        final List<Future<?>> stagings;
+        synchronized (inFlight) {
+            stagings = inFlight.remove(workspace);
+            budgets.remove(workspace);
+        }
+        if (stagings != null) {
+            stagings.forEach(staging -> staging.cancel(true));
+        }
+        FileUtils.deleteQuietly(workspace.resolve(PRESTAGED_DIR).toFile());
+    }
+
+    private static Path jobDirOf(final Path workspace,
+                                 final BuildResultsSummary jobResult) {
+        return workspace.resolve(PRESTAGED_DIR).resolve(jobResult.getPlanResultKey().getKey());
+    }
+
+    private void awaitStagings(final Path workspace) throws InterruptedIOException {
+        final List<Future<?>> stagings;
+        synchronized (inFlight) {
+            stagings = inFlight.remove(workspace);
+        }
+        if (stagings == null) {
+            return;
+        }
+        for (final Future<?> staging : stagings) {
+            try {
+                staging.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for staged results");
+            } catch (ExecutionException e) {
+                LOGGER.warn("Results staging of {} failed", workspace, e.getCause());
+            }
+        }
+    }
+
+    private static void count(final Path resultsDir,
+                              final Manifest manifest) throws IOException {
+        try (Stream<Path> files = Files.walk(resultsDir)) {
+            for (final Path file : files.filter(Files::isRegularFile).collect(toList())) {
+                manifest.setFiles(manifest.getFiles() + 1);
+                manifest.setBytes(manifest.getBytes() + Files.size(file));
+                if (file.getFileName().toString().endsWith(RESULT_SUFFIX)) {
+                    if (isValidJson(file)) {
+                        manifest.setResults(manifest.getResults() + 1);
+                    } else {
+                        manifest.setInvalidResults(manifest.getInvalidResults() + 1);
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isValidJson(final Path file) {
+        try {
+            MAPPER.readTree(file.toFile());
+            return true;
+        } catch (IOException e) {
+            LOGGER.warn("Staged result {} is not valid JSON", file);
+            return false;
+        }
+    }
+
+    /**
+     * What was staged for a single job, written once the job is completely staged.
+     */
+    public static class Manifest implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private List<String> paths = new ArrayList<>();
+        private long files;
+        private long results;
+        private long invalidResults;
+        private long bytes;
+        private List<String> partialReasons = new ArrayList<>();
+
+        /**
+         * Results directories relative to the job staging directory.
+         */
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(final List<String> paths) {
+            this.paths = paths;
+        }
+
+        public long getFiles() {
+            return files;
+        }
+
+        public void setFiles(final long files) {
+            this.files = files;
+        }
+
+        public long getResults() {
+            return results;
+        }
+
+        public void setResults(final long results) {
+            this.results = results;
+        }
+
+        public long getInvalidResults() {
+            return invalidResults;
+        }
+
+        public void setInvalidResults(final long invalidResults) {
+            this.invalidResults = invalidResults;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public void setBytes(final long bytes) {
+            this.bytes = bytes;
+        }
+
+        /**
+         * What the ingestion budget of the chain build left out by the time the job was staged,
+         * empty if all results were staged so far.
+         */
+        public List<String> getPartialReasons() {
+            return partialReasons;
+        }
+
+        public void setPartialReasons(final List<String> partialReasons) {
+            this.partialReasons = partialReasons;
+        }
+    }
+}
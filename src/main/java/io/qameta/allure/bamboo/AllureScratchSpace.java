@@ -0,0 +1,150 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Free space pre-flight of the scratch directory. Before staging, a report reserves the space it is
+ * expected to take: the staged results, the generated report and its archive, each up to the size
+ * of the results. A report that would not fit even once the running ones are done fails right away;
+ * one that only lacks the space reserved by running reports waits for them, instead of filling the
+ * disk halfway through. The free space is polled while waiting, so space freed by others counts too.
+ * Results staged ahead of a report reserve their own size until they are written.
+ */
+class AllureScratchSpace {
+
+    /**
+     * How many times the size of its results a report takes in the scratch directory.
+     */
+    static final int RESULTS_FACTOR = 3;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AllureScratchSpace.class);
+    private static final long POLL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final ToLongFunction<Path> usableSpace;
+    private long reserved;
+
+    AllureScratchSpace() {
+        this(dir -> dir.toFile().getUsableSpace());
+    }
+
+    AllureScratchSpace(final ToLongFunction<Path> usableSpace) {
+        this.usableSpace = usableSpace;
+    }
+
+    /**
+     * Blocks until the scratch directory has room for the report of the given results.
+     *
+     * @param dir          directory the report is staged in, it must exist
+     * @param resultsBytes expected size of all results of the report
+     * @param stagedBytes  size of the results already in the directory
+     * @param job          the report, for the log
+     * @return the reservation to close once the report is done
+     * @throws AllurePluginException if the report does not fit even with no other report running
+     */
+    synchronized Reservation reserve(final Path dir,
+                                     final long resultsBytes,
+                                     final long stagedBytes,
+                                     final Object job) throws InterruptedIOException {
+        return reserveBytes(dir, Math.max(0, RESULTS_FACTOR * resultsBytes - stagedBytes), "the report of " + job);
+    }
+
+    /**
+     * Blocks until the scratch directory has room for the results of a job staged ahead of the
+     * report of its build.
+     *
+     * @param dir          directory the results are staged in, it must exist
+     * @param resultsBytes expected size of the results of the job
+     * @param job          the job, for the log
+     * @return the reservation to close once the results are staged
+     * @throws AllurePluginException if the results do not fit even with no other report running
+     */
+    synchronized Reservation reserveStaging(final Path dir,
+                                            final long resultsBytes,
+                                            final Object job) throws InterruptedIOException {
+        return reserveBytes(dir, Math.max(0, resultsBytes), "the results of " + job);
+    }
+
+    private Reservation reserveBytes(final Path dir,
+                                     final long bytes,
+                                     final String what) throws InterruptedIOException {
+        long usable = usableSpace.applyAsLong(dir);
+        boolean logged = false;
+        while (bytes > usable - reserved) {
+            if (bytes > usable + reserved) {
+                throw new AllurePluginException(String.format(
+                        "Not enough free space in %s for %s: %s needed, %s available",
+                        dir, what, FileUtils.byteCountToDisplaySize(bytes), FileUtils.byteCountToDisplaySize(usable)
+                ));
+            }
+            if (!logged) {
+                LOGGER.info("Staging {} waits for {} of free space in {}", what, FileUtils.byteCountToDisplaySize(bytes), dir);
+                logged = true;
+            }
+            try {
+                wait(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for free space");
+            }
+            usable = usableSpace.applyAsLong(dir);
+        }
+        reserved += bytes;
+        return new Reservation(bytes);
+    }
+
+    synchronized long getReserved() {
+        return reserved;
+    }
+
+    private synchronized void release(final long bytes) {
+        reserved -= bytes;
+        notifyAll();
+    }
+
+    /**
+     * Space held by a running report.
+     */
+    final class Reservation implements AutoCloseable {
+
+        private final long bytes;
+        private boolean released;
+
+        private Reservation(final long bytes) {
+            this.bytes = bytes;
+        }
+
+        long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release(bytes);
+            }
+        }
+    }
+}
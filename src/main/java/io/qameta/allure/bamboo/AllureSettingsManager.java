@@ -17,13 +17,26 @@ package io.qameta.allure.bamboo;
 
 import com.atlassian.sal.api.pluginsettings.PluginSettings;
 import com.atlassian.sal.api.pluginsettings.PluginSettingsFactory;
+import org.apache.commons.lang3.StringUtils;
 
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_CUSTOM_LOGO_ENABLED;
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_DOWNLOAD_ENABLED;
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_DOWNLOAD_URL;
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_ENABLED_BY_DEFAULT;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_HISTORY_MAX_AGE_BUILDS;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_HISTORY_MAX_ITEMS;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_HISTORY_TREND_WINDOW;
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_LOCAL_STORAGE;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_MAX_CONCURRENT_GENERATIONS;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_MAX_IO_CONCURRENCY;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_MAX_PARALLEL_DOWNLOADS;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_MAX_RESULTS_FILES;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_MAX_RESULTS_MB;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_MAX_RESULT_FILE_MB;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_OVERSIZE_ACTION;
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_REPORTS_CLEANUP_ENABLED;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_SCRATCH_PATH;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_STAGING_MODE;
 
 public class AllureSettingsManager {
 
@@ -40,6 +53,18 @@ public class AllureSettingsManager {
         final String downloadBaseUrl = (String) settings.get(ALLURE_CONFIG_DOWNLOAD_URL);
         final String localStorage = (String) settings.get(ALLURE_CONFIG_LOCAL_STORAGE);
         final String enabledReportsCleanup = (String) settings.get(ALLURE_CONFIG_REPORTS_CLEANUP_ENABLED);
+        final String maxConcurrentGenerations = (String) settings.get(ALLURE_CONFIG_MAX_CONCURRENT_GENERATIONS);
+        final String maxIoConcurrency = (String) settings.get(ALLURE_CONFIG_MAX_IO_CONCURRENCY);
+        final String maxParallelDownloads = (String) settings.get(ALLURE_CONFIG_MAX_PARALLEL_DOWNLOADS);
+        final String stagingMode = (String) settings.get(ALLURE_CONFIG_STAGING_MODE);
+        final String maxResultsMb = (String) settings.get(ALLURE_CONFIG_MAX_RESULTS_MB);
+        final String maxResultsFiles = (String) settings.get(ALLURE_CONFIG_MAX_RESULTS_FILES);
+        final String maxResultFileMb = (String) settings.get(ALLURE_CONFIG_MAX_RESULT_FILE_MB);
+        final String oversizeAction = (String) settings.get(ALLURE_CONFIG_OVERSIZE_ACTION);
+        final String scratchPath = (String) settings.get(ALLURE_CONFIG_SCRATCH_PATH);
+        final String historyMaxItems = (String) settings.get(ALLURE_CONFIG_HISTORY_MAX_ITEMS);
+        final String historyMaxAgeBuilds = (String) settings.get(ALLURE_CONFIG_HISTORY_MAX_AGE_BUILDS);
+        final String historyTrendWindow = (String) settings.get(ALLURE_CONFIG_HISTORY_TREND_WINDOW);
 
         return new AllureGlobalConfig(
                 downloadEnabled,
@@ -48,7 +73,18 @@ public class AllureSettingsManager {
                 localStorage,
                 customLogoEnabled,
                 enabledReportsCleanup
-        );
+        ).withMaxConcurrentGenerations(maxConcurrentGenerations)
+                .withMaxIoConcurrency(maxIoConcurrency)
+                .withMaxParallelDownloads(maxParallelDownloads)
+                .withStagingMode(stagingMode)
+                .withMaxResultsMb(maxResultsMb)
+                .withMaxResultsFiles(maxResultsFiles)
+                .withMaxResultFileMb(maxResultFileMb)
+                .withOversizeAction(oversizeAction)
+                .withScratchPath(scratchPath)
+                .withHistoryMaxItems(historyMaxItems)
+                .withHistoryMaxAgeBuilds(historyMaxAgeBuilds)
+                .withHistoryTrendWindow(historyTrendWindow);
     }
 
     public void saveSettings(final AllureGlobalConfig config) {
@@ -58,5 +94,17 @@ public class AllureSettingsManager {
         settings.put(ALLURE_CONFIG_LOCAL_STORAGE, String.valueOf(config.getLocalStoragePath()));
         settings.put(ALLURE_CONFIG_ENABLED_BY_DEFAULT, String.valueOf(config.isEnabledByDefault()));
         settings.put(ALLURE_CONFIG_REPORTS_CLEANUP_ENABLED, String.valueOf(config.isEnabledReportsCleanup()));
+        settings.put(ALLURE_CONFIG_MAX_CONCURRENT_GENERATIONS, String.valueOf(config.getMaxConcurrentGenerations()));
+        settings.put(ALLURE_CONFIG_MAX_IO_CONCURRENCY, String.valueOf(config.getMaxIoConcurrency()));
+        settings.put(ALLURE_CONFIG_MAX_PARALLEL_DOWNLOADS, String.valueOf(config.getMaxParallelDownloads()));
+        settings.put(ALLURE_CONFIG_STAGING_MODE, config.getStagingMode().name());
+        settings.put(ALLURE_CONFIG_MAX_RESULTS_MB, String.valueOf(config.getMaxResultsMb()));
+        settings.put(ALLURE_CONFIG_MAX_RESULTS_FILES, String.valueOf(config.getMaxResultsFiles()));
+        settings.put(ALLURE_CONFIG_MAX_RESULT_FILE_MB, String.valueOf(config.getMaxResultFileMb()));
+        settings.put(ALLURE_CONFIG_OVERSIZE_ACTION, config.getOversizeAction().name());
+        settings.put(ALLURE_CONFIG_SCRATCH_PATH, StringUtils.defaultString(config.getScratchPath()));
+        settings.put(ALLURE_CONFIG_HISTORY_MAX_ITEMS, String.valueOf(config.getHistoryMaxItems()));
+        settings.put(ALLURE_CONFIG_HISTORY_MAX_AGE_BUILDS, String.valueOf(config.getHistoryMaxAgeBuilds()));
+        settings.put(ALLURE_CONFIG_HISTORY_TREND_WINDOW, String.valueOf(config.getHistoryTrendWindow()));
     }
 }
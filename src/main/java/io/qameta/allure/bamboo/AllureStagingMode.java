@@ -0,0 +1,52 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import java.util.Arrays;
+
+/**
+ * How the results of artifacts stored on the server file system are staged for a report.
+ */
+enum AllureStagingMode {
+
+    LINK("Hard-link files, copy across devices"),
+    COPY("Copy files"),
+    /**
+     * Results are read from the artifact directories themselves. Nothing may be written there, so
+     * the files the plugin adds to the results go into a separate overlay directory.
+     */
+    IN_PLACE("Read files in place");
+
+    private final String label;
+
+    AllureStagingMode(final String label) {
+        this.label = label;
+    }
+
+    String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return the mode of the given name, {@link #LINK} when blank or unknown.
+     */
+    static AllureStagingMode fromName(final String name) {
+        return Arrays.stream(values())
+                .filter(mode -> mode.name().equalsIgnoreCase(name))
+                .findFirst()
+                .orElse(LINK);
+    }
+}
@@ -17,14 +17,22 @@ package io.qameta.allure.bamboo;
 
 import com.atlassian.bamboo.configuration.GlobalAdminAction;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.struts2.Preparable;
 import org.apache.struts2.interceptor.parameter.StrutsParameter;
 
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 public class ConfigureAllureReportAction extends GlobalAdminAction implements Preparable {
 
     private static final long serialVersionUID = 1L;
 
     private final transient AllureSettingsManager settingsManager;
+    private final transient AllureGenerationLimiter generationLimiter;
+    private final transient AllureReportQueue reportQueue;
     private AllureGlobalConfig config;
 
     private boolean downloadEnabled;
@@ -32,10 +40,26 @@ public class ConfigureAllureReportAction extends GlobalAdminAction implements Pr
     private boolean enabledByDefault;
     private boolean enabledReportsCleanup;
     private String localStoragePath;
+    private String scratchPath;
     private String downloadBaseUrl;
+    private String maxConcurrentGenerations;
+    private String maxIoConcurrency;
+    private String maxParallelDownloads;
+    private String stagingMode;
+    private String maxResultsMb;
+    private String maxResultsFiles;
+    private String maxResultFileMb;
+    private String oversizeAction;
+    private String historyMaxItems;
+    private String historyMaxAgeBuilds;
+    private String historyTrendWindow;
 
-    public ConfigureAllureReportAction(final AllureSettingsManager settingsManager) {
+    public ConfigureAllureReportAction(final AllureSettingsManager settingsManager,
+                                       final AllureGenerationLimiter generationLimiter,
+                                       final AllureReportQueue reportQueue) {
         this.settingsManager = settingsManager;
+        this.generationLimiter = generationLimiter;
+        this.reportQueue = reportQueue;
     }
 
     @Override
@@ -47,7 +71,18 @@ public class ConfigureAllureReportAction extends GlobalAdminAction implements Pr
                 localStoragePath,
                 customLogoEnabled,
                 enabledReportsCleanup
-        );
+        ).withMaxConcurrentGenerations(maxConcurrentGenerations)
+                .withMaxIoConcurrency(maxIoConcurrency)
+                .withMaxParallelDownloads(maxParallelDownloads)
+                .withStagingMode(stagingMode)
+                .withMaxResultsMb(maxResultsMb)
+                .withMaxResultsFiles(maxResultsFiles)
+                .withMaxResultFileMb(maxResultFileMb)
+                .withOversizeAction(oversizeAction)
+                .withScratchPath(scratchPath)
+                .withHistoryMaxItems(historyMaxItems)
+                .withHistoryMaxAgeBuilds(historyMaxAgeBuilds)
+                .withHistoryTrendWindow(historyTrendWindow);
         settingsManager.saveSettings(newConfig);
         this.config = settingsManager.getSettings();
         return SUCCESS;
@@ -60,7 +95,19 @@ public class ConfigureAllureReportAction extends GlobalAdminAction implements Pr
         this.enabledByDefault = this.config.isEnabledByDefault();
         this.enabledReportsCleanup = this.config.isEnabledReportsCleanup();
         this.localStoragePath = this.config.getLocalStoragePath();
+        this.scratchPath = this.config.getScratchPath();
         this.downloadBaseUrl = this.config.getDownloadBaseUrl();
+        this.maxConcurrentGenerations = positiveOrNull(this.config.getMaxConcurrentGenerations());
+        this.maxIoConcurrency = positiveOrNull(this.config.getMaxIoConcurrency());
+        this.maxParallelDownloads = positiveOrNull(this.config.getMaxParallelDownloads());
+        this.stagingMode = this.config.getStagingMode().name();
+        this.maxResultsMb = positiveOrNull(this.config.getMaxResultsMb());
+        this.maxResultsFiles = positiveOrNull(this.config.getMaxResultsFiles());
+        this.maxResultFileMb = positiveOrNull(this.config.getMaxResultFileMb());
+        this.oversizeAction = this.config.getOversizeAction().name();
+        this.historyMaxItems = positiveOrNull(this.config.getHistoryMaxItems());
+        this.historyMaxAgeBuilds = positiveOrNull(this.config.getHistoryMaxAgeBuilds());
+        this.historyTrendWindow = positiveOrNull(this.config.getHistoryTrendWindow());
         return INPUT;
     }
 
@@ -72,6 +119,16 @@ public class ConfigureAllureReportAction extends GlobalAdminAction implements Pr
         if (StringUtils.isBlank(localStoragePath)) {
             addActionError(getText("allure.config.local.storage.required"));
         }
+        if (StringUtils.isNotBlank(scratchPath) && !isAbsolutePath(scratchPath)) {
+            addActionError(getText("allure.config.scratch.path.error.invalid"));
+        }
+        validatePositive("allure.config.max.concurrent.generations.error.invalid", Integer.MAX_VALUE, maxConcurrentGenerations);
+        validatePositive("allure.config.max.io.concurrency.error.invalid", Integer.MAX_VALUE, maxIoConcurrency);
+        validatePositive("allure.config.max.parallel.downloads.error.invalid", Integer.MAX_VALUE, maxParallelDownloads);
+        if (validatePositive("allure.config.max.results.error.invalid", AllureGlobalConfig.MAX_MEGABYTES, maxResultsMb, maxResultFileMb)) {
+            validatePositive("allure.config.max.results.error.invalid", Long.MAX_VALUE, maxResultsFiles);
+        }
+        validatePositive("allure.config.history.error.invalid", Integer.MAX_VALUE, historyMaxItems, historyMaxAgeBuilds, historyTrendWindow);
     }
 
     @Override
@@ -124,6 +181,15 @@ public class ConfigureAllureReportAction extends GlobalAdminAction implements Pr
         this.localStoragePath = localStoragePath;
     }
 
+    public String getScratchPath() {
+        return scratchPath;
+    }
+
+    @StrutsParameter
+    public void setScratchPath(final String scratchPath) {
+        this.scratchPath = StringUtils.trimToNull(scratchPath);
+    }
+
     public String getDownloadBaseUrl() {
         return downloadBaseUrl;
     }
@@ -132,4 +198,176 @@ public class ConfigureAllureReportAction extends GlobalAdminAction implements Pr
     public void setDownloadBaseUrl(final String downloadBaseUrl) {
         this.downloadBaseUrl = downloadBaseUrl;
     }
+
+    public String getMaxConcurrentGenerations() {
+        return maxConcurrentGenerations;
+    }
+
+    @StrutsParameter
+    public void setMaxConcurrentGenerations(final String maxConcurrentGenerations) {
+        this.maxConcurrentGenerations = StringUtils.trimToNull(maxConcurrentGenerations);
+    }
+
+    public String getMaxIoConcurrency() {
+        return maxIoConcurrency;
+    }
+
+    @StrutsParameter
+    public void setMaxIoConcurrency(final String maxIoConcurrency) {
+        this.maxIoConcurrency = StringUtils.trimToNull(maxIoConcurrency);
+    }
+
+    public String getMaxParallelDownloads() {
+        return maxParallelDownloads;
+    }
+
+    @StrutsParameter
+    public void setMaxParallelDownloads(final String maxParallelDownloads) {
+        this.maxParallelDownloads = StringUtils.trimToNull(maxParallelDownloads);
+    }
+
+    public String getStagingMode() {
+        return stagingMode;
+    }
+
+    @StrutsParameter
+    public void setStagingMode(final String stagingMode) {
+        this.stagingMode = stagingMode;
+    }
+
+    public Map<String, String> getStagingModes() {
+        final Map<String, String> modes = new LinkedHashMap<>();
+        for (final AllureStagingMode mode : AllureStagingMode.values()) {
+            modes.put(mode.name(), mode.getLabel());
+        }
+        return modes;
+    }
+
+    public String getMaxResultsMb() {
+        return maxResultsMb;
+    }
+
+    @StrutsParameter
+    public void setMaxResultsMb(final String maxResultsMb) {
+        this.maxResultsMb = StringUtils.trimToNull(maxResultsMb);
+    }
+
+    public String getMaxResultsFiles() {
+        return maxResultsFiles;
+    }
+
+    @StrutsParameter
+    public void setMaxResultsFiles(final String maxResultsFiles) {
+        this.maxResultsFiles = StringUtils.trimToNull(maxResultsFiles);
+    }
+
+    public String getMaxResultFileMb() {
+        return maxResultFileMb;
+    }
+
+    @StrutsParameter
+    public void setMaxResultFileMb(final String maxResultFileMb) {
+        this.maxResultFileMb = StringUtils.trimToNull(maxResultFileMb);
+    }
+
+    public String getOversizeAction() {
+        return oversizeAction;
+    }
+
+    @StrutsParameter
+    public void setOversizeAction(final String oversizeAction) {
+        this.oversizeAction = oversizeAction;
+    }
+
+    public String getHistoryMaxItems() {
+        return historyMaxItems;
+    }
+
+    @StrutsParameter
+    public void setHistoryMaxItems(final String historyMaxItems) {
+        this.historyMaxItems = StringUtils.trimToNull(historyMaxItems);
+    }
+
+    public String getHistoryMaxAgeBuilds() {
+        return historyMaxAgeBuilds;
+    }
+
+    @StrutsParameter
+    public void setHistoryMaxAgeBuilds(final String historyMaxAgeBuilds) {
+        this.historyMaxAgeBuilds = StringUtils.trimToNull(historyMaxAgeBuilds);
+    }
+
+    public String getHistoryTrendWindow() {
+        return historyTrendWindow;
+    }
+
+    @StrutsParameter
+    public void setHistoryTrendWindow(final String historyTrendWindow) {
+        this.historyTrendWindow = StringUtils.trimToNull(historyTrendWindow);
+    }
+
+    public Map<String, String> getOversizeActions() {
+        final Map<String, String> actions = new LinkedHashMap<>();
+        for (final AllureOversizeAction action : AllureOversizeAction.values()) {
+            actions.put(action.name(), action.getLabel());
+        }
+        return actions;
+    }
+
+    public int getGenerationPermits() {
+        return AllureGenerationLimiter.permitsFor(settingsManager.getSettings());
+    }
+
+    public int getActiveGenerations() {
+        return generationLimiter.getActivePermits();
+    }
+
+    public int getQueuedGenerations() {
+        return reportQueue.getWaitingJobs();
+    }
+
+    public long getLastQueueWaitMillis() {
+        return reportQueue.getLastQueuedMillis();
+    }
+
+    public long getAverageQueueWaitMillis() {
+        return reportQueue.getAverageQueuedMillis();
+    }
+
+    private static String positiveOrNull(final long value) {
+        return value > 0 ? String.valueOf(value) : null;
+    }
+
+    private static boolean isAbsolutePath(final String path) {
+        try {
+            return Paths.get(path).isAbsolute();
+        } catch (InvalidPathException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Adds the error once if any of the values is set but is not a positive number within the range
+     * of its setting. Blank values leave the setting unlimited and are always valid; the form shows
+     * them blank again through {@link #positiveOrNull(long)}.
+     *
+     * @return whether all of the values are valid
+     */
+    private boolean validatePositive(final String errorKey,
+                                     final long max,
+                                     final String... values) {
+        for (final String value : values) {
+            if (StringUtils.isNotBlank(value) && !isPositive(value.trim(), max)) {
+                addActionError(getText(errorKey));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPositive(final String value,
+                                      final long max) {
+        final long number = NumberUtils.toLong(value, 0);
+        return number > 0 && number <= max;
+    }
 }
@@ -0,0 +1,314 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import com.atlassian.bamboo.build.artifact.ArtifactFileData;
+import com.atlassian.bamboo.build.artifact.ArtifactLinkDataProvider;
+import com.atlassian.bamboo.build.artifact.TrampolineArtifactFileData;
+import io.qameta.allure.bamboo.util.ArtifactDownloader;
+import io.qameta.allure.bamboo.util.ZipUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Downloads a remote artifact tree into a single directory. Instead of listing one directory after
+ * another, several directories are listed at once from a work queue, and the files are downloaded
+ * while the listing goes on. Both queues are bounded: a listing waits while too many files are
+ * pending, and lists a directory itself, depth first, when too many directories are queued.
+ *
+ * <p>An artifact holding nothing but a {@code .zip} or {@code .tar.gz} archive is extracted while
+ * it downloads, so agents may publish their results as a single compressed file.
+ *
+ * <p>Every file is admitted by the {@link AllureIngestionBudget} of the build before it is
+ * downloaded, and settled once its size is known. The walk stops listing once the budget is
+ * exhausted.
+ *
+ * <p>Listings run without an I/O permit, since they wait for free file slots; the file downloads
+ * take one.
+ */
+final class RemoteArtifactWalker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RemoteArtifactWalker.class);
+
+    static final int LISTING_PARALLELISM = 4;
+    static final int MAX_PENDING_FILES = 256;
+    static final int MAX_PENDING_DIRECTORIES = 1024;
+
+    private final AllureIoExecutor ioExecutor;
+    private final ArtifactDownloader downloader;
+    private final ArtifactLinkDataProvider dataProvider;
+    private final Path targetDir;
+    private final AllureResultsFilter filter;
+    private final AllureIngestionBudget budget;
+    private final int listingParallelism;
+    private final int maxPendingDirectories;
+    private final Semaphore pendingFiles;
+
+    private final Object lock = new Object();
+    private final Deque<String> directories = new ArrayDeque<>();
+    private final Set<Future<?>> running = new HashSet<>();
+    private int activeListings;
+    private int activeTransfers;
+    private long transferred;
+    private Throwable failure;
+
+    RemoteArtifactWalker(final AllureIoExecutor ioExecutor,
+                         final ArtifactDownloader downloader,
+                         final ArtifactLinkDataProvider dataProvider,
+                         final Path targetDir,
+                         final AllureResultsFilter filter,
+                         final AllureIngestionBudget budget) {
+        this(
+                ioExecutor, downloader, dataProvider, targetDir, filter, budget,
+                LISTING_PARALLELISM, MAX_PENDING_FILES, MAX_PENDING_DIRECTORIES
+        );
+    }
+
+    RemoteArtifactWalker(final AllureIoExecutor ioExecutor,
+                         final ArtifactDownloader downloader,
+                         final ArtifactLinkDataProvider dataProvider,
+                         final Path targetDir,
+                         final AllureResultsFilter filter,
+                         final AllureIngestionBudget budget,
+                         final int listingParallelism,
+                         final int maxPendingFiles,
+                         final int maxPendingDirectories) {
+        this.ioExecutor = ioExecutor;
+        this.downloader = downloader;
+        this.dataProvider = requireNonNull(dataProvider);
+        this.targetDir = targetDir;
+        this.filter = filter;
+        this.budget = budget;
+        this.listingParallelism = Math.max(1, listingParallelism);
+        this.maxPendingDirectories = Math.max(1, maxPendingDirectories);
+        this.pendingFiles = new Semaphore(Math.max(1, maxPendingFiles));
+    }
+
+    /**
+     * Walks the tree from its root and returns once every file has been downloaded. The first
+     * failure cancels the listings and downloads still running and is rethrown.
+     *
+     * @return the number of files downloaded
+     */
+    long walk() throws IOException {
+        synchronized (lock) {
+            directories.add("");
+            try {
+                while (failure == null) {
+                    while (activeListings < listingParallelism && !directories.isEmpty()) {
+                        final String tag = directories.poll();
+                        activeListings++;
+                        running.add(ioExecutor.fork(() -> list(tag)));
+                    }
+                    if (activeListings == 0 && activeTransfers == 0 && directories.isEmpty()) {
+                        LOGGER.debug("Downloaded {} files into {}", transferred, targetDir);
+                        return transferred;
+                    }
+                    running.removeIf(Future::isDone);
+                    lock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = new InterruptedIOException("Interrupted while downloading artifacts to " + targetDir);
+            } finally {
+                running.forEach(future -> future.cancel(true));
+            }
+            throw rethrow(failure);
+        }
+    }
+
+    private Void list(final String tag) {
+        try {
+            listTree(tag);
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (lock) {
+                activeListings--;
+                lock.notifyAll();
+            }
+        }
+        return null;
+    }
+
+    private void listTree(final String tag) throws IOException, InterruptedException {
+        final List<TrampolineArtifactFileData> listing = new ArrayList<>();
+        for (ArtifactFileData data : dataProvider.listObjects(tag)) {
+            if (data instanceof TrampolineArtifactFileData) {
+                listing.add((TrampolineArtifactFileData) data);
+            }
+        }
+        if (tag.isEmpty() && isSingleArchive(listing)) {
+            final ArtifactFileData archive = listing.get(0).getDelegate();
+            final URI uri = URI.create(requireNonNull(archive.getUrl()));
+            LOGGER.debug("Extracting the results archive {} into {}", archive.getName(), targetDir);
+            pendingFiles.acquire();
+            transfer(() -> downloader.read(uri, body -> ZipUtil.extract(body, archive.getName(), targetDir, filter::acceptsEntry, budget)));
+            return;
+        }
+        for (TrampolineArtifactFileData trampolineData : listing) {
+            if (budget.isExhausted()) {
+                return;
+            }
+            final ArtifactFileData delegateData = trampolineData.getDelegate();
+            if (delegateData.getFileType() == ArtifactFileData.FileType.REGULAR_FILE) {
+                final String name = delegateData.getName();
+                if (!filter.acceptsFile(name)) {
+                    continue;
+                }
+                final long allowance = budget.admit(name, AllureIngestionBudget.UNKNOWN_SIZE);
+                if (allowance != AllureIngestionBudget.REFUSED) {
+                    final Path target = targetDir.resolve(Paths.get(name).toFile().getName());
+                    final URI uri = URI.create(requireNonNull(delegateData.getUrl()));
+                    try {
+                        pendingFiles.acquire();
+                    } catch (InterruptedException e) {
+                        budget.release(allowance);
+                        throw e;
+                    }
+                    transfer(() -> download(uri, name, target, allowance));
+                }
+            } else if (filter.acceptsDirectory(trampolineData.getTag()) && !enqueue(trampolineData.getTag())) {
+                listTree(trampolineData.getTag());
+            }
+        }
+    }
+
+    /**
+     * Downloads a single file admitted with an unknown size, never past the room the budget
+     * reserved for it, and settles it with the budget.
+     *
+     * @return the number of files kept
+     */
+    private long download(final URI uri,
+                          final String name,
+                          final Path target,
+                          final long allowance) throws IOException {
+        long size;
+        try {
+            downloader.download(uri, target, allowance);
+            size = Files.size(target);
+        } catch (ArtifactDownloader.FileTooLargeException e) {
+            size = e.getSize();
+        } catch (IOException | RuntimeException e) {
+            budget.release(allowance);
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        if (budget.settle(name, allowance, size)) {
+            return 1;
+        }
+        Files.deleteIfExists(target);
+        return 0;
+    }
+
+    /**
+     * @return whether the directory was queued, or is to be listed by the caller.
+     */
+    private boolean enqueue(final String tag) {
+        synchronized (lock) {
+            if (failure != null) {
+                // the walk is aborted, nothing is listed anymore
+                return true;
+            }
+            if (directories.size() >= maxPendingDirectories) {
+                return false;
+            }
+            directories.add(tag);
+            lock.notifyAll();
+            return true;
+        }
+    }
+
+    /**
+     * An artifact holding nothing but a single archive is extracted instead of being downloaded.
+     */
+    private static boolean isSingleArchive(final List<TrampolineArtifactFileData> listing) {
+        if (listing.size() != 1) {
+            return false;
+        }
+        final ArtifactFileData data = listing.get(0).getDelegate();
+        return data.getFileType() == ArtifactFileData.FileType.REGULAR_FILE && ZipUtil.isArchive(data.getName());
+    }
+
+    /**
+     * Starts a transfer on the I/O executor, which returns the number of files it has written.
+     */
+    private void transfer(final AllureIoExecutor.IoTask<Long> task) {
+        synchronized (lock) {
+            activeTransfers++;
+            running.add(ioExecutor.submit(() -> {
+                try {
+                    final long files = task.call();
+                    synchronized (lock) {
+                        transferred += files;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    fail(e);
+                } finally {
+                    pendingFiles.release();
+                    synchronized (lock) {
+                        activeTransfers--;
+                        lock.notifyAll();
+                    }
+                }
+                return null;
+            }));
+        }
+    }
+
+    private void fail(final Exception e) {
+        synchronized (lock) {
+            if (failure == null) {
+                failure = e;
+            }
+            lock.notifyAll();
+        }
+    }
+
+    private static IOException rethrow(final Throwable failure) {
+        if (failure instanceof IOException) {
+            return (IOException) failure;
+        }
+        if (failure instanceof UncheckedIOException) {
+            return ((UncheckedIOException) failure).getCause();
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        return new IOException(failure);
+    }
+}
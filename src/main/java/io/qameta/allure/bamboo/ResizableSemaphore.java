@@ -0,0 +1,54 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Semaphore whose number of permits follows a setting that may change while permits are held.
+ */
+final class ResizableSemaphore extends Semaphore {
+
+    private static final long serialVersionUID = 1L;
+
+    private int permits;
+
+    ResizableSemaphore(final boolean fair) {
+        super(0, fair);
+    }
+
+    /**
+     * Changes the number of permits. Shrinking never takes permits back from their holders, the
+     * extra permits are simply not handed out again once released.
+     */
+    synchronized void resize(final int newPermits) {
+        final int delta = newPermits - permits;
+        if (delta > 0) {
+            release(delta);
+        } else if (delta < 0) {
+            reducePermits(-delta);
+        }
+        permits = newPermits;
+    }
+
+    synchronized int getPermits() {
+        return permits;
+    }
+
+    synchronized int getActivePermits() {
+        return Math.max(0, permits - availablePermits());
+    }
+}
@@ -17,9 +17,43 @@ package io.qameta.allure.bamboo;
 
 import com.atlassian.annotations.security.UnrestrictedAccess;
 import com.atlassian.bamboo.build.ChainResultsAction;
+import com.atlassian.bamboo.resultsummary.ResultsSummary;
+
+import java.util.Collections;
+import java.util.List;
 
 @UnrestrictedAccess
 public class ViewAllureReport extends ChainResultsAction {
 
     private static final long serialVersionUID = 1L;
+
+    /**
+     * Stage timings of the report generation of the viewed build, empty if none were recorded.
+     */
+    public List<AllureReportTimings.StageTiming> getAllureReportTimings() {
+        final ResultsSummary summary = getResultsSummary();
+        return summary == null
+                ? Collections.emptyList()
+                : AllureReportTimings.fromCustomData(summary.getCustomBuildData()).getStages();
+    }
+
+    /**
+     * What the report of the viewed build leaves out, {@code null} if it holds all results.
+     */
+    public String getAllurePartialDetails() {
+        final ResultsSummary summary = getResultsSummary();
+        if (summary == null) {
+            return null;
+        }
+        final AllureBuildResult result = AllureBuildResult.fromCustomData(summary.getCustomBuildData());
+        return result.isPartial() ? result.getFailureDetails() : null;
+    }
+
+    /**
+     * Attachment deduplication counts of the viewed build, {@code null} if none were recorded.
+     */
+    public AllureAttachmentDedupe getAllureAttachmentDedupe() {
+        final ResultsSummary summary = getResultsSummary();
+        return summary == null ? null : AllureAttachmentDedupe.fromCustomData(summary.getCustomBuildData());
+    }
 }
@@ -18,6 +18,7 @@ package io.qameta.allure.bamboo.config;
 import com.atlassian.bamboo.build.BuildDefinitionManager;
 import com.atlassian.bamboo.build.artifact.ArtifactLinkManager;
 import com.atlassian.bamboo.build.artifact.handlers.ArtifactHandlersService;
+import com.atlassian.bamboo.plan.cache.CachedPlanManager;
 import com.atlassian.bamboo.resultsummary.ResultsSummaryManager;
 import com.atlassian.bamboo.security.BambooPermissionManager;
 import com.atlassian.bamboo.template.TemplateRenderer;
@@ -28,6 +29,7 @@ import com.atlassian.plugins.osgi.javaconfig.configs.beans.ModuleFactoryBean;
 import com.atlassian.plugins.osgi.javaconfig.configs.beans.PluginAccessorBean;
 import com.atlassian.sal.api.ApplicationProperties;
 import com.atlassian.sal.api.auth.LoginUriProvider;
+import com.atlassian.sal.api.lifecycle.LifecycleAware;
 import com.atlassian.sal.api.pluginsettings.PluginSettingsFactory;
 import com.atlassian.sal.api.upgrade.PluginUpgradeTask;
 import com.atlassian.sal.api.user.UserManager;
@@ -35,9 +37,17 @@ import io.qameta.allure.bamboo.AllureArtifactsManager;
 import io.qameta.allure.bamboo.AllureCommandLineSupport;
 import io.qameta.allure.bamboo.AllureDownloader;
 import io.qameta.allure.bamboo.AllureExecutableProvider;
+import io.qameta.allure.bamboo.AllureGenerationLimiter;
+import io.qameta.allure.bamboo.AllureIoExecutor;
+import io.qameta.allure.bamboo.AllureOnDemandReportTrigger;
 import io.qameta.allure.bamboo.AllurePluginInstallTask;
+import io.qameta.allure.bamboo.AllureReportGenerator;
+import io.qameta.allure.bamboo.AllureReportQueue;
+import io.qameta.allure.bamboo.AllureReportRecovery;
+import io.qameta.allure.bamboo.AllureResultsPrestager;
 import io.qameta.allure.bamboo.AllureSettingsManager;
 import io.qameta.allure.bamboo.BambooExecutablesManager;
+import io.qameta.allure.bamboo.util.ArtifactDownloader;
 import org.osgi.framework.ServiceRegistration;
 import org.springframework.beans.factory.FactoryBean;
 import org.springframework.context.annotation.Bean;
@@ -97,6 +107,13 @@ public class AllurePluginJavaConfig {
         return importOsgiService(BuildDefinitionManager.class);
     }
 
+    // <component-import key="cachedPlanManager"
+    //                   interface="com.atlassian.bamboo.plan.cache.CachedPlanManager"/>
+    @Bean
+    public CachedPlanManager cachedPlanManager() {
+        return importOsgiService(CachedPlanManager.class);
+    }
+
     // <component-import key="renderer" interface="com.atlassian.templaterenderer.TemplateRenderer"/>
     @Bean
     public TemplateRenderer renderer() {
@@ -176,6 +193,16 @@ public class AllurePluginJavaConfig {
         );
     }
 
+    @Bean(destroyMethod = "shutdown")
+    public AllureIoExecutor allureIoExecutor(final AllureSettingsManager allureSettingsManager) {
+        return new AllureIoExecutor(allureSettingsManager);
+    }
+
+    @Bean(destroyMethod = "close")
+    public ArtifactDownloader allureArtifactDownloader() {
+        return new ArtifactDownloader();
+    }
+
     //    <component key="allureArtifactsUploader" name="Allure Artifacts Uploader"
     //               class="io.qameta.allure.bamboo.AllureArtifactsManager"/>
     @Bean
@@ -185,7 +212,9 @@ public class AllurePluginJavaConfig {
                                                           final ResultsSummaryManager resultsSummaryManager,
                                                           final ArtifactLinkManager artifactLinkManager,
                                                           final ApplicationProperties applicationProperties,
-                                                          final AllureSettingsManager allureSettingsManager) {
+                                                          final AllureSettingsManager allureSettingsManager,
+                                                          final AllureIoExecutor allureIoExecutor,
+                                                          final ArtifactDownloader allureArtifactDownloader) {
         return new AllureArtifactsManager(
                 pluginAccessor,
                 artifactHandlersService,
@@ -193,10 +222,72 @@ public class AllurePluginJavaConfig {
                 resultsSummaryManager,
                 artifactLinkManager,
                 applicationProperties,
-                allureSettingsManager
+                allureSettingsManager,
+                allureIoExecutor,
+                allureArtifactDownloader
+        );
+    }
+
+    @Bean
+    public AllureReportGenerator allureReportGenerator(final AllureExecutableProvider allureExecutableProvider,
+                                                       final AllureArtifactsManager allureArtifactsUploader,
+                                                       final BambooExecutablesManager bambooExecutableManager,
+                                                       final ResultsSummaryManager resultsSummaryManager,
+                                                       final AllureIoExecutor allureIoExecutor,
+                                                       final AllureResultsPrestager allureResultsPrestager) {
+        return new AllureReportGenerator(
+                allureExecutableProvider,
+                allureArtifactsUploader,
+                bambooExecutableManager,
+                resultsSummaryManager,
+                allureIoExecutor,
+                allureResultsPrestager
+        );
+    }
+
+    @Bean
+    public AllureResultsPrestager allureResultsPrestager(final AllureArtifactsManager allureArtifactsUploader,
+                                                         final AllureIoExecutor allureIoExecutor) {
+        return new AllureResultsPrestager(allureArtifactsUploader, allureIoExecutor);
+    }
+
+    @Bean
+    public AllureGenerationLimiter allureGenerationLimiter(final AllureSettingsManager allureSettingsManager) {
+        return new AllureGenerationLimiter(allureSettingsManager);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public AllureReportQueue allureReportQueue(final AllureReportGenerator allureReportGenerator,
+                                               final ResultsSummaryManager resultsSummaryManager,
+                                               final AllureGenerationLimiter allureGenerationLimiter) {
+        return new AllureReportQueue(allureReportGenerator, resultsSummaryManager, allureGenerationLimiter);
+    }
+
+    @Bean
+    public AllureOnDemandReportTrigger allureOnDemandReportTrigger(final CachedPlanManager cachedPlanManager,
+                                                                   final ResultsSummaryManager resultsSummaryManager,
+                                                                   final AllureSettingsManager allureSettingsManager,
+                                                                   final AllureReportQueue allureReportQueue) {
+        return new AllureOnDemandReportTrigger(
+                cachedPlanManager,
+                resultsSummaryManager,
+                allureSettingsManager,
+                allureReportQueue
         );
     }
 
+    @Bean
+    public AllureReportRecovery allureReportRecovery(final AllureSettingsManager allureSettingsManager,
+                                                     final AllureOnDemandReportTrigger allureOnDemandReportTrigger) {
+        return new AllureReportRecovery(allureSettingsManager, allureOnDemandReportTrigger);
+    }
+
+    // Exports the recovery as an OSGi service so SAL calls it once Bamboo has started
+    @Bean
+    public FactoryBean<ServiceRegistration> registerAllureReportRecovery(final AllureReportRecovery allureReportRecovery) {
+        return exportOsgiService(allureReportRecovery, ExportOptions.as(LifecycleAware.class));
+    }
+
     //    <component key="allureInstallTask" name="Allure Install Task"
     //               class="io.qameta.allure.bamboo.AllurePluginInstallTask" public="true">
     //        <interface>com.atlassian.sal.api.upgrade.PluginUpgradeTask</interface>
@@ -47,6 +47,12 @@ public abstract class AbstractAddInfo implements Serializable {
             LOGGER.error("Failed to create output directory " + outputDirectory, e);
         }
         final Path testRun = outputDirectory.resolve(getFileName());
+        try {
+            // the results may be hard links to the build artifacts, which must stay untouched
+            Files.deleteIfExists(testRun);
+        } catch (IOException e) {
+            LOGGER.error("Failed to replace the file " + testRun, e);
+        }
         try (Writer writer = Files.newBufferedWriter(testRun, StandardCharsets.UTF_8)) {
             final ObjectMapper mapper = new JsonMapper();
             mapper.writeValue(writer, getData());
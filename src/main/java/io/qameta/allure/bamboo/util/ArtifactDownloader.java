@@ -0,0 +1,457 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.lang.Integer.getInteger;
+
+/**
+ * Downloads artifact files over a shared {@link HttpClient}, so connections are reused across
+ * files. A transfer that breaks off, or receives nothing for the idle timeout, is retried a few
+ * times, resuming from the bytes already on disk with an HTTP range request. Each file is checked
+ * against the size announced by the server, and a resumed transfer is only appended when the server
+ * still has the same version of the file. A transfer may be limited to a number of bytes, and is
+ * given up as soon as the file turns out to be larger.
+ */
+public final class ArtifactDownloader implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactDownloader.class);
+
+    private static final Duration CONN_TIMEOUT =
+            Duration.ofSeconds(getInteger("allure.artifact.download.conn.timeout.sec", 20));
+    private static final Duration READ_TIMEOUT =
+            Duration.ofSeconds(getInteger("allure.artifact.download.timeout.sec", 120));
+    private static final Duration IDLE_TIMEOUT =
+            Duration.ofSeconds(getInteger("allure.artifact.download.idle.timeout.sec", 60));
+    private static final int ATTEMPTS = getInteger("allure.artifact.download.attempts", 3);
+    private static final long CHUNK_SIZE = 1024 * 1024;
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-\\d+/(\\d+|\\*)");
+    private static final String ETAG = "ETag";
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_PARTIAL = 206;
+    private static final int HTTP_TIMEOUT = 408;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final int HTTP_SERVER_ERROR = 500;
+
+    private final HttpClient client;
+    private final int attempts;
+    private final Duration backoff;
+    private final Duration idleTimeout;
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "allure-artifact-download-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ArtifactDownloader() {
+        this(
+                HttpClient.newBuilder()
+                        .connectTimeout(CONN_TIMEOUT)
+                        .followRedirects(HttpClient.Redirect.NORMAL)
+                        .build(),
+                ATTEMPTS,
+                Duration.ofSeconds(1),
+                IDLE_TIMEOUT
+        );
+    }
+
+    ArtifactDownloader(final HttpClient client,
+                       final int attempts,
+                       final Duration backoff,
+                       final Duration idleTimeout) {
+        this.client = client;
+        this.attempts = Math.max(1, attempts);
+        this.backoff = backoff;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Downloads the given url into the target file, replacing it. Urls other than http(s) are
+     * copied with a plain stream.
+     */
+    public void download(final URI uri,
+                         final Path target) throws IOException {
+        download(uri, target, Long.MAX_VALUE);
+    }
+
+    /**
+     * Downloads the given url into the target file, unless it is larger than the given number of
+     * bytes. The target file never grows past the limit; the part of a larger file received up to
+     * the limit is left in it.
+     *
+     * @throws FileTooLargeException as soon as the file is known to exceed the limit
+     */
+    public void download(final URI uri,
+                         final Path target,
+                         final long maxBytes) throws IOException {
+        if (!isHttp(uri)) {
+            try (InputStream input = uri.toURL().openStream();
+                 FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                         StandardOpenOption.TRUNCATE_EXISTING);
+                 ReadableByteChannel in = Channels.newChannel(input)) {
+                copy(in, out, 0, maxBytes, uri);
+            }
+            return;
+        }
+        Files.deleteIfExists(target);
+        final Transfer transfer = new Transfer(uri, target, maxBytes);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transfer.run();
+                return;
+            } catch (InterruptedIOException e) {
+                throw e;
+            } catch (IOException e) {
+                if (!transfer.retryable || attempt >= attempts) {
+                    throw e;
+                }
+                LOGGER.warn("Download of {} broke off at {} bytes, retrying: {}", uri, transfer.received(), e.getMessage());
+                pause(attempt);
+            }
+        }
+    }
+
+    /**
+     * Hands the body of the given url to the reader while it arrives, without storing it. As the
+     * stream cannot be resumed, a failed read is retried from the start, so the reader must be
+     * able to run again.
+     */
+    public <T> T read(final URI uri,
+                      final BodyReader<T> reader) throws IOException {
+        if (!isHttp(uri)) {
+            try (InputStream input = uri.toURL().openStream()) {
+                return reader.read(input);
+            }
+        }
+        for (int attempt = 1; ; attempt++) {
+            boolean retryable = true;
+            try {
+                final HttpRequest request = HttpRequest.newBuilder(uri).timeout(READ_TIMEOUT).GET().build();
+                final HttpResponse<InputStream> response = send(request, uri);
+                try (InputStream body = new WatchedBody(response.body(), uri)) {
+                    if (response.statusCode() != HTTP_OK) {
+                        retryable = isRetryable(response.statusCode());
+                        throw unexpectedStatus(response.statusCode(), uri);
+                    }
+                    return reader.read(body);
+                }
+            } catch (InterruptedIOException e) {
+                throw e;
+            } catch (IOException e) {
+                if (!retryable || attempt >= attempts) {
+                    throw e;
+                }
+                LOGGER.warn("Reading {} failed, retrying: {}", uri, e.getMessage());
+                pause(attempt);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        watchdog.shutdownNow();
+        client.close();
+    }
+
+    /**
+     * Copies the channel into the file from the given position, writing no more than the limit.
+     * One byte is read past the limit to tell a file of exactly that size from a larger one.
+     */
+    private static void copy(final ReadableByteChannel in,
+                             final FileChannel out,
+                             final long start,
+                             final long maxBytes,
+                             final URI uri) throws IOException {
+        long position = start;
+        while (true) {
+            final long count = Math.min(CHUNK_SIZE, maxBytes - position);
+            if (count <= 0) {
+                if (in.read(ByteBuffer.allocate(1)) > 0) {
+                    throw new FileTooLargeException(uri, position + 1);
+                }
+                return;
+            }
+            final long transferred = out.transferFrom(in, position, count);
+            if (transferred <= 0) {
+                return;
+            }
+            position += transferred;
+        }
+    }
+
+    private static boolean isHttp(final URI uri) {
+        return "http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme());
+    }
+
+    private static boolean isRetryable(final int status) {
+        return status == HTTP_TIMEOUT || status == HTTP_TOO_MANY_REQUESTS || status >= HTTP_SERVER_ERROR;
+    }
+
+    private static IOException unexpectedStatus(final int status,
+                                                final URI uri) {
+        return new IOException("Unexpected HTTP status " + status + " for " + uri);
+    }
+
+    private HttpResponse<InputStream> send(final HttpRequest request,
+                                           final URI uri) throws IOException {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while downloading " + uri);
+        }
+    }
+
+    private void pause(final int attempt) throws InterruptedIOException {
+        try {
+            Thread.sleep(backoff.multipliedBy(attempt).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while retrying a download");
+        }
+    }
+
+    /**
+     * State of a single file download across its attempts.
+     */
+    private final class Transfer {
+
+        private final URI uri;
+        private final Path target;
+        private final long maxBytes;
+        private String etag;
+        private long expectedSize = -1;
+        private boolean retryable = true;
+
+        private Transfer(final URI uri,
+                         final Path target,
+                         final long maxBytes) {
+            this.uri = uri;
+            this.target = target;
+            this.maxBytes = maxBytes;
+        }
+
+        private long received() throws IOException {
+            return Files.exists(target) ? Files.size(target) : 0;
+        }
+
+        private void run() throws IOException {
+            final long offset = received();
+            if (expectedSize >= 0 && offset == expectedSize) {
+                return;
+            }
+            final HttpRequest.Builder request = HttpRequest.newBuilder(uri).timeout(READ_TIMEOUT).GET();
+            if (offset > 0) {
+                request.header("Range", "bytes=" + offset + "-");
+                if (etag != null) {
+                    // the server answers with the whole file if it has changed since
+                    request.header("If-Range", etag);
+                }
+            }
+            final HttpResponse<InputStream> response = send(request.build(), uri);
+            try (InputStream body = new WatchedBody(response.body(), uri)) {
+                final int status = response.statusCode();
+                final long position;
+                if (status == HTTP_PARTIAL) {
+                    position = partialStart(response.headers());
+                    checkResumed(response.headers(), position, offset);
+                } else if (status == HTTP_OK) {
+                    // the whole file, also when the server ignores the range or the file has changed
+                    position = 0;
+                    etag = response.headers().firstValue(ETAG).orElse(null);
+                    expectedSize = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+                    Files.deleteIfExists(target);
+                    checkLimit(expectedSize);
+                } else {
+                    retryable = isRetryable(status);
+                    throw unexpectedStatus(status, uri);
+                }
+                write(body, position);
+            }
+            if (expectedSize >= 0 && received() != expectedSize) {
+                throw new IOException("Received " + received() + " of " + expectedSize + " bytes of " + uri);
+            }
+        }
+
+        private long partialStart(final HttpHeaders headers) throws IOException {
+            final Matcher range = CONTENT_RANGE.matcher(headers.firstValue("Content-Range").orElse(""));
+            if (!range.matches()) {
+                throw new IOException("Invalid Content-Range for " + uri);
+            }
+            if (!"*".equals(range.group(2))) {
+                expectedSize = Long.parseLong(range.group(2));
+            }
+            return Long.parseLong(range.group(1));
+        }
+
+        /**
+         * Makes sure a partial response continues the very version of the file received so far.
+         */
+        private void checkResumed(final HttpHeaders headers,
+                                  final long position,
+                                  final long offset) throws IOException {
+            final Optional<String> responseEtag = headers.firstValue(ETAG);
+            if (position != offset || etag != null && responseEtag.isPresent() && !etag.equals(responseEtag.get())) {
+                Files.deleteIfExists(target);
+                throw new IOException("Server did not resume " + uri + " at " + offset + ", starting over");
+            }
+        }
+
+        private void write(final InputStream body,
+                           final long start) throws IOException {
+            try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 ReadableByteChannel in = Channels.newChannel(body)) {
+                copy(in, out, start, maxBytes, uri);
+            } catch (FileTooLargeException e) {
+                retryable = false;
+                throw e;
+            }
+        }
+
+        private void checkLimit(final long size) throws FileTooLargeException {
+            if (size > maxBytes) {
+                retryable = false;
+                throw new FileTooLargeException(uri, size);
+            }
+        }
+    }
+
+    /**
+     * Response body that is closed once no bytes have arrived for the idle timeout. The request
+     * timeout only bounds the wait for the response headers, so without it a server that stops
+     * sending half-way would hold the transfer until the connection drops. Closing the body fails
+     * the pending read, and the transfer is retried.
+     */
+    private final class WatchedBody extends FilterInputStream {
+
+        private final URI uri;
+        private final ScheduledFuture<?> check;
+        private volatile long lastRead = System.nanoTime();
+        private volatile boolean stalled;
+
+        private WatchedBody(final InputStream body,
+                            final URI uri) {
+            super(body);
+            this.uri = uri;
+            final long period = Math.max(1, idleTimeout.toMillis() / 4);
+            this.check = watchdog.scheduleWithFixedDelay(this::check, period, period, TimeUnit.MILLISECONDS);
+        }
+
+        private void check() {
+            if (!stalled && System.nanoTime() - lastRead > idleTimeout.toNanos()) {
+                stalled = true;
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    LOGGER.debug("Failed to close the stalled body of {}", uri, e);
+                }
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                final int read = super.read();
+                lastRead = System.nanoTime();
+                return read;
+            } catch (IOException e) {
+                throw stalled ? stalledException(e) : e;
+            }
+        }
+
+        @Override
+        public int read(final byte[] buffer,
+                        final int offset,
+                        final int length) throws IOException {
+            try {
+                final int read = super.read(buffer, offset, length);
+                lastRead = System.nanoTime();
+                return read;
+            } catch (IOException e) {
+                throw stalled ? stalledException(e) : e;
+            }
+        }
+
+        private IOException stalledException(final IOException cause) {
+            return new IOException("No data received from " + uri + " for " + idleTimeout.toMillis() + " ms", cause);
+        }
+
+        @Override
+        public void close() throws IOException {
+            check.cancel(false);
+            super.close();
+        }
+    }
+
+    /**
+     * Thrown when a file exceeds the size a download is limited to.
+     */
+    public static final class FileTooLargeException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long size;
+
+        private FileTooLargeException(final URI uri,
+                                      final long size) {
+            super(uri + " exceeds the size limit with " + size + " bytes");
+            this.size = size;
+        }
+
+        /**
+         * @return the size of the file, or the bytes received up to the limit if it is unknown
+         */
+        public long getSize() {
+            return size;
+        }
+    }
+
+    /**
+     * Consumes a downloaded body as it arrives.
+     */
+    @FunctionalInterface
+    public interface BodyReader<T> {
+
+        T read(InputStream body) throws IOException;
+    }
+}
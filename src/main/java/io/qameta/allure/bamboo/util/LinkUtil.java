@@ -0,0 +1,149 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.function.Predicate;
+
+/**
+ * Stages files by hard-linking them instead of copying their bytes. Linked files share their
+ * content with the source, so they must be replaced rather than written to.
+ */
+public final class LinkUtil {
+
+    private LinkUtil() {
+        // do not instantiate
+    }
+
+    /**
+     * Recreates the tree of the source directory under the target directory with hard links to the
+     * source files. Once a file cannot be linked, typically because the target is on another
+     * device, the remaining files are copied.
+     *
+     * @return the number of files linked rather than copied
+     */
+    public static long linkTree(final @NotNull Path source,
+                                final @NotNull Path target) throws IOException {
+        return linkTree(source, target, path -> true, path -> true);
+    }
+
+    /**
+     * Links the files of the source tree the filters accept. Both filters are given paths relative
+     * to the source directory; directories that are not accepted are skipped with their contents.
+     *
+     * @return the number of files linked rather than copied
+     */
+    public static long linkTree(final @NotNull Path source,
+                                final @NotNull Path target,
+                                final @NotNull Predicate<Path> files,
+                                final @NotNull Predicate<Path> directories) throws IOException {
+        final TreeLinker linker = new TreeLinker(source, target, files, directories, true);
+        Files.walkFileTree(source, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, linker);
+        return linker.linked;
+    }
+
+    /**
+     * Copies the files of the source tree the filters accept, see
+     * {@link #linkTree(Path, Path, Predicate, Predicate)}.
+     */
+    public static void copyTree(final @NotNull Path source,
+                                final @NotNull Path target,
+                                final @NotNull Predicate<Path> files,
+                                final @NotNull Predicate<Path> directories) throws IOException {
+        final TreeLinker copier = new TreeLinker(source, target, files, directories, false);
+        Files.walkFileTree(source, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, copier);
+    }
+
+    /**
+     * Hard-links the target to the source file, or copies it when the file system refuses the link.
+     *
+     * @return whether the file was linked
+     */
+    public static boolean linkOrCopy(final @NotNull Path source,
+                                     final @NotNull Path target) throws IOException {
+        try {
+            Files.createLink(target, source);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            throw e;
+        } catch (FileSystemException | UnsupportedOperationException e) {
+            Files.copy(source, target);
+            return false;
+        }
+    }
+
+    private static final class TreeLinker extends SimpleFileVisitor<Path> {
+
+        private final Path source;
+        private final Path target;
+        private final Predicate<Path> files;
+        private final Predicate<Path> directories;
+        private boolean linking;
+        private long linked;
+
+        private TreeLinker(final Path source,
+                           final Path target,
+                           final Predicate<Path> files,
+                           final Predicate<Path> directories,
+                           final boolean linking) {
+            this.source = source;
+            this.target = target;
+            this.files = files;
+            this.directories = directories;
+            this.linking = linking;
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(final Path dir,
+                                                 final BasicFileAttributes attrs) throws IOException {
+            final Path relative = source.relativize(dir);
+            if (!dir.equals(source) && !directories.test(relative)) {
+                return FileVisitResult.SKIP_SUBTREE;
+            }
+            Files.createDirectories(target.resolve(relative));
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(final Path file,
+                                         final BasicFileAttributes attrs) throws IOException {
+            final Path relative = source.relativize(file);
+            if (!files.test(relative)) {
+                return FileVisitResult.CONTINUE;
+            }
+            final Path staged = target.resolve(relative);
+            if (!linking) {
+                Files.copy(file, staged);
+            } else if (linkOrCopy(file, staged)) {
+                linked++;
+            } else {
+                linking = false;
+            }
+            return FileVisitResult.CONTINUE;
+        }
+    }
+}
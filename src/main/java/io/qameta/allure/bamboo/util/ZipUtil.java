@@ -15,30 +15,38 @@
  */
 package io.qameta.allure.bamboo.util;
 
+import io.qameta.allure.bamboo.AllureIngestionBudget;
 import io.qameta.allure.bamboo.AllurePluginException;
 import net.lingala.zip4j.ZipFile;
 import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.ArchiveException;
 import org.apache.commons.compress.archivers.ArchiveInputStream;
 import org.apache.commons.compress.archivers.ArchiveStreamFactory;
-import org.apache.commons.compress.utils.IOUtils;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
 import org.apache.commons.io.FileUtils;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
 
 public final class ZipUtil {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ZipUtil.class);
-    private static final String DIRECTORY_CREATE_ERROR = "The directory: %s couldn't be created successfully";
+    private static final String ZIP_SUFFIX = ".zip";
+    private static final String TAR_GZ_SUFFIX = ".tar.gz";
+    private static final String TGZ_SUFFIX = ".tgz";
+    private static final int BUFFER_SIZE = 64 * 1024;
 
     private ZipUtil() {
         // do not instantiate
@@ -52,36 +60,179 @@ public final class ZipUtil {
 
         try (InputStream zipStream = Files.newInputStream(zipFilePath)) {
             try (ArchiveInputStream ais = asf.createArchiveInputStream(ArchiveStreamFactory.ZIP, zipStream)) {
-                ArchiveEntry entry = ais.getNextEntry();
-                while (entry != null) {
-                    final Path entryPath = Path.of(outputDir, entry.getName());
-                    if (!entryPath.normalize().startsWith(outputDir)) {
-                        throw new IOException("Invalid zip file");
-                    }
-                    final File entryFile = entryPath.toFile();
-                    if (!entry.isDirectory()) {
-                        final File parentEntryFile = entryFile.getParentFile();
-                        if (parentEntryFile.isDirectory() && !(parentEntryFile.mkdirs() || parentEntryFile.exists())) {
-                            throw new IOException(String.format(DIRECTORY_CREATE_ERROR, parentEntryFile.getPath()));
-                        }
-
-                        try (OutputStream outputStream = Files.newOutputStream(entryPath)) {
-                            IOUtils.copy(ais, outputStream);
-                        }
-                    } else if (!(entryFile.mkdirs() || entryFile.exists())) {
-                        throw new IOException(String.format(DIRECTORY_CREATE_ERROR, entryFile.getPath()));
-                    }
-                    entry = ais.getNextEntry();
+                extractEntries(ais, Path.of(outputDir), name -> true, AllureIngestionBudget.unlimited(), new Extraction());
+            }
+        }
+    }
+
+    /**
+     * Whether the file is a {@code .zip}, {@code .tar.gz} or {@code .tgz} archive that
+     * {@link #extract(InputStream, String, Path, Predicate)} can read.
+     */
+    public static boolean isArchive(final @NotNull String fileName) {
+        final String name = fileName.toLowerCase(Locale.ROOT);
+        return name.endsWith(ZIP_SUFFIX) || name.endsWith(TAR_GZ_SUFFIX) || name.endsWith(TGZ_SUFFIX);
+    }
+
+    /**
+     * Extracts the archive while it is read from the stream, without storing the archive itself.
+     * The format is taken from the archive file name.
+     *
+     * @param entries the entry paths to extract, others are skipped
+     * @return the number of files extracted
+     */
+    public static long extract(final @NotNull InputStream archive,
+                               final @NotNull String archiveName,
+                               final @NotNull Path outputDir,
+                               final @NotNull Predicate<String> entries) throws IOException {
+        return extract(archive, archiveName, outputDir, entries, AllureIngestionBudget.unlimited());
+    }
+
+    /**
+     * Extracts the entries the budget admits. Entries of unknown size are written up to the single
+     * file limit and settled afterwards; extraction ends once the budget is exhausted. If the
+     * extraction fails, what it admitted is given back to the budget, so it can be made again.
+     *
+     * @return the number of files extracted
+     */
+    public static long extract(final @NotNull InputStream archive,
+                               final @NotNull String archiveName,
+                               final @NotNull Path outputDir,
+                               final @NotNull Predicate<String> entries,
+                               final @NotNull AllureIngestionBudget budget) throws IOException {
+        final Extraction extraction = new Extraction();
+        try {
+            extract(archive, archiveName, outputDir, entries, budget, extraction);
+        } catch (IOException | RuntimeException e) {
+            budget.refund(extraction.files, extraction.bytes);
+            throw e;
+        }
+        return extraction.files;
+    }
+
+    private static void extract(final InputStream archive,
+                                final String archiveName,
+                                final Path outputDir,
+                                final Predicate<String> entries,
+                                final AllureIngestionBudget budget,
+                                final Extraction extraction) throws IOException {
+        final String name = archiveName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(ZIP_SUFFIX)) {
+            // entries are not read from the central directory at the end, so allow data descriptors
+            try (ArchiveInputStream ais = new ZipArchiveInputStream(archive, StandardCharsets.UTF_8.name(), true, true)) {
+                extractEntries(ais, outputDir, entries, budget, extraction);
+                return;
+            }
+        }
+        if (name.endsWith(TAR_GZ_SUFFIX) || name.endsWith(TGZ_SUFFIX)) {
+            try (ArchiveInputStream ais = new TarArchiveInputStream(new GZIPInputStream(archive, BUFFER_SIZE))) {
+                extractEntries(ais, outputDir, entries, budget, extraction);
+                return;
+            }
+        }
+        throw new IOException("Unsupported archive " + archiveName);
+    }
+
+    private static void extractEntries(final ArchiveInputStream ais,
+                                       final Path outputDir,
+                                       final Predicate<String> entries,
+                                       final AllureIngestionBudget budget,
+                                       final Extraction extraction) throws IOException {
+        final Path root = outputDir.toAbsolutePath().normalize();
+        ArchiveEntry entry = ais.getNextEntry();
+        while (entry != null && !budget.isExhausted()) {
+            final Path entryPath = root.resolve(entry.getName()).normalize();
+            if (!entryPath.startsWith(root)) {
+                throw new IOException("Invalid archive entry " + entry.getName());
+            }
+            final String relativePath = root.relativize(entryPath).toString();
+            if (entry.isDirectory()) {
+                Files.createDirectories(entryPath);
+            } else if (ais.canReadEntryData(entry) && entries.test(relativePath)) {
+                extractEntry(ais, entryPath, relativePath, entry.getSize(), budget, extraction);
+            }
+            entry = ais.getNextEntry();
+        }
+    }
+
+    /**
+     * Extracts the entry unless the budget refuses it, and counts it into the extraction if kept.
+     */
+    private static void extractEntry(final InputStream ais,
+                                     final Path entryPath,
+                                     final String relativePath,
+                                     final long size,
+                                     final AllureIngestionBudget budget,
+                                     final Extraction extraction) throws IOException {
+        final long allowance = budget.admit(relativePath, size < 0 ? AllureIngestionBudget.UNKNOWN_SIZE : size);
+        if (allowance == AllureIngestionBudget.REFUSED) {
+            return;
+        }
+        final long written;
+        try {
+            Files.createDirectories(entryPath.getParent());
+            written = copy(ais, entryPath, allowance);
+        } catch (IOException e) {
+            if (size < 0) {
+                budget.release(allowance);
+            } else {
+                budget.refund(1, size);
+            }
+            throw e;
+        }
+        final boolean kept;
+        if (size < 0) {
+            kept = budget.settle(relativePath, allowance, written);
+        } else {
+            kept = written <= allowance;
+            if (!kept) {
+                // larger than its header claims
+                budget.refund(1, size);
+            }
+        }
+        if (kept) {
+            extraction.files++;
+            extraction.bytes += size < 0 ? written : size;
+        } else {
+            Files.delete(entryPath);
+        }
+    }
+
+    /**
+     * Copies the entry, stopping once it turns out to be larger than the limit, without writing
+     * past it; the rest of the entry is skipped by the archive stream.
+     *
+     * @return the bytes written, or more than the limit if the entry exceeds it
+     */
+    private static long copy(final InputStream in,
+                             final Path target,
+                             final long limit) throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        long written = 0;
+        try (OutputStream out = Files.newOutputStream(target)) {
+            int read = in.read(buffer);
+            while (read >= 0) {
+                if (read > limit - written) {
+                    return written + read;
                 }
+                out.write(buffer, 0, read);
+                written += read;
+                read = in.read(buffer);
             }
         }
+        return written;
     }
 
+    /**
+     * Packs the report folder into the target file. The archive is written in a temporary
+     * directory under the given scratch directory first, as the target may lie in the folder.
+     */
     public static void zipReportFolder(final @NotNull Path srcFolder,
-                                       final @NotNull Path targetDir)
+                                       final @NotNull Path targetDir,
+                                       final @NotNull Path scratchDir)
             throws IOException {
         try {
-            final Path zipReportTmpDir = Files.createTempDirectory("tmp_allure_report");
+            final Path zipReportTmpDir = Files.createTempDirectory(scratchDir, "tmp_allure_report");
             final Path zipReport = zipReportTmpDir.resolve("report.zip");
             try (ZipFile zp = new ZipFile(zipReport.toFile())) {
                 zp.addFolder(srcFolder.toFile());
@@ -93,4 +244,13 @@ public final class ZipUtil {
             throw new AllurePluginException("Unexpected error", e);
         }
     }
+
+    /**
+     * Files kept by an extraction, and their size as charged to the budget.
+     */
+    private static final class Extraction {
+
+        private long files;
+        private long bytes;
+    }
 }
@@ -7,8 +7,21 @@
     list=uiConfigBean.getExecutableLabels('allure') dependsOn='custom.allure.config.enabled' showOn='true'
     extraUtility=addExecutableLink /]
 
+    [@ww.checkbox labelKey='custom.allure.config.coalesce.builds.label' name='custom.allure.config.coalesce.builds' toggle='false' /]
+
+    [@ww.checkbox labelKey='custom.allure.config.generate.on.demand.label' name='custom.allure.config.generate.on.demand' toggle='false' /]
+
+    [@ww.textfield labelKey="custom.allure.config.priority.label" name="custom.allure.config.priority" required="false"
+    descriptionKey="custom.allure.config.priority.description"/]
+
     [@ww.textfield labelKey="custom.allure.artifact.name.label" name="custom.allure.artifact.name" required="false"/]
 
+    [@ww.textfield labelKey="custom.allure.config.results.include.label" name="custom.allure.config.results.include" required="false"
+    descriptionKey="custom.allure.config.results.include.description"/]
+
+    [@ww.textfield labelKey="custom.allure.config.results.exclude.label" name="custom.allure.config.results.exclude" required="false"
+    descriptionKey="custom.allure.config.results.exclude.description"/]
+
     [@ww.textfield labelKey="custom.allure.logo.url.label" name="custom.allure.logo.url" required="false"/]
 
     [@ww.textfield labelKey="custom.allure.max.stored.reports.count.label" name="custom.allure.max.stored.reports.count" required="false"/]
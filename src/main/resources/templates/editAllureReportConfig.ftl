@@ -29,6 +29,68 @@ cancelUri='/admin/editAllureReportConfig.action'
     [@ww.textfield labelKey='custom.allure.config.download.url.label' name='downloadBaseUrl' required='true'/]
 
     [@ww.textfield labelKey='custom.allure.config.local.storage.label' name='localStoragePath' required='true'/]
+
+    [@ww.textfield labelKey='custom.allure.config.scratch.path.label' name='scratchPath'
+    descriptionKey='custom.allure.config.scratch.path.description'/]
+
+    [@ww.textfield labelKey='custom.allure.config.max.concurrent.generations.label' name='maxConcurrentGenerations'
+    descriptionKey='custom.allure.config.max.concurrent.generations.description'/]
+
+    [@ww.textfield labelKey='custom.allure.config.max.io.concurrency.label' name='maxIoConcurrency'
+    descriptionKey='custom.allure.config.max.io.concurrency.description'/]
+
+    [@ww.textfield labelKey='custom.allure.config.max.parallel.downloads.label' name='maxParallelDownloads'
+    descriptionKey='custom.allure.config.max.parallel.downloads.description'/]
+
+    [@ww.select labelKey='custom.allure.config.staging.mode.label' name='stagingMode' list=stagingModes
+    descriptionKey='custom.allure.config.staging.mode.description'/]
+
+    [@ww.textfield labelKey='custom.allure.config.max.results.mb.label' name='maxResultsMb'
+    descriptionKey='custom.allure.config.max.results.mb.description'/]
+
+    [@ww.textfield labelKey='custom.allure.config.max.results.files.label' name='maxResultsFiles'
+    descriptionKey='custom.allure.config.max.results.files.description'/]
+
+    [@ww.textfield labelKey='custom.allure.config.max.result.file.mb.label' name='maxResultFileMb'
+    descriptionKey='custom.allure.config.max.result.file.mb.description'/]
+
+    [@ww.select labelKey='custom.allure.config.oversize.action.label' name='oversizeAction' list=oversizeActions
+    descriptionKey='custom.allure.config.oversize.action.description'/]
+
+    [@ww.textfield labelKey='custom.allure.config.history.max.items.label' name='historyMaxItems'
+    descriptionKey='custom.allure.config.history.max.items.description'/]
+
+    [@ww.textfield labelKey='custom.allure.config.history.max.age.builds.label' name='historyMaxAgeBuilds'
+    descriptionKey='custom.allure.config.history.max.age.builds.description'/]
+
+    [@ww.textfield labelKey='custom.allure.config.history.trend.window.label' name='historyTrendWindow'
+    descriptionKey='custom.allure.config.history.trend.window.description'/]
 [/@ww.form]
+
+<h2>[@ww.text name='admin.allureReportConfig.generations.title' /]</h2>
+<table class="aui">
+    <tbody>
+    <tr>
+        <th>[@ww.text name='admin.allureReportConfig.generations.permits' /]</th>
+        <td>${generationPermits}</td>
+    </tr>
+    <tr>
+        <th>[@ww.text name='admin.allureReportConfig.generations.active' /]</th>
+        <td>${activeGenerations}</td>
+    </tr>
+    <tr>
+        <th>[@ww.text name='admin.allureReportConfig.generations.queued' /]</th>
+        <td>${queuedGenerations}</td>
+    </tr>
+    <tr>
+        <th>[@ww.text name='admin.allureReportConfig.generations.wait.last' /]</th>
+        <td>${lastQueueWaitMillis?c} ms</td>
+    </tr>
+    <tr>
+        <th>[@ww.text name='admin.allureReportConfig.generations.wait.average' /]</th>
+        <td>${averageQueueWaitMillis?c} ms</td>
+    </tr>
+    </tbody>
+</table>
 </body>
 </html>
\ No newline at end of file
@@ -24,6 +24,41 @@
 <body>
 <a style="float: left;" id="allure-report-expand-link" target="_blank" href="${reportUrl}">Expand</a>&nbsp;
 <a style="float: right;" id="allure-report-export-link" target="_blank" href="${reportZipUrl}">Download</a>&nbsp;
+[#if allurePartialDetails??]
+<div id="allure-report-partial" class="aui-message aui-message-warning" style="clear: both;">
+    <p class="title">This report is partial</p>
+    <p>${allurePartialDetails}</p>
+</div>
+[/#if]
+[#if allureReportTimings?has_content]
+<details id="allure-report-timings" style="clear: both;">
+    <summary>Report generation timings</summary>
+    <table class="aui">
+        <thead>
+        <tr>
+            <th>Stage</th>
+            <th>Duration</th>
+            <th>Size</th>
+        </tr>
+        </thead>
+        <tbody>
+        [#list allureReportTimings as timing]
+        <tr>
+            <td>${timing.stage}</td>
+            <td>${timing.millis?c} ms</td>
+            <td>${timing.size}</td>
+        </tr>
+        [/#list]
+        </tbody>
+    </table>
+    [#if allureAttachmentDedupe??]
+    <p id="allure-attachment-dedupe">
+        ${allureAttachmentDedupe.duplicates?c} of ${allureAttachmentDedupe.files?c} attachments were duplicates:
+        ${allureAttachmentDedupe.summary}
+    </p>
+    [/#if]
+</details>
+[/#if]
 <iframe id="allure-report-frame" src="${reportUrl}" style="border: 0; width: 100%; height: 840px;"></iframe>
 </body>
 </html>
@@ -39,6 +39,7 @@ import com.atlassian.bamboo.resultsummary.ResultsSummaryManager;
 import com.atlassian.plugin.PluginAccessor;
 import com.atlassian.sal.api.ApplicationProperties;
 import com.atlassian.sal.api.UrlMode;
+import io.qameta.allure.bamboo.util.ArtifactDownloader;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -52,11 +53,17 @@ import java.lang.reflect.Method;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.atlassian.bamboo.plan.PlanKeys.getPlanKey;
 import static com.atlassian.bamboo.plan.PlanKeys.getPlanResultKey;
@@ -68,6 +75,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowableOfType;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.junit.MockitoJUnit.rule;
@@ -128,7 +136,9 @@ public class AllureArtifactsManagerTest {
                 resultsSummaryManager,
                 artifactLinkManager,
                 applicationProperties,
-                settingsManager
+                settingsManager,
+                new AllureIoExecutor(settingsManager),
+                new ArtifactDownloader()
         );
     }
 
@@ -343,6 +353,182 @@ public class AllureArtifactsManagerTest {
         }
     }
 
+    @Test
+    public void itShouldStageFilesystemArtifactsAccordingToTheStagingMode() throws Exception {
+        final File sourceDir = temporaryFolder.newFolder("linked-artifacts");
+        final Path result = sourceDir.toPath().resolve("a-result.json");
+        Files.writeString(result, "{}", StandardCharsets.UTF_8);
+        final FileSystemArtifactLinkDataProvider provider = org.mockito.Mockito
+                .mock(FileSystemArtifactLinkDataProvider.class);
+        final MutableArtifact artifact = org.mockito.Mockito.mock(MutableArtifact.class);
+        final ArtifactLink link = org.mockito.Mockito.mock(ArtifactLink.class);
+        final BuildResultsSummary buildResultsSummary = org.mockito.Mockito.mock(BuildResultsSummary.class);
+        when(provider.getFile()).thenReturn(sourceDir);
+        when(artifact.getLabel()).thenReturn("allure-results");
+        when(link.getArtifact()).thenReturn(artifact);
+        when(buildResultsSummary.getProducedArtifactLinks()).thenReturn(List.of(link));
+        when(artifactLinkManager.getArtifactLinkDataProvider(artifact)).thenReturn(provider);
+
+        final Path linked = manager.downloadJobArtifactsTo(
+                buildResultsSummary, temporaryFolder.newFolder("linked"), null, AllureResultsFilter.ALL, AllureIngestionBudget.unlimited()
+        ).get(0);
+        when(settingsManager.getSettings()).thenReturn(new AllureGlobalConfig().withStagingMode("COPY"));
+        final Path copied = manager.downloadJobArtifactsTo(
+                buildResultsSummary, temporaryFolder.newFolder("copied"), null, AllureResultsFilter.ALL, AllureIngestionBudget.unlimited()
+        ).get(0);
+
+        when(settingsManager.getSettings()).thenReturn(new AllureGlobalConfig().withStagingMode("IN_PLACE"));
+        final File untouched = temporaryFolder.newFolder("in-place");
+        final List<Path> inPlace = manager.downloadJobArtifactsTo(
+                buildResultsSummary, untouched, null, AllureResultsFilter.ALL, AllureIngestionBudget.unlimited()
+        );
+
+        assertThat(Files.isSameFile(result, linked.resolve("a-result.json"))).isTrue();
+        assertThat(Files.isSameFile(result, copied.resolve("a-result.json"))).isFalse();
+        assertThat(copied.resolve("a-result.json")).hasContent("{}");
+        assertThat(inPlace).containsExactly(sourceDir.toPath());
+        assertThat(untouched).isEmptyDirectory();
+    }
+
+    @Test
+    public void itShouldOnlyStageTheFilesMatchingTheResultsFilter() throws Exception {
+        final File sourceDir = temporaryFolder.newFolder("filtered-artifacts");
+        Files.writeString(sourceDir.toPath().resolve("a-result.json"), "{}", StandardCharsets.UTF_8);
+        Files.writeString(sourceDir.toPath().resolve("heap.hprof"), "dump", StandardCharsets.UTF_8);
+        Files.createDirectories(sourceDir.toPath().resolve("logs"));
+        Files.writeString(sourceDir.toPath().resolve("logs").resolve("b-result.json"), "{}", StandardCharsets.UTF_8);
+        final FileSystemArtifactLinkDataProvider provider = org.mockito.Mockito
+                .mock(FileSystemArtifactLinkDataProvider.class);
+        final MutableArtifact artifact = org.mockito.Mockito.mock(MutableArtifact.class);
+        final ArtifactLink link = org.mockito.Mockito.mock(ArtifactLink.class);
+        final BuildResultsSummary buildResultsSummary = org.mockito.Mockito.mock(BuildResultsSummary.class);
+        when(provider.getFile()).thenReturn(sourceDir);
+        when(artifact.getLabel()).thenReturn("allure-results");
+        when(link.getArtifact()).thenReturn(artifact);
+        when(buildResultsSummary.getProducedArtifactLinks()).thenReturn(List.of(link));
+        when(artifactLinkManager.getArtifactLinkDataProvider(artifact)).thenReturn(provider);
+        when(settingsManager.getSettings()).thenReturn(new AllureGlobalConfig().withStagingMode("IN_PLACE"));
+
+        final List<Path> staged = manager.downloadJobArtifactsTo(
+                buildResultsSummary, temporaryFolder.newFolder("filtered"), null, AllureResultsFilter.of("*-result.json", "logs"),
+                AllureIngestionBudget.unlimited()
+        );
+
+        assertThat(staged).hasSize(1).doesNotContain(sourceDir.toPath());
+        try (java.util.stream.Stream<Path> files = Files.walk(staged.get(0))) {
+            assertThat(files.filter(Files::isRegularFile).map(path -> staged.get(0).relativize(path).toString()))
+                    .containsExactly("a-result.json");
+        }
+    }
+
+    @Test
+    public void itShouldSkipOversizedFilesAndMarkTheStagingPartial() throws Exception {
+        final File sourceDir = temporaryFolder.newFolder("budgeted-artifacts");
+        Files.writeString(sourceDir.toPath().resolve("a-result.json"), "{}", StandardCharsets.UTF_8);
+        Files.write(sourceDir.toPath().resolve("b-attachment.mp4"), new byte[2 * 1024 * 1024]);
+        final FileSystemArtifactLinkDataProvider provider = org.mockito.Mockito
+                .mock(FileSystemArtifactLinkDataProvider.class);
+        final MutableArtifact artifact = org.mockito.Mockito.mock(MutableArtifact.class);
+        final ArtifactLink link = org.mockito.Mockito.mock(ArtifactLink.class);
+        final BuildResultsSummary buildResultsSummary = org.mockito.Mockito.mock(BuildResultsSummary.class);
+        when(provider.getFile()).thenReturn(sourceDir);
+        when(artifact.getLabel()).thenReturn("allure-results");
+        when(link.getArtifact()).thenReturn(artifact);
+        when(buildResultsSummary.getProducedArtifactLinks()).thenReturn(List.of(link));
+        when(artifactLinkManager.getArtifactLinkDataProvider(artifact)).thenReturn(provider);
+        final AllureGlobalConfig config = new AllureGlobalConfig().withStagingMode("IN_PLACE").withMaxResultFileMb("1");
+        when(settingsManager.getSettings()).thenReturn(config);
+        final AllureIngestionBudget budget = AllureIngestionBudget.of(config);
+
+        final List<Path> staged = manager.downloadJobArtifactsTo(
+                buildResultsSummary, temporaryFolder.newFolder("budgeted"), null, AllureResultsFilter.ALL, budget
+        );
+
+        assertThat(staged).hasSize(1).doesNotContain(sourceDir.toPath());
+        assertThat(staged.get(0).resolve("a-result.json")).exists();
+        assertThat(staged.get(0).resolve("b-attachment.mp4")).doesNotExist();
+        assertThat(budget.getPartialDetails()).isEqualTo("Partial report: 1 files over 1 MB were skipped.");
+    }
+
+    @Test
+    public void itShouldNotListOrDownloadRemoteFilesOutsideTheResultsFilter() throws Exception {
+        final ArtifactLinkDataProvider provider = org.mockito.Mockito.mock(ArtifactLinkDataProvider.class);
+        final MutableArtifact artifact = org.mockito.Mockito.mock(MutableArtifact.class);
+        final ArtifactLink link = org.mockito.Mockito.mock(ArtifactLink.class);
+        final BuildResultsSummary buildResultsSummary = org.mockito.Mockito.mock(BuildResultsSummary.class);
+        final TrampolineArtifactFileData result = remoteFile("a-result.json", "{}");
+        final TrampolineArtifactFileData dump = remoteFile("heap.hprof", "dump");
+        final TrampolineArtifactFileData logs = org.mockito.Mockito.mock(TrampolineArtifactFileData.class);
+        final ArtifactFileData logsDelegate = org.mockito.Mockito.mock(ArtifactFileData.class);
+        when(logs.getDelegate()).thenReturn(logsDelegate);
+        when(logs.getTag()).thenReturn("logs");
+        when(logsDelegate.getFileType()).thenReturn(ArtifactFileData.FileType.DIRECTORY);
+        when(artifact.getLabel()).thenReturn("allure-results");
+        when(link.getArtifact()).thenReturn(artifact);
+        when(buildResultsSummary.getProducedArtifactLinks()).thenReturn(List.of(link));
+        when(artifactLinkManager.getArtifactLinkDataProvider(artifact)).thenReturn(provider);
+        when(provider.listObjects("")).thenReturn(List.of(result, dump, logs));
+
+        final List<Path> downloaded = manager.downloadJobArtifactsTo(
+                buildResultsSummary, temporaryFolder.newFolder("remote-filtered"), null, AllureResultsFilter.of("", "*.hprof, logs"),
+                AllureIngestionBudget.unlimited()
+        );
+
+        assertThat(downloaded.get(0).resolve("a-result.json")).exists();
+        assertThat(downloaded.get(0).resolve("heap.hprof")).doesNotExist();
+        verify(provider, never()).listObjects("logs");
+    }
+
+    @Test
+    public void itShouldDownloadArtifactsOfAllJobsConcurrentlyInLinkOrder() throws Exception {
+        when(settingsManager.getSettings()).thenReturn(new AllureGlobalConfig().withMaxParallelDownloads("2"));
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+        final Set<BuildResultsSummary> jobs = new LinkedHashSet<>();
+        for (int job = 0; job < 2; job++) {
+            final List<ArtifactLink> links = new ArrayList<>();
+            for (int index = 0; index < 2; index++) {
+                final String name = "job" + job + "-link" + index;
+                final File sourceDir = temporaryFolder.newFolder(name);
+                Files.writeString(sourceDir.toPath().resolve(name + ".json"), "{}", StandardCharsets.UTF_8);
+                final FileSystemArtifactLinkDataProvider provider = org.mockito.Mockito
+                        .mock(FileSystemArtifactLinkDataProvider.class);
+                when(provider.getFile()).thenAnswer(invocation -> {
+                    maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    bothStarted.countDown();
+                    bothStarted.await(5, TimeUnit.SECONDS);
+                    active.decrementAndGet();
+                    return sourceDir;
+                });
+                final MutableArtifact artifact = org.mockito.Mockito.mock(MutableArtifact.class);
+                when(artifact.getLabel()).thenReturn("allure-results");
+                when(artifactLinkManager.getArtifactLinkDataProvider(artifact)).thenReturn(provider);
+                final ArtifactLink link = org.mockito.Mockito.mock(ArtifactLink.class);
+                when(link.getArtifact()).thenReturn(artifact);
+                links.add(link);
+            }
+            final BuildResultsSummary buildResultsSummary = org.mockito.Mockito.mock(BuildResultsSummary.class);
+            when(buildResultsSummary.getProducedArtifactLinks()).thenReturn(links);
+            jobs.add(buildResultsSummary);
+        }
+        final ChainStageResult stageResult = org.mockito.Mockito.mock(ChainStageResult.class);
+        final ChainResultsSummary chainResultsSummary = org.mockito.Mockito.mock(ChainResultsSummary.class);
+        when(stageResult.getBuildResults()).thenReturn(jobs);
+        when(chainResultsSummary.getStageResults()).thenReturn(List.of(stageResult));
+
+        final List<Path> downloaded = new ArrayList<>(manager.downloadAllArtifactsTo(
+                chainResultsSummary, temporaryFolder.newFolder("parallel-download"), "allure-results"
+        ));
+
+        assertThat(maxActive.get()).isEqualTo(2);
+        assertThat(downloaded).hasSize(4);
+        assertThat(downloaded.get(0).resolve("job0-link0.json")).exists();
+        assertThat(downloaded.get(1).resolve("job0-link1.json")).exists();
+        assertThat(downloaded.get(2).resolve("job1-link0.json")).exists();
+        assertThat(downloaded.get(3).resolve("job1-link1.json")).exists();
+    }
+
     @Test
     public void itShouldDownloadRemoteArtifactsViaTrampolineLinks() throws Exception {
         final ArtifactLinkDataProvider provider = org.mockito.Mockito.mock(ArtifactLinkDataProvider.class);
@@ -535,6 +721,19 @@ public class AllureArtifactsManagerTest {
         return resultsSummary;
     }
 
+    private TrampolineArtifactFileData remoteFile(final String name,
+                                                  final String content) throws Exception {
+        final Path source = temporaryFolder.newFile(name).toPath();
+        Files.writeString(source, content, StandardCharsets.UTF_8);
+        final TrampolineArtifactFileData trampoline = org.mockito.Mockito.mock(TrampolineArtifactFileData.class);
+        final ArtifactFileData delegate = org.mockito.Mockito.mock(ArtifactFileData.class);
+        when(trampoline.getDelegate()).thenReturn(delegate);
+        when(delegate.getFileType()).thenReturn(ArtifactFileData.FileType.REGULAR_FILE);
+        when(delegate.getName()).thenReturn(name);
+        when(delegate.getUrl()).thenReturn(source.toUri().toString());
+        return trampoline;
+    }
+
     @SuppressWarnings("unchecked")
     private Map<String, String> getArtifactHandlerConfig(final BuildDefinition definition) throws Exception {
         final Method method = AllureArtifactsManager.class
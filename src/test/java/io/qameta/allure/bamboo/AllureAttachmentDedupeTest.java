@@ -0,0 +1,135 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoRule;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static org.mockito.junit.MockitoJUnit.rule;
+
+@SuppressWarnings("checkstyle:MultipleStringLiterals")
+public class AllureAttachmentDedupeTest {
+
+    @Rule
+    public MockitoRule mockitoRule = rule();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private AllureSettingsManager settingsManager;
+
+    private AllureIoExecutor ioExecutor;
+
+    @Before
+    public void setUp() {
+        when(settingsManager.getSettings()).thenReturn(new AllureGlobalConfig());
+        ioExecutor = new AllureIoExecutor(settingsManager);
+    }
+
+    @After
+    public void tearDown() {
+        ioExecutor.shutdown();
+    }
+
+    @Test
+    public void itShouldLinkIdenticalAttachmentsOfDifferentJobs() throws Exception {
+        final Path first = temporaryFolder.newFolder("first").toPath();
+        final Path second = temporaryFolder.newFolder("second").toPath();
+        write(first.resolve("1-attachment.txt"), "environment");
+        write(second.resolve("2-attachment.txt"), "environment");
+        write(second.resolve("3-attachment.txt"), "environmenT");
+        write(first.resolve("1-result.json"), "{}");
+        write(second.resolve("2-result.json"), "{}");
+
+        final AllureAttachmentDedupe dedupe = AllureAttachmentDedupe.deduplicate(ioExecutor, List.of(first, second));
+
+        assertThat(dedupe.getFiles()).isEqualTo(3);
+        assertThat(dedupe.getDuplicates()).isEqualTo(1);
+        assertThat(dedupe.getBytes()).isEqualTo(33);
+        assertThat(dedupe.getSavedBytes()).isEqualTo(11);
+        assertThat(dedupe.getRatio()).isEqualTo(1.5);
+        assertThat(Files.isSameFile(first.resolve("1-attachment.txt"), second.resolve("2-attachment.txt"))).isTrue();
+        assertThat(Files.isSameFile(first.resolve("1-attachment.txt"), second.resolve("3-attachment.txt"))).isFalse();
+        assertThat(Files.isSameFile(first.resolve("1-result.json"), second.resolve("2-result.json"))).isFalse();
+        assertThat(second.resolve("2-attachment.txt")).hasContent("environment");
+    }
+
+    @Test
+    public void itShouldCountAttachmentsLinkedBeforeWithoutLinkingThemAgain() throws Exception {
+        final Path results = temporaryFolder.newFolder("results").toPath();
+        write(results.resolve("1-attachment.png"), "screenshot");
+        Files.createLink(results.resolve("2-attachment.png"), results.resolve("1-attachment.png"));
+
+        final AllureAttachmentDedupe dedupe = AllureAttachmentDedupe.deduplicate(ioExecutor, List.of(results));
+
+        assertThat(dedupe.getDuplicates()).isEqualTo(1);
+        try (java.util.stream.Stream<Path> files = Files.list(results)) {
+            assertThat(files.map(path -> path.getFileName().toString()))
+                    .containsExactlyInAnyOrder("1-attachment.png", "2-attachment.png");
+        }
+    }
+
+    @Test
+    public void itShouldLeaveOutAttachmentsLinkedFromTheArtifactStorage() throws Exception {
+        final Path storage = temporaryFolder.newFolder("storage").toPath();
+        final Path results = temporaryFolder.newFolder("results").toPath();
+        write(storage.resolve("1-attachment.log"), "output");
+        write(storage.resolve("2-attachment.log"), "output");
+        Files.createLink(results.resolve("1-attachment.log"), storage.resolve("1-attachment.log"));
+        Files.createLink(results.resolve("2-attachment.log"), storage.resolve("2-attachment.log"));
+        write(results.resolve("3-attachment.log"), "copied");
+
+        final AllureAttachmentDedupe dedupe = AllureAttachmentDedupe.deduplicate(ioExecutor, List.of(results));
+
+        assertThat(dedupe.getFiles()).isEqualTo(1);
+        assertThat(dedupe.getDuplicates()).isZero();
+        assertThat(Files.isSameFile(results.resolve("1-attachment.log"), results.resolve("2-attachment.log"))).isFalse();
+    }
+
+    @Test
+    public void itShouldStoreTheCountsInCustomBuildData() {
+        final Map<String, String> customData = new HashMap<>();
+
+        new AllureAttachmentDedupe(10, 6, 4096, 3072).dumpToCustomData(customData);
+        final AllureAttachmentDedupe dedupe = AllureAttachmentDedupe.fromCustomData(customData);
+
+        assertThat(customData).containsEntry("custom.allure.build.report.dedupe.saved.bytes", "3072");
+        assertThat(dedupe.getDuplicates()).isEqualTo(6);
+        assertThat(dedupe.getRatio()).isEqualTo(4.0);
+        assertThat(dedupe.getSummary()).isEqualTo("1 KB on disk for 4 KB of attachments, dedupe ratio 4.00");
+        assertThat(AllureAttachmentDedupe.fromCustomData(new HashMap<>())).isNull();
+    }
+
+    private static void write(final Path path,
+                              final String content) throws Exception {
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
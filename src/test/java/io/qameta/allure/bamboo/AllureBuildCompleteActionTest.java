@@ -25,6 +25,7 @@ import com.atlassian.bamboo.resultsummary.ResultsSummary;
 import com.atlassian.bamboo.resultsummary.ResultsSummaryManager;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import io.qameta.allure.bamboo.info.allurewidgets.summary.Summary;
+import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -40,16 +41,22 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.atlassian.bamboo.plan.PlanKeys.getPlanKey;
 import static com.atlassian.bamboo.plan.PlanKeys.getPlanResultKey;
 import static io.qameta.allure.bamboo.AllureBuildResult.allureBuildResult;
 import static io.qameta.allure.bamboo.AllureBuildResult.fromCustomData;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_ARTIFACT_NAME;
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_ENABLED;
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_EXECUTABLE;
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_FAILED_ONLY;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_GENERATE_ON_DEMAND;
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_MAX_STORED_REPORTS_COUNT;
 import static io.qameta.allure.bamboo.TestSupport.attachDirectoryTree;
 import static io.qameta.allure.bamboo.TestSupport.attachText;
@@ -58,9 +65,11 @@ import static java.util.Collections.emptyList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.junit.MockitoJUnit.rule;
@@ -134,7 +143,7 @@ public class AllureBuildCompleteActionTest {
 
         newAction().execute(chain, chainResultsSummary, chainExecution);
 
-        verify(artifactsManager, never()).downloadAllArtifactsTo(any(), any(File.class), anyString());
+        verify(artifactsManager, never()).downloadAllArtifactsTo(any(), any(File.class), anyString(), anyMap(), any(AllureResultsFilter.class), any(AllureIngestionBudget.class));
     }
 
     @Test
@@ -152,11 +161,43 @@ public class AllureBuildCompleteActionTest {
         );
 
         step("verify report generation is skipped for a successful build", () -> {
-            verify(artifactsManager, never()).downloadAllArtifactsTo(any(), any(File.class), anyString());
+            verify(artifactsManager, never()).downloadAllArtifactsTo(any(), any(File.class), anyString(), anyMap(),
+                    any(AllureResultsFilter.class), any(AllureIngestionBudget.class));
             verify(allureExecutable, never()).generate(any(Collection.class), any(Path.class));
         });
     }
 
+    @Test
+    public void itShouldDiscardResultsStagedForABuildThatGetsNoReport() throws Exception {
+        when(chainResultsSummary.isFailed()).thenReturn(false);
+        when(buildDefinition.getCustomConfiguration()).thenReturn(config("exec-1", true, true, null));
+        when(settingsManager.getSettings()).thenReturn(globalConfig(false, false));
+        final Path workspace = AllureReportJournal.workspaceOf(globalConfig(false, false), PLAN_KEY, BUILD_NUMBER);
+        final Path staged = Files.createDirectories(workspace.resolve("prestaged").resolve(PLAN_KEY + "-JOB1-" + BUILD_NUMBER));
+        Files.writeString(staged.resolve("staged.json"), "{}");
+
+        newAction().execute(chain, chainResultsSummary, chainExecution);
+
+        assertThat(workspace.resolve("prestaged")).doesNotExist();
+    }
+
+    @Test
+    public void itShouldOnlyRecordResultsLocationInOnDemandMode() {
+        final Map<String, String> config = config("exec-1", true, false, null);
+        config.put(ALLURE_CONFIG_GENERATE_ON_DEMAND, "true");
+        config.put(ALLURE_CONFIG_ARTIFACT_NAME, "custom-results");
+        when(buildDefinition.getCustomConfiguration()).thenReturn(config);
+        when(settingsManager.getSettings()).thenReturn(globalConfig(false, false));
+
+        newAction().execute(chain, chainResultsSummary, chainExecution);
+
+        final AllureBuildResult buildResult = fromCustomData(chainResultsSummary.getCustomBuildData());
+        assertThat(buildResult.getStatus()).isEqualTo(AllureReportStatus.ON_DEMAND);
+        assertThat(buildResult.getResultsArtifactName()).isEqualTo("custom-results");
+        assertThat(buildResult.hasInfo()).isTrue();
+        verify(artifactsManager, never()).downloadAllArtifactsTo(any(), any(File.class), anyString(), anyMap(), any(AllureResultsFilter.class), any(AllureIngestionBudget.class));
+    }
+
     @Test
     public void itShouldRecordFailureWhenNoExecutableCanBeResolved() throws Exception {
         when(chainResultsSummary.isFailed()).thenReturn(true);
@@ -169,7 +210,7 @@ public class AllureBuildCompleteActionTest {
         final AllureBuildResult buildResult = fromCustomData(chainResultsSummary.getCustomBuildData());
         assertThat(buildResult.isSuccess()).isFalse();
         assertThat(buildResult.getFailureDetails()).contains("Could not find default Allure executable");
-        verify(artifactsManager, never()).downloadAllArtifactsTo(any(), any(File.class), anyString());
+        verify(artifactsManager, never()).downloadAllArtifactsTo(any(), any(File.class), anyString(), anyMap(), any(AllureResultsFilter.class), any(AllureIngestionBudget.class));
     }
 
     @Test
@@ -180,7 +221,8 @@ public class AllureBuildCompleteActionTest {
             when(settingsManager.getSettings()).thenReturn(globalConfig(false, false));
             when(executableProvider.provide(any(AllureGlobalConfig.class), anyString()))
                     .thenReturn(Optional.of(allureExecutable));
-            when(artifactsManager.downloadAllArtifactsTo(any(ChainResultsSummary.class), any(File.class), anyString()))
+            when(artifactsManager.downloadAllArtifactsTo(any(ChainResultsSummary.class), any(File.class), anyString(), anyMap(),
+                    any(AllureResultsFilter.class), any(AllureIngestionBudget.class)))
                     .thenReturn(emptyList());
         });
 
@@ -198,15 +240,45 @@ public class AllureBuildCompleteActionTest {
         });
     }
 
+    @Test
+    public void itShouldRecordFailureWhenTheReportIsNotUploaded() throws Exception {
+        when(buildDefinition.getCustomConfiguration()).thenReturn(config("exec-1", true, false, null));
+        when(settingsManager.getSettings()).thenReturn(globalConfig(false, false));
+        when(executableProvider.provide(any(AllureGlobalConfig.class), anyString()))
+                .thenReturn(Optional.of(allureExecutable));
+        when(artifactsManager.downloadAllArtifactsTo(any(ChainResultsSummary.class), any(File.class), anyString(), anyMap(),
+                any(AllureResultsFilter.class), any(AllureIngestionBudget.class)))
+                .thenAnswer(invocation -> {
+                    final Path artifactsDir = ((File) invocation.getArgument(1)).toPath().resolve("artifacts");
+                    Files.createDirectories(artifactsDir);
+                    return new ArrayList<>(java.util.List.of(artifactsDir));
+                });
+        when(allureExecutable.generate(any(Collection.class), any(Path.class))).thenAnswer(invocation -> {
+            TestSupport.writeMinimalReport(invocation.getArgument(1));
+            return new AllureGenerateResult("ok", true);
+        });
+        when(artifactsManager.uploadReportArtifacts(any(ImmutableChain.class), any(ChainResultsSummary.class), any(File.class)))
+                .thenReturn(Optional.empty());
+
+        newAction().execute(chain, chainResultsSummary, chainExecution);
+
+        final AllureBuildResult buildResult = fromCustomData(chainResultsSummary.getCustomBuildData());
+        assertThat(buildResult.getStatus()).isEqualTo(AllureReportStatus.FINISHED);
+        assertThat(buildResult.isSuccess()).isFalse();
+        assertThat(buildResult.getFailureDetails()).isEqualTo("Failed to upload the report");
+    }
+
     @Test
     public void itShouldGenerateUploadAndCleanupReport() throws Exception {
+        final AtomicLong uploadedBytes = new AtomicLong();
         step("configure report generation, upload, and cleanup for a failed chain", () -> {
             when(chainResultsSummary.isFailed()).thenReturn(true);
             when(buildDefinition.getCustomConfiguration()).thenReturn(config("exec-1", true, false, "2"));
             when(settingsManager.getSettings()).thenReturn(globalConfig(false, true));
             when(executableProvider.provide(any(AllureGlobalConfig.class), anyString()))
                     .thenReturn(Optional.of(allureExecutable));
-            when(artifactsManager.downloadAllArtifactsTo(any(ChainResultsSummary.class), any(File.class), anyString()))
+            when(artifactsManager.downloadAllArtifactsTo(any(ChainResultsSummary.class), any(File.class), anyString(), anyMap(),
+                    any(AllureResultsFilter.class), any(AllureIngestionBudget.class)))
                     .thenAnswer(invocation -> {
                         final File baseDir = invocation.getArgument(1);
                         final Path artifactsDir = baseDir.toPath().resolve("artifacts");
@@ -234,6 +306,9 @@ public class AllureBuildCompleteActionTest {
                 assertThat(Files.readString(reportDir.resolve("index.html")))
                         .contains("<title> Build 5 - Smoke Build </title>");
                 assertThat(reportDir.resolve("report.zip")).exists();
+                uploadedBytes.set(AllureReportTimings.sizeOf(reportDir));
+                // the upload moves the report away
+                FileUtils.deleteDirectory(reportDir.toFile());
                 return Optional.of(allureBuildResult(true, null).withHandlerClass("handler"));
             });
         });
@@ -250,6 +325,24 @@ public class AllureBuildCompleteActionTest {
             assertThat(buildResult.getArtifactHandlerClass()).isEqualTo("handler");
             verify(artifactsManager).cleanupOldReportArtifacts(chain, 2);
         });
+
+        step("verify every stage timing is stored with the build and written to the build log", () -> {
+            final List<AllureReportTimings.StageTiming> timings = AllureReportTimings
+                    .fromCustomData(chainResultsSummary.getCustomBuildData())
+                    .getStages();
+            attachText("Custom build data", chainResultsSummary.getCustomBuildData().toString());
+            assertThat(timings)
+                    .extracting(AllureReportTimings.StageTiming::getStage)
+                    .containsExactly(
+                            "Artifacts download", "Attachment dedupe", "History lookup", "Allure generate",
+                            "Report finalization", "Report zip", "Report upload"
+                    );
+            assertThat(chainResultsSummary.getCustomBuildData())
+                    .containsKey("custom.allure.build.report.timing.zip.bytes")
+                    .containsEntry("custom.allure.build.report.timing.upload.bytes", String.valueOf(uploadedBytes.get()));
+            assertThat(uploadedBytes.get()).isPositive();
+            verify(buildLogger, times(AllureReportStage.values().length)).addBuildLogEntry(anyString());
+        });
     }
 
     @Test
@@ -260,7 +353,8 @@ public class AllureBuildCompleteActionTest {
             when(settingsManager.getSettings()).thenReturn(globalConfig(false, false));
             when(executableProvider.provide(any(AllureGlobalConfig.class), anyString()))
                     .thenReturn(Optional.of(allureExecutable));
-            when(artifactsManager.downloadAllArtifactsTo(any(ChainResultsSummary.class), any(File.class), anyString()))
+            when(artifactsManager.downloadAllArtifactsTo(any(ChainResultsSummary.class), any(File.class), anyString(), anyMap(),
+                    any(AllureResultsFilter.class), any(AllureIngestionBudget.class)))
                     .thenAnswer(invocation -> {
                         final File baseDir = invocation.getArgument(1);
                         final Path artifactsDir = baseDir.toPath().resolve("artifacts");
@@ -311,7 +405,8 @@ public class AllureBuildCompleteActionTest {
         when(settingsManager.getSettings()).thenReturn(globalConfig(false, false));
         when(executableProvider.provide(any(AllureGlobalConfig.class), anyString()))
                 .thenReturn(Optional.of(allureExecutable));
-        when(artifactsManager.downloadAllArtifactsTo(any(ChainResultsSummary.class), any(File.class), anyString()))
+        when(artifactsManager.downloadAllArtifactsTo(any(ChainResultsSummary.class), any(File.class), anyString(), anyMap(),
+                any(AllureResultsFilter.class), any(AllureIngestionBudget.class)))
                 .thenAnswer(invocation -> {
                     final File baseDir = invocation.getArgument(1);
                     final Path artifactsDir = baseDir.toPath().resolve("artifacts");
@@ -331,9 +426,12 @@ public class AllureBuildCompleteActionTest {
         when(allureExecutable.generate(any(Collection.class), any(Path.class))).thenAnswer(invocation -> {
             @SuppressWarnings("unchecked")
             final Collection<Path> sourceDirs = invocation.getArgument(0);
-            final Path artifactsDir = sourceDirs.iterator().next();
-            assertThat(artifactsDir.resolve("history").resolve("history.json")).exists();
-            assertThat(artifactsDir.resolve("history").resolve("history-trend.json")).exists();
+            assertThat(sourceDirs).hasSize(2);
+            final Path overlayDir = lastOf(sourceDirs);
+            assertThat(overlayDir.resolve("history").resolve("history.json")).exists();
+            assertThat(overlayDir.resolve("history").resolve("history-trend.json")).exists();
+            assertThat(overlayDir.resolve("executor.json")).exists();
+            assertThat(sourceDirs.iterator().next().resolve("history")).doesNotExist();
             TestSupport.writeMinimalReport(invocation.getArgument(1));
             return new AllureGenerateResult("ok", true);
         });
@@ -349,6 +447,277 @@ public class AllureBuildCompleteActionTest {
 
         final AllureBuildResult buildResult = fromCustomData(chainResultsSummary.getCustomBuildData());
         assertThat(buildResult.isSuccess()).isTrue();
+        verify(artifactsManager, times(1)).getArtifactInputStream(PLAN_KEY, "4", "history/history.json");
+    }
+
+    @Test
+    public void itShouldWalkPastABuildWithInvalidHistory() throws Exception {
+        when(buildDefinition.getCustomConfiguration()).thenReturn(config("exec-1", true, false, null));
+        when(settingsManager.getSettings()).thenReturn(globalConfig(false, false));
+        when(executableProvider.provide(any(AllureGlobalConfig.class), anyString()))
+                .thenReturn(Optional.of(allureExecutable));
+        when(artifactsManager.downloadAllArtifactsTo(any(ChainResultsSummary.class), any(File.class), anyString(), anyMap(),
+                any(AllureResultsFilter.class), any(AllureIngestionBudget.class)))
+                .thenAnswer(invocation -> {
+                    final Path artifactsDir = ((File) invocation.getArgument(1)).toPath().resolve("artifacts");
+                    Files.createDirectories(artifactsDir);
+                    return new ArrayList<>(java.util.List.of(artifactsDir));
+                });
+        final ResultsSummary brokenResult = org.mockito.Mockito.mock(ResultsSummary.class);
+        when(brokenResult.getBuildNumber()).thenReturn(4);
+        final ResultsSummary previousResult = org.mockito.Mockito.mock(ResultsSummary.class);
+        when(previousResult.getBuildNumber()).thenReturn(3);
+        when(resultsSummaryManager.findLastBuildResultBefore(PLAN_KEY, BUILD_NUMBER)).thenReturn(brokenResult);
+        when(resultsSummaryManager.findLastBuildResultBefore(PLAN_KEY, 4)).thenReturn(previousResult);
+        when(artifactsManager.getArtifactInputStream(eq(PLAN_KEY), eq("4"), anyString()))
+                .thenAnswer(invocation -> Optional.of(new ByteArrayInputStream("{\"uid\":".getBytes(StandardCharsets.UTF_8))));
+        when(artifactsManager.getArtifactInputStream(eq(PLAN_KEY), eq("3"), anyString()))
+                .thenAnswer(invocation -> Optional.of(new ByteArrayInputStream("{\"uid\":{}}".getBytes(StandardCharsets.UTF_8))));
+        when(allureExecutable.generate(any(Collection.class), any(Path.class))).thenAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            final Collection<Path> sourceDirs = invocation.getArgument(0);
+            assertThat(lastOf(sourceDirs).resolve("history").resolve("history.json")).hasContent("{\"uid\":{}}");
+            assertThat(lastOf(sourceDirs).resolve("history").resolve("history-trend.json")).exists();
+            TestSupport.writeMinimalReport(invocation.getArgument(1));
+            return new AllureGenerateResult("ok", true);
+        });
+        when(artifactsManager.uploadReportArtifacts(any(ImmutableChain.class), any(ChainResultsSummary.class), any(File.class)))
+                .thenReturn(Optional.of(allureBuildResult(true, null).withHandlerClass("handler")));
+
+        newAction().execute(chain, chainResultsSummary, chainExecution);
+
+        assertThat(fromCustomData(chainResultsSummary.getCustomBuildData()).isSuccess()).isTrue();
+        verify(artifactsManager, never()).getArtifactInputStream(PLAN_KEY, "4", "history/history-trend.json");
+        verify(artifactsManager, times(1)).getArtifactInputStream(PLAN_KEY, "3", "history/history.json");
+    }
+
+    @Test
+    public void itShouldLookTheHistoryUpInTheIndexAndRecordThePublishedOne() throws Exception {
+        when(buildDefinition.getCustomConfiguration()).thenReturn(config("exec-1", true, false, null));
+        when(settingsManager.getSettings()).thenReturn(globalConfig(false, false));
+        when(executableProvider.provide(any(AllureGlobalConfig.class), anyString()))
+                .thenReturn(Optional.of(allureExecutable));
+        when(artifactsManager.downloadAllArtifactsTo(any(ChainResultsSummary.class), any(File.class), anyString(), anyMap(),
+                any(AllureResultsFilter.class), any(AllureIngestionBudget.class)))
+                .thenAnswer(invocation -> {
+                    final Path artifactsDir = ((File) invocation.getArgument(1)).toPath().resolve("artifacts");
+                    Files.createDirectories(artifactsDir);
+                    return new ArrayList<>(java.util.List.of(artifactsDir));
+                });
+        new AllureHistoryIndex().record(globalConfig(false, false), PLAN_KEY, 2);
+        when(artifactsManager.getArtifactInputStream(eq(PLAN_KEY), eq("2"), anyString()))
+                .thenAnswer(invocation -> Optional.of(new ByteArrayInputStream("[]".getBytes(StandardCharsets.UTF_8))));
+        when(allureExecutable.generate(any(Collection.class), any(Path.class))).thenAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            final Collection<Path> sourceDirs = invocation.getArgument(0);
+            assertThat(lastOf(sourceDirs).resolve("history").resolve("history.json")).exists();
+            final Path reportDir = invocation.getArgument(1);
+            TestSupport.writeMinimalReport(reportDir);
+            Files.createDirectories(reportDir.resolve("history"));
+            Files.writeString(reportDir.resolve("history").resolve("history.json"), "{}", StandardCharsets.UTF_8);
+            return new AllureGenerateResult("ok", true);
+        });
+        when(artifactsManager.uploadReportArtifacts(any(ImmutableChain.class), any(ChainResultsSummary.class), any(File.class)))
+                .thenReturn(Optional.of(allureBuildResult(true, null).withHandlerClass("handler")));
+
+        newAction().execute(chain, chainResultsSummary, chainExecution);
+
+        assertThat(fromCustomData(chainResultsSummary.getCustomBuildData()).isSuccess()).isTrue();
+        verify(resultsSummaryManager, never()).findLastBuildResultBefore(anyString(), anyInt());
+        assertThat(new AllureHistoryIndex().read(globalConfig(false, false), PLAN_KEY))
+                .hasValueSatisfying(builds -> assertThat(builds).containsExactly(2, BUILD_NUMBER));
+        assertThat(AllureHistoryStore.planDir(globalConfig(false, false), PLAN_KEY).resolve(String.valueOf(BUILD_NUMBER)).resolve("history.json"))
+                .hasContent("{}");
+    }
+
+    @Test
+    public void itShouldDropIndexedBuildsWhoseHistoryIsGoneAndWalkBack() throws Exception {
+        when(buildDefinition.getCustomConfiguration()).thenReturn(config("exec-1", true, false, null));
+        when(settingsManager.getSettings()).thenReturn(globalConfig(false, false));
+        when(executableProvider.provide(any(AllureGlobalConfig.class), anyString()))
+                .thenReturn(Optional.of(allureExecutable));
+        when(artifactsManager.downloadAllArtifactsTo(any(ChainResultsSummary.class), any(File.class), anyString(), anyMap(),
+                any(AllureResultsFilter.class), any(AllureIngestionBudget.class)))
+                .thenAnswer(invocation -> {
+                    final Path artifactsDir = ((File) invocation.getArgument(1)).toPath().resolve("artifacts");
+                    Files.createDirectories(artifactsDir);
+                    return new ArrayList<>(java.util.List.of(artifactsDir));
+                });
+        new AllureHistoryIndex().record(globalConfig(false, false), PLAN_KEY, 2);
+        new AllureHistoryIndex().record(globalConfig(false, false), PLAN_KEY, 4);
+        when(artifactsManager.getArtifactInputStream(eq(PLAN_KEY), eq("2"), anyString()))
+                .thenAnswer(invocation -> Optional.of(new ByteArrayInputStream("{\"uid\":".getBytes(StandardCharsets.UTF_8))));
+        final ResultsSummary previousResult = org.mockito.Mockito.mock(ResultsSummary.class);
+        when(previousResult.getBuildNumber()).thenReturn(3);
+        when(resultsSummaryManager.findLastBuildResultBefore(PLAN_KEY, BUILD_NUMBER)).thenReturn(previousResult);
+        when(artifactsManager.getArtifactInputStream(eq(PLAN_KEY), eq("3"), anyString()))
+                .thenAnswer(invocation -> Optional.of(new ByteArrayInputStream("{\"uid\":{}}".getBytes(StandardCharsets.UTF_8))));
+        when(allureExecutable.generate(any(Collection.class), any(Path.class))).thenAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            final Collection<Path> sourceDirs = invocation.getArgument(0);
+            assertThat(lastOf(sourceDirs).resolve("history").resolve("history.json")).hasContent("{\"uid\":{}}");
+            TestSupport.writeMinimalReport(invocation.getArgument(1));
+            return new AllureGenerateResult("ok", true);
+        });
+        when(artifactsManager.uploadReportArtifacts(any(ImmutableChain.class), any(ChainResultsSummary.class), any(File.class)))
+                .thenReturn(Optional.of(allureBuildResult(true, null).withHandlerClass("handler")));
+
+        newAction().execute(chain, chainResultsSummary, chainExecution);
+
+        assertThat(fromCustomData(chainResultsSummary.getCustomBuildData()).isSuccess()).isTrue();
+        assertThat(new AllureHistoryIndex().read(globalConfig(false, false), PLAN_KEY))
+                .hasValueSatisfying(builds -> assertThat(builds).isEmpty());
+    }
+
+    @Test
+    public void itShouldCopyTheHistoryFromTheLocalStoreWhenItHoldsThePreviousBuild() throws Exception {
+        when(buildDefinition.getCustomConfiguration()).thenReturn(config("exec-1", true, false, null));
+        when(settingsManager.getSettings()).thenReturn(globalConfig(false, false));
+        when(executableProvider.provide(any(AllureGlobalConfig.class), anyString()))
+                .thenReturn(Optional.of(allureExecutable));
+        when(artifactsManager.downloadAllArtifactsTo(any(ChainResultsSummary.class), any(File.class), anyString(), anyMap(),
+                any(AllureResultsFilter.class), any(AllureIngestionBudget.class)))
+                .thenAnswer(invocation -> {
+                    final Path artifactsDir = ((File) invocation.getArgument(1)).toPath().resolve("artifacts");
+                    Files.createDirectories(artifactsDir);
+                    return new ArrayList<>(java.util.List.of(artifactsDir));
+                });
+        final Path storedHistory = temporaryFolder.newFolder("stored-history").toPath();
+        Files.writeString(storedHistory.resolve("history.json"), "{\"uid\":{}}", StandardCharsets.UTF_8);
+        Files.writeString(storedHistory.resolve("history-trend.json"), "[]", StandardCharsets.UTF_8);
+        new AllureHistoryStore().save(globalConfig(false, false), PLAN_KEY, 3, storedHistory);
+        new AllureHistoryIndex().record(globalConfig(false, false), PLAN_KEY, 3);
+        when(allureExecutable.generate(any(Collection.class), any(Path.class))).thenAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            final Collection<Path> sourceDirs = invocation.getArgument(0);
+            assertThat(lastOf(sourceDirs).resolve("history").resolve("history.json")).hasContent("{\"uid\":{}}");
+            assertThat(lastOf(sourceDirs).resolve("history").resolve("history-trend.json")).exists();
+            TestSupport.writeMinimalReport(invocation.getArgument(1));
+            return new AllureGenerateResult("ok", true);
+        });
+        when(artifactsManager.uploadReportArtifacts(any(ImmutableChain.class), any(ChainResultsSummary.class), any(File.class)))
+                .thenReturn(Optional.of(allureBuildResult(true, null).withHandlerClass("handler")));
+
+        newAction().execute(chain, chainResultsSummary, chainExecution);
+
+        assertThat(fromCustomData(chainResultsSummary.getCustomBuildData()).isSuccess()).isTrue();
+        verify(artifactsManager, never()).getArtifactInputStream(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void itShouldWritePluginFilesIntoAnOverlayForResultsReadInPlace() throws Exception {
+        final Path storedResults = temporaryFolder.newFolder("stored-results").toPath();
+        Files.writeString(storedResults.resolve("a-result.json"), "{}", StandardCharsets.UTF_8);
+        when(chainResultsSummary.isFailed()).thenReturn(true);
+        when(buildDefinition.getCustomConfiguration()).thenReturn(config("exec-1", true, false, null));
+        when(settingsManager.getSettings()).thenReturn(globalConfig(false, false));
+        when(executableProvider.provide(any(AllureGlobalConfig.class), anyString()))
+                .thenReturn(Optional.of(allureExecutable));
+        when(artifactsManager.downloadAllArtifactsTo(any(ChainResultsSummary.class), any(File.class), anyString(), anyMap(),
+                any(AllureResultsFilter.class), any(AllureIngestionBudget.class)))
+                .thenReturn(new ArrayList<>(java.util.List.of(storedResults)));
+        when(allureExecutable.generate(any(Collection.class), any(Path.class))).thenAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            final java.util.List<Path> sourceDirs = new ArrayList<>((Collection<Path>) invocation.getArgument(0));
+            assertThat(sourceDirs).hasSize(2).startsWith(storedResults);
+            assertThat(sourceDirs.get(1).resolve("executor.json")).exists();
+            TestSupport.writeMinimalReport(invocation.getArgument(1));
+            return new AllureGenerateResult("ok", true);
+        });
+        when(
+                artifactsManager.uploadReportArtifacts(
+                        any(ImmutableChain.class),
+                        any(ChainResultsSummary.class), any(File.class)
+                )
+        )
+                .thenReturn(Optional.of(allureBuildResult(true, null).withHandlerClass("handler")));
+
+        newAction().execute(chain, chainResultsSummary, chainExecution);
+
+        assertThat(fromCustomData(chainResultsSummary.getCustomBuildData()).isSuccess()).isTrue();
+        try (java.util.stream.Stream<Path> stored = Files.list(storedResults)) {
+            assertThat(stored).containsExactly(storedResults.resolve("a-result.json"));
+        }
+    }
+
+    @Test
+    public void itShouldLookUpHistoryWhileDownloadingArtifacts() throws Exception {
+        final CountDownLatch historyLookup = new CountDownLatch(1);
+        when(chainResultsSummary.isFailed()).thenReturn(true);
+        when(buildDefinition.getCustomConfiguration()).thenReturn(config("exec-1", true, false, null));
+        when(settingsManager.getSettings()).thenReturn(globalConfig(false, false));
+        when(executableProvider.provide(any(AllureGlobalConfig.class), anyString()))
+                .thenReturn(Optional.of(allureExecutable));
+        when(resultsSummaryManager.findLastBuildResultBefore(PLAN_KEY, BUILD_NUMBER)).thenAnswer(invocation -> {
+            historyLookup.countDown();
+            return null;
+        });
+        when(artifactsManager.downloadAllArtifactsTo(any(ChainResultsSummary.class), any(File.class), anyString(), anyMap(),
+                any(AllureResultsFilter.class), any(AllureIngestionBudget.class)))
+                .thenAnswer(invocation -> {
+                    // the download only completes once the history lookup has started next to it
+                    assertThat(historyLookup.await(5, TimeUnit.SECONDS)).isTrue();
+                    final Path artifactsDir = ((File) invocation.getArgument(1)).toPath().resolve("artifacts");
+                    Files.createDirectories(artifactsDir);
+                    return new ArrayList<>(List.of(artifactsDir));
+                });
+        when(allureExecutable.generate(any(Collection.class), any(Path.class))).thenAnswer(invocation -> {
+            TestSupport.writeMinimalReport(invocation.getArgument(1));
+            return new AllureGenerateResult("ok", true);
+        });
+        when(
+                artifactsManager.uploadReportArtifacts(
+                        any(ImmutableChain.class),
+                        any(ChainResultsSummary.class), any(File.class)
+                )
+        )
+                .thenReturn(Optional.of(allureBuildResult(true, null).withHandlerClass("handler")));
+
+        newAction().execute(chain, chainResultsSummary, chainExecution);
+
+        assertThat(fromCustomData(chainResultsSummary.getCustomBuildData()).isSuccess()).isTrue();
+    }
+
+    @Test
+    public void itShouldResumeAnInterruptedReportFromItsJournal() throws Exception {
+        when(chainResultsSummary.isFailed()).thenReturn(true);
+        when(buildDefinition.getCustomConfiguration()).thenReturn(config("exec-1", true, false, null));
+        when(settingsManager.getSettings()).thenReturn(globalConfig(false, false));
+        when(executableProvider.provide(any(AllureGlobalConfig.class), anyString()))
+                .thenReturn(Optional.of(allureExecutable));
+        final Path workspace = AllureReportJournal.workspaceOf(globalConfig(false, false), PLAN_KEY, BUILD_NUMBER);
+        final Path resultsDir = workspace.resolve("artifacts").resolve("allure-results");
+        Files.createDirectories(resultsDir);
+        Files.createDirectories(workspace.resolve("report"));
+        Files.writeString(resultsDir.resolve("result.json"), "{}");
+        final AllureReportJournal journal = new AllureReportJournal();
+        journal.setPlanKey(PLAN_KEY);
+        journal.setBuildNumber(BUILD_NUMBER);
+        journal.setCompletedStages(new ArrayList<>(List.of("DOWNLOAD", "HISTORY")));
+        journal.setArtifactsPaths(new ArrayList<>(List.of("allure-results")));
+        journal.setDownloadedBytes(2);
+        journal.write(workspace);
+        when(allureExecutable.generate(any(Collection.class), any(Path.class))).thenAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            final Collection<Path> sourceDirs = invocation.getArgument(0);
+            assertThat(sourceDirs).containsExactly(resultsDir);
+            TestSupport.writeMinimalReport(invocation.getArgument(1));
+            return new AllureGenerateResult("ok", true);
+        });
+        when(
+                artifactsManager.uploadReportArtifacts(
+                        any(ImmutableChain.class),
+                        any(ChainResultsSummary.class), any(File.class)
+                )
+        )
+                .thenReturn(Optional.of(allureBuildResult(true, null).withHandlerClass("handler")));
+
+        newAction().execute(chain, chainResultsSummary, chainExecution);
+
+        assertThat(fromCustomData(chainResultsSummary.getCustomBuildData()).isSuccess()).isTrue();
+        verify(artifactsManager, never()).downloadAllArtifactsTo(any(), any(File.class), anyString(), anyMap(), any(AllureResultsFilter.class), any(AllureIngestionBudget.class));
+        verify(artifactsManager, never()).getArtifactInputStream(anyString(), anyString(), anyString());
+        assertThat(workspace).doesNotExist();
     }
 
     private Map<String, String> config(final String executable,
@@ -379,14 +748,32 @@ public class AllureBuildCompleteActionTest {
         );
     }
 
+    private static Path lastOf(final Collection<Path> sourceDirs) {
+        return new ArrayList<>(sourceDirs).get(sourceDirs.size() - 1);
+    }
+
     private AllureBuildCompleteAction newAction() {
-        return new AllureBuildCompleteAction(
+        final AllureIoExecutor ioExecutor = new AllureIoExecutor(settingsManager);
+        final AllureResultsPrestager prestager = new AllureResultsPrestager(artifactsManager, ioExecutor);
+        final AllureReportGenerator generator = new AllureReportGenerator(
                 executableProvider,
-                settingsManager,
                 artifactsManager,
                 executablesManager,
                 resultsSummaryManager,
+                ioExecutor,
+                prestager,
                 administrationConfiguration
         );
+        // Run queued jobs inline so the whole pipeline completes within execute().
+        return new AllureBuildCompleteAction(
+                settingsManager,
+                new AllureReportQueue(
+                        generator,
+                        resultsSummaryManager,
+                        new AllureGenerationLimiter(settingsManager),
+                        Runnable::run
+                ),
+                prestager
+        );
     }
 }
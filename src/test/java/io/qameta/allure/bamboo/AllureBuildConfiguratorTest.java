@@ -28,6 +28,7 @@ import java.util.Optional;
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_ENABLED;
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_EXECUTABLE;
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_FAILED_ONLY;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_PRIORITY;
 import static io.qameta.allure.bamboo.TestSupport.attachText;
 import static io.qameta.allure.bamboo.TestSupport.step;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -68,6 +69,21 @@ public class AllureBuildConfiguratorTest {
         });
     }
 
+    @Test
+    public void itShouldValidatePlanPriorityRange() {
+        final AllureBuildConfigurator configurator = new AllureBuildConfigurator(
+                executablesManager, settingsManager, templateRenderer
+        );
+        final BuildConfiguration configuration = new BuildConfiguration();
+        configuration.setProperty(ALLURE_CONFIG_PRIORITY, "11");
+
+        assertThat(configurator.validate(configuration).getErrors()).containsKey(ALLURE_CONFIG_PRIORITY);
+
+        configuration.setProperty(ALLURE_CONFIG_PRIORITY, "10");
+
+        assertThat(configurator.validate(configuration).hasAnyErrors()).isFalse();
+    }
+
     @Test
     public void itShouldPopulateDefaultsFromSettingsAndCapabilities() throws Exception {
         final AllureBuildConfigurator configurator = new AllureBuildConfigurator(
@@ -0,0 +1,90 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoRule;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static org.mockito.junit.MockitoJUnit.rule;
+
+public class AllureGenerationLimiterTest {
+
+    @Rule
+    public MockitoRule mockitoRule = rule();
+
+    @Mock
+    private AllureSettingsManager settingsManager;
+
+    @Test
+    public void itShouldDerivePermitsFromServerResourcesWhenNotConfigured() {
+        assertThat(AllureGenerationLimiter.permitsFor(new AllureGlobalConfig()))
+                .isEqualTo(AllureGenerationLimiter.defaultPermits())
+                .isPositive();
+        assertThat(AllureGenerationLimiter.permitsFor(new AllureGlobalConfig().withMaxConcurrentGenerations("7")))
+                .isEqualTo(7);
+    }
+
+    @Test
+    public void itShouldQueueGenerationsBeyondTheConfiguredLimit() throws InterruptedException {
+        when(settingsManager.getSettings()).thenReturn(new AllureGlobalConfig().withMaxConcurrentGenerations("1"));
+        final AllureGenerationLimiter limiter = new AllureGenerationLimiter(settingsManager);
+        final CountDownLatch admitted = new CountDownLatch(1);
+
+        limiter.acquire();
+        final Thread waiting = new Thread(() -> {
+            try {
+                limiter.acquire();
+                admitted.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiting.start();
+        while (limiter.getQueueLength() == 0) {
+            Thread.sleep(10);
+        }
+
+        assertThat(limiter.getActivePermits()).isEqualTo(1);
+        assertThat(admitted.getCount()).isEqualTo(1);
+
+        limiter.release();
+
+        assertThat(admitted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(limiter.getQueueLength()).isZero();
+        waiting.join();
+    }
+
+    @Test
+    public void itShouldNotHandOutReleasedPermitsAfterShrinking() throws InterruptedException {
+        when(settingsManager.getSettings()).thenReturn(new AllureGlobalConfig().withMaxConcurrentGenerations("2"));
+        final AllureGenerationLimiter limiter = new AllureGenerationLimiter(settingsManager);
+        limiter.acquire();
+        limiter.acquire();
+
+        limiter.resize(1);
+        limiter.release();
+
+        assertThat(limiter.getPermits()).isEqualTo(1);
+        assertThat(limiter.getActivePermits()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SuppressWarnings("checkstyle:MultipleStringLiterals")
+public class AllureHistoryCompactorTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final AllureHistoryCompactor compactor = new AllureHistoryCompactor();
+    private Path historyDir;
+
+    @Before
+    public void setUp() {
+        historyDir = temporaryFolder.getRoot().toPath();
+    }
+
+    @Test
+    public void itShouldCapTheItemsOfEveryTestAndDropTestsNotSeenForLong() throws Exception {
+        Files.writeString(historyDir.resolve("history.json"), "{"
+                + "\"recent\":{\"statistic\":{\"total\":3},\"items\":[" + item(9) + "," + item(8) + "," + item(7) + "]},"
+                + "\"stale\":{\"statistic\":{\"total\":1},\"items\":[" + item(2) + "]},"
+                + "\"foreign\":{\"statistic\":{\"total\":1},\"items\":[{\"uid\":\"x\",\"reportUrl\":\"https://ci.example/1/\"}]}"
+                + "}", StandardCharsets.UTF_8);
+
+        compactor.compact(config("2", "5", null), historyDir, 10);
+
+        assertThat(Files.readString(historyDir.resolve("history.json"), StandardCharsets.UTF_8)).isEqualTo("{"
+                + "\"recent\":{\"statistic\":{\"total\":3},\"items\":[" + item(9) + "," + item(8) + "]},"
+                + "\"foreign\":{\"statistic\":{\"total\":1},\"items\":[{\"uid\":\"x\",\"reportUrl\":\"https://ci.example/1/\"}]}"
+                + "}");
+        assertThat(historyDir.resolve("history.json.tmp")).doesNotExist();
+    }
+
+    @Test
+    public void itShouldTrimTheTrendsToTheWindowCountingTheBuildItself() throws Exception {
+        Files.writeString(historyDir.resolve("history.json"), "{\"a\":{\"items\":[1,2,3]}}", StandardCharsets.UTF_8);
+        Files.writeString(historyDir.resolve("history-trend.json"),
+                "[{\"buildOrder\":9},{\"buildOrder\":8},{\"buildOrder\":7}]", StandardCharsets.UTF_8);
+        Files.writeString(historyDir.resolve("duration-trend.json"), "[{\"buildOrder\":9}]", StandardCharsets.UTF_8);
+
+        compactor.compact(config(null, null, "3"), historyDir, 10);
+
+        assertThat(historyDir.resolve("history-trend.json")).hasContent("[{\"buildOrder\":9},{\"buildOrder\":8}]");
+        assertThat(historyDir.resolve("duration-trend.json")).hasContent("[{\"buildOrder\":9}]");
+        assertThat(historyDir.resolve("history.json")).hasContent("{\"a\":{\"items\":[1,2,3]}}");
+    }
+
+    @Test
+    public void itShouldLeaveAFileItCannotParseUntouched() throws Exception {
+        Files.writeString(historyDir.resolve("history-trend.json"), "[{\"buildOrder\":9},", StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> compactor.compact(config(null, null, "1"), historyDir, 10))
+                .isInstanceOf(IOException.class);
+
+        assertThat(historyDir.resolve("history-trend.json")).hasContent("[{\"buildOrder\":9},");
+        assertThat(historyDir.resolve("history-trend.json.tmp")).doesNotExist();
+    }
+
+    private static AllureGlobalConfig config(final String maxItems,
+                                             final String maxAgeBuilds,
+                                             final String trendWindow) {
+        return new AllureGlobalConfig()
+                .withHistoryMaxItems(maxItems)
+                .withHistoryMaxAgeBuilds(maxAgeBuilds)
+                .withHistoryTrendWindow(trendWindow);
+    }
+
+    private static String item(final int buildNumber) {
+        return "{\"uid\":\"u" + buildNumber + "\",\"status\":\"passed\","
+                + "\"reportUrl\":\"https://bamboo.example/plugins/servlet/allure/report/PROJ-PLAN/" + buildNumber + "/#testresult/u" + buildNumber + "\"}";
+    }
+}
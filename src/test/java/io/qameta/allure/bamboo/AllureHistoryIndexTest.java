@@ -0,0 +1,89 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SuppressWarnings("checkstyle:MultipleStringLiterals")
+public class AllureHistoryIndexTest {
+
+    private static final String PLAN_KEY = "PROJ-PLAN";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private AllureGlobalConfig globalConfig;
+    private final AllureHistoryIndex index = new AllureHistoryIndex();
+
+    @Before
+    public void setUp() {
+        globalConfig = new AllureGlobalConfig(true, false, null, temporaryFolder.getRoot().getAbsolutePath(), true, false);
+    }
+
+    @Test
+    public void itShouldKeepTheNewestBuildsWithHistory() throws Exception {
+        assertThat(index.read(globalConfig, PLAN_KEY)).isEmpty();
+
+        for (int build = 1; build <= AllureHistoryIndex.MAX_BUILDS + 5; build++) {
+            index.record(globalConfig, PLAN_KEY, build);
+        }
+        index.record(globalConfig, PLAN_KEY, 10);
+
+        assertThat(index.read(globalConfig, PLAN_KEY)).hasValueSatisfying(builds -> {
+            assertThat(builds).hasSize(AllureHistoryIndex.MAX_BUILDS);
+            assertThat(builds.first()).isEqualTo(6);
+            assertThat(builds.lower(12)).isEqualTo(11);
+        });
+        final Path file = AllureHistoryIndex.indexOf(globalConfig, PLAN_KEY);
+        assertThat(Files.readString(file, StandardCharsets.UTF_8)).startsWith("[25,24,");
+        try (java.util.stream.Stream<Path> files = Files.list(file.getParent())) {
+            assertThat(files).containsExactly(file);
+        }
+    }
+
+    @Test
+    public void itShouldDropABuildFromTheIndex() throws Exception {
+        index.record(globalConfig, PLAN_KEY, 3);
+        index.record(globalConfig, PLAN_KEY, 4);
+
+        index.remove(globalConfig, PLAN_KEY, 4);
+        index.remove(globalConfig, PLAN_KEY, 7);
+
+        assertThat(index.read(globalConfig, PLAN_KEY)).hasValueSatisfying(builds -> assertThat(builds).containsExactly(3));
+    }
+
+    @Test
+    public void itShouldIgnoreAnUnreadableIndex() throws Exception {
+        final Path file = AllureHistoryIndex.indexOf(globalConfig, PLAN_KEY);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "[1,", StandardCharsets.UTF_8);
+
+        assertThat(index.read(globalConfig, PLAN_KEY)).isEmpty();
+
+        index.record(globalConfig, PLAN_KEY, 3);
+
+        assertThat(index.read(globalConfig, PLAN_KEY)).hasValueSatisfying(builds -> assertThat(builds).containsExactly(3));
+    }
+}
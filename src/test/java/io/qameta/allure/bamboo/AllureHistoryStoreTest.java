@@ -0,0 +1,76 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SuppressWarnings("checkstyle:MultipleStringLiterals")
+public class AllureHistoryStoreTest {
+
+    private static final String PLAN_KEY = "PROJ-PLAN";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final AllureHistoryStore store = new AllureHistoryStore();
+    private AllureGlobalConfig globalConfig;
+
+    @Before
+    public void setUp() {
+        globalConfig = new AllureGlobalConfig(true, false, null, temporaryFolder.getRoot().getAbsolutePath(), true, false);
+    }
+
+    @Test
+    public void itShouldServeTheHistoryOfTheLatestStoredBuildOnly() throws Exception {
+        final Path target = temporaryFolder.getRoot().toPath().resolve("target");
+
+        store.save(globalConfig, PLAN_KEY, 4, history("{\"build\":4}"));
+        store.save(globalConfig, PLAN_KEY, 6, history("{\"build\":6}"));
+        store.save(globalConfig, PLAN_KEY, 5, history("{\"build\":5}"));
+
+        assertThat(store.copyTo(globalConfig, PLAN_KEY, 4, target)).isFalse();
+        assertThat(store.copyTo(globalConfig, PLAN_KEY, 5, target)).isFalse();
+        assertThat(store.copyTo(globalConfig, PLAN_KEY, 6, target)).isTrue();
+        assertThat(target.resolve("history.json")).hasContent("{\"build\":6}");
+        assertThat(target.resolve("duration-trend.json")).hasContent("[]");
+        assertThat(target.resolve("unrelated.json")).doesNotExist();
+        try (java.util.stream.Stream<Path> entries = Files.list(AllureHistoryStore.planDir(globalConfig, PLAN_KEY))) {
+            assertThat(entries.map(entry -> entry.getFileName().toString())).containsExactly("6");
+        }
+    }
+
+    @Test
+    public void itShouldMissWhenNothingIsStored() {
+        assertThat(store.copyTo(globalConfig, PLAN_KEY, 1, temporaryFolder.getRoot().toPath().resolve("target"))).isFalse();
+    }
+
+    private Path history(final String historyJson) throws Exception {
+        final Path dir = temporaryFolder.newFolder().toPath();
+        Files.writeString(dir.resolve("history.json"), historyJson, StandardCharsets.UTF_8);
+        Files.writeString(dir.resolve("duration-trend.json"), "[]", StandardCharsets.UTF_8);
+        Files.writeString(dir.resolve("unrelated.json"), "{}", StandardCharsets.UTF_8);
+        return dir;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SuppressWarnings("checkstyle:MultipleStringLiterals")
+public class AllureIngestionBudgetTest {
+
+    @Test
+    public void itShouldAdmitEverythingWithoutLimits() {
+        final AllureIngestionBudget budget = AllureIngestionBudget.unlimited();
+
+        assertThat(budget.isLimited()).isFalse();
+        assertThat(budget.admit("a-result.json", Long.MAX_VALUE / 2)).isEqualTo(Long.MAX_VALUE / 2);
+        assertThat(budget.admit("b-result.json", AllureIngestionBudget.UNKNOWN_SIZE)).isEqualTo(Long.MAX_VALUE);
+        assertThat(budget.settle("b-result.json", Long.MAX_VALUE, Long.MAX_VALUE / 4)).isTrue();
+        assertThat(budget.isPartial()).isFalse();
+        assertThat(budget.getPartialDetails()).isNull();
+    }
+
+    @Test
+    public void itShouldStopOnceTheFileLimitIsReached() {
+        final AllureIngestionBudget budget = budget(0, 2, 0, AllureOversizeAction.SKIP);
+
+        assertThat(budget.admit("a-result.json", 10)).isEqualTo(10);
+        assertThat(budget.admit("b-result.json", 10)).isEqualTo(10);
+        assertThat(budget.admit("c-result.json", 10)).isEqualTo(AllureIngestionBudget.REFUSED);
+        assertThat(budget.admit("d-result.json", 1)).isEqualTo(AllureIngestionBudget.REFUSED);
+
+        assertThat(budget.isExhausted()).isTrue();
+        assertThat(budget.getPartialDetails()).isEqualTo("Partial report: staging stopped as the limit of 2 files was reached.");
+    }
+
+    @Test
+    public void itShouldSettleFilesOfUnknownSizeAgainstTheByteLimit() {
+        final AllureIngestionBudget budget = budget(100, 0, 0, AllureOversizeAction.SKIP);
+
+        assertThat(budget.admit("a-result.json", 60)).isEqualTo(60);
+        assertThat(budget.admit("b-attachment.txt", AllureIngestionBudget.UNKNOWN_SIZE)).isEqualTo(40);
+        assertThat(budget.settle("b-attachment.txt", 40, 50)).isFalse();
+
+        assertThat(budget.isExhausted()).isTrue();
+        assertThat(budget.admit("c-result.json", 1)).isEqualTo(AllureIngestionBudget.REFUSED);
+        assertThat(budget.getPartialDetails()).isEqualTo("Partial report: staging stopped as the limit of 100 bytes was reached.");
+    }
+
+    @Test
+    public void itShouldSkipOrStopOnOversizedFilesAsConfigured() {
+        final AllureIngestionBudget skipping = budget(0, 0, 10, AllureOversizeAction.SKIP);
+        final AllureIngestionBudget stopping = budget(0, 0, 10, AllureOversizeAction.STOP);
+
+        assertThat(skipping.admit("video-attachment.mp4", 11)).isEqualTo(AllureIngestionBudget.REFUSED);
+        assertThat(skipping.admit("a-result.json", 10)).isEqualTo(10);
+        assertThat(stopping.admit("video-attachment.mp4", 11)).isEqualTo(AllureIngestionBudget.REFUSED);
+        assertThat(stopping.admit("a-result.json", 10)).isEqualTo(AllureIngestionBudget.REFUSED);
+
+        assertThat(skipping.isExhausted()).isFalse();
+        assertThat(skipping.getPartialDetails()).isEqualTo("Partial report: 1 files over 10 bytes were skipped.");
+        assertThat(stopping.getPartialDetails())
+                .isEqualTo("Partial report: staging stopped as video-attachment.mp4 exceeds the single file limit of 10 bytes.");
+    }
+
+    @Test
+    public void itShouldChargeResultsStagedAheadOfTheReport() {
+        final AllureIngestionBudget budget = budget(0, 3, 0, AllureOversizeAction.SKIP);
+
+        budget.charge(2, 100, List.of("PROJ-PLAN-JOB1-5: 1 files over 1 MB were skipped"));
+        assertThat(budget.admit("a-result.json", 10)).isEqualTo(10);
+        budget.charge(2, 100, List.of());
+
+        assertThat(budget.isExhausted()).isTrue();
+        assertThat(budget.getPartialReasons()).containsExactly(
+                "staging stopped as 5 files of 210 bytes were staged ahead of the report",
+                "PROJ-PLAN-JOB1-5: 1 files over 1 MB were skipped"
+        );
+    }
+
+    @Test
+    public void itShouldReadTheLimitsFromTheGlobalConfig() {
+        final AllureIngestionBudget budget = AllureIngestionBudget.of(
+                new AllureGlobalConfig().withMaxResultsMb("2").withMaxResultFileMb("1").withOversizeAction("stop")
+        );
+
+        assertThat(budget.isLimited()).isTrue();
+        assertThat(budget.admit("a-attachment.bin", AllureIngestionBudget.UNKNOWN_SIZE)).isEqualTo(1024 * 1024);
+        assertThat(budget.admit("b-attachment.bin", 1024 * 1024 + 1)).isEqualTo(AllureIngestionBudget.REFUSED);
+        assertThat(budget.isExhausted()).isTrue();
+    }
+
+    @Test
+    public void itShouldReserveWhatIsLeftOfTheTotalForFilesOfUnknownSize() throws Exception {
+        final AllureIngestionBudget budget = budget(100, 0, 40, AllureOversizeAction.SKIP);
+
+        assertThat(budget.admit("a-result.json", 40)).isEqualTo(40);
+        assertThat(budget.admit("b-result.json", 30)).isEqualTo(30);
+        assertThat(budget.admit("c-attachment.txt", AllureIngestionBudget.UNKNOWN_SIZE)).isEqualTo(30);
+
+        final CompletableFuture<Long> waiting = CompletableFuture.supplyAsync(
+                () -> budget.admit("d-attachment.txt", AllureIngestionBudget.UNKNOWN_SIZE)
+        );
+        Thread.sleep(200);
+        assertThat(waiting).isNotDone();
+
+        assertThat(budget.settle("c-attachment.txt", 30, 10)).isTrue();
+        final long reserved = waiting.get(5, TimeUnit.SECONDS);
+        assertThat(reserved).isEqualTo(20);
+        budget.release(reserved);
+
+        assertThat(budget.admit("e-attachment.txt", AllureIngestionBudget.UNKNOWN_SIZE)).isEqualTo(20);
+        assertThat(budget.isExhausted()).isFalse();
+    }
+
+    @Test
+    public void itShouldNotSerializeConcurrentFilesOfUnknownSizeUnderATotalLimit() throws Exception {
+        final long maxBytes = 100 * AllureIngestionBudget.UNKNOWN_SIZE_RESERVATION;
+        final AllureIngestionBudget budget = budget(maxBytes, 0, 0, AllureOversizeAction.SKIP);
+
+        final CompletableFuture<Long> first = CompletableFuture.supplyAsync(
+                () -> budget.admit("a-attachment.bin", AllureIngestionBudget.UNKNOWN_SIZE)
+        );
+        final CompletableFuture<Long> second = CompletableFuture.supplyAsync(
+                () -> budget.admit("b-attachment.bin", AllureIngestionBudget.UNKNOWN_SIZE)
+        );
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(maxBytes);
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(maxBytes);
+        assertThat(budget.settle("a-attachment.bin", maxBytes, 3 * AllureIngestionBudget.UNKNOWN_SIZE_RESERVATION)).isTrue();
+        assertThat(budget.settle("b-attachment.bin", maxBytes, 2 * AllureIngestionBudget.UNKNOWN_SIZE_RESERVATION)).isTrue();
+        assertThat(budget.admit("c-attachment.bin", AllureIngestionBudget.UNKNOWN_SIZE))
+                .isEqualTo(95 * AllureIngestionBudget.UNKNOWN_SIZE_RESERVATION);
+        assertThat(budget.isExhausted()).isFalse();
+    }
+
+    @Test
+    public void itShouldStopOnceNothingIsLeftOfTheTotal() {
+        final AllureIngestionBudget budget = budget(100, 0, 0, AllureOversizeAction.SKIP);
+
+        assertThat(budget.admit("a-attachment.bin", AllureIngestionBudget.UNKNOWN_SIZE)).isEqualTo(100);
+        assertThat(budget.settle("a-attachment.bin", 100, 100)).isTrue();
+
+        assertThat(budget.admit("b-attachment.bin", AllureIngestionBudget.UNKNOWN_SIZE)).isEqualTo(AllureIngestionBudget.REFUSED);
+        assertThat(budget.getPartialDetails()).isEqualTo("Partial report: staging stopped as the limit of 100 bytes was reached.");
+    }
+
+    private static AllureIngestionBudget budget(final long maxBytes,
+                                                final long maxFiles,
+                                                final long maxFileBytes,
+                                                final AllureOversizeAction action) {
+        return new AllureIngestionBudget(maxBytes, maxFiles, maxFileBytes, action);
+    }
+}
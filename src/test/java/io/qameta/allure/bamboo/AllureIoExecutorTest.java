@@ -0,0 +1,104 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoRule;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+import static org.mockito.junit.MockitoJUnit.rule;
+
+@SuppressWarnings("checkstyle:MultipleStringLiterals")
+public class AllureIoExecutorTest {
+
+    @Rule
+    public MockitoRule mockitoRule = rule();
+
+    @Mock
+    private AllureSettingsManager settingsManager;
+
+    private AllureIoExecutor executor;
+
+    @Before
+    public void setUp() {
+        when(settingsManager.getSettings()).thenReturn(new AllureGlobalConfig().withMaxIoConcurrency("4"));
+        executor = new AllureIoExecutor(settingsManager);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void itShouldUseTheDefaultBoundWhenNotConfigured() {
+        assertThat(AllureIoExecutor.permitsFor(new AllureGlobalConfig()))
+                .isEqualTo(AllureIoExecutor.DEFAULT_MAX_IO_CONCURRENCY);
+        assertThat(AllureIoExecutor.permitsFor(new AllureGlobalConfig().withMaxIoConcurrency("128")))
+                .isEqualTo(128);
+    }
+
+    @Test
+    public void itShouldKeepTheConfiguredNumberOfTasksInFlightAndPreserveOrder() throws Exception {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final List<AllureIoExecutor.IoTask<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            final int index = i;
+            tasks.add(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                }
+                return index;
+            });
+        }
+
+        final List<Integer> results = executor.invokeAll(tasks);
+
+        assertThat(results).hasSize(50).isSorted();
+        assertThat(maxRunning.get()).isBetween(1, 4);
+    }
+
+    @Test
+    public void itShouldRethrowTheFailureOfATask() {
+        final List<AllureIoExecutor.IoTask<Void>> tasks = List.of(
+                () -> null,
+                () -> {
+                    throw new IOException("connection reset");
+                }
+        );
+
+        assertThatThrownBy(() -> executor.invokeAll(tasks))
+                .isInstanceOf(IOException.class)
+                .hasMessage("connection reset");
+    }
+}
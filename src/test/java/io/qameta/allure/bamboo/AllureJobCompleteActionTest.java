@@ -0,0 +1,124 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import com.atlassian.bamboo.build.BuildDefinition;
+import com.atlassian.bamboo.chains.StageExecution;
+import com.atlassian.bamboo.plan.cache.ImmutableChain;
+import com.atlassian.bamboo.plan.cache.ImmutableJob;
+import com.atlassian.bamboo.resultsummary.BuildResultsSummary;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoRule;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.atlassian.bamboo.plan.PlanKeys.getPlanKey;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_ARTIFACT_NAME;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_ENABLED;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_FAILED_ONLY;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_GENERATE_ON_DEMAND;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.junit.MockitoJUnit.rule;
+
+@SuppressWarnings("checkstyle:MultipleStringLiterals")
+public class AllureJobCompleteActionTest {
+
+    @Rule
+    public MockitoRule mockitoRule = rule();
+
+    @Mock
+    private AllureSettingsManager settingsManager;
+    @Mock
+    private AllureResultsPrestager prestager;
+    @Mock
+    private StageExecution stageExecution;
+    @Mock
+    private ImmutableJob job;
+    @Mock
+    private ImmutableChain chain;
+    @Mock
+    private BuildDefinition buildDefinition;
+    @Mock
+    private BuildResultsSummary jobResult;
+
+    private final Map<String, String> config = new HashMap<>();
+
+    @Before
+    public void setUp() {
+        final AllureGlobalConfig globalConfig = new AllureGlobalConfig(
+                "true", "false", "https://downloads.example/", "/tmp/allure", "false", "false"
+        );
+        when(settingsManager.getSettings()).thenReturn(globalConfig);
+        when(job.getParent()).thenReturn(chain);
+        when(chain.getBuildDefinition()).thenReturn(buildDefinition);
+        when(chain.getPlanKey()).thenReturn(getPlanKey("PROJ-PLAN"));
+        when(buildDefinition.getCustomConfiguration()).thenReturn(config);
+        when(jobResult.getBuildNumber()).thenReturn(5);
+        config.put(ALLURE_CONFIG_ENABLED, "true");
+        config.put(ALLURE_CONFIG_ARTIFACT_NAME, "allure-results");
+    }
+
+    @Test
+    public void itShouldStageTheResultsIntoTheWorkspaceOfTheChainBuild() {
+        newAction().execute(stageExecution, job, jobResult);
+
+        verify(prestager).stageAsync(
+                eq(AllureReportJournal.workspaceOf(settingsManager.getSettings(), "PROJ-PLAN", 5)),
+                eq(jobResult),
+                eq("allure-results"),
+                eq(AllureResultsFilter.ALL),
+                eq(settingsManager.getSettings())
+        );
+    }
+
+    @Test
+    public void itShouldOnlyStageFailedJobsOfPlansReportingFailures() {
+        config.put(ALLURE_CONFIG_FAILED_ONLY, "true");
+
+        newAction().execute(stageExecution, job, jobResult);
+        verify(prestager, never()).stageAsync(any(Path.class), any(BuildResultsSummary.class), anyString(), any(AllureResultsFilter.class), any(AllureGlobalConfig.class));
+
+        when(jobResult.isFailed()).thenReturn(true);
+        newAction().execute(stageExecution, job, jobResult);
+        verify(prestager).stageAsync(any(Path.class), any(BuildResultsSummary.class), anyString(), any(AllureResultsFilter.class), any(AllureGlobalConfig.class));
+    }
+
+    @Test
+    public void itShouldNotStageResultsOfDisabledOrOnDemandPlans() {
+        config.put(ALLURE_CONFIG_GENERATE_ON_DEMAND, "true");
+        newAction().execute(stageExecution, job, jobResult);
+
+        config.put(ALLURE_CONFIG_GENERATE_ON_DEMAND, "false");
+        config.put(ALLURE_CONFIG_ENABLED, "false");
+        newAction().execute(stageExecution, job, jobResult);
+
+        verify(prestager, never()).stageAsync(any(Path.class), any(BuildResultsSummary.class), anyString(), any(AllureResultsFilter.class), any(AllureGlobalConfig.class));
+    }
+
+    private AllureJobCompleteAction newAction() {
+        return new AllureJobCompleteAction(settingsManager, prestager);
+    }
+}
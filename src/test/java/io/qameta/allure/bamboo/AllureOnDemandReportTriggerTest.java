@@ -0,0 +1,133 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import com.atlassian.bamboo.build.BuildDefinition;
+import com.atlassian.bamboo.chains.ChainResultsSummary;
+import com.atlassian.bamboo.plan.PlanResultKey;
+import com.atlassian.bamboo.plan.cache.CachedPlanManager;
+import com.atlassian.bamboo.plan.cache.ImmutableChain;
+import com.atlassian.bamboo.resultsummary.ResultsSummaryManager;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoRule;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.atlassian.bamboo.plan.PlanKeys.getPlanKey;
+import static com.atlassian.bamboo.plan.PlanKeys.getPlanResultKey;
+import static io.qameta.allure.bamboo.AllureBuildResult.fromCustomData;
+import static io.qameta.allure.bamboo.AllureBuildResult.withReportStatus;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.junit.MockitoJUnit.rule;
+
+@SuppressWarnings("checkstyle:MultipleStringLiterals")
+public class AllureOnDemandReportTriggerTest {
+
+    private static final String PLAN_KEY = "PROJ-PLAN";
+    private static final PlanResultKey PLAN_RESULT_KEY = getPlanResultKey(PLAN_KEY, 7);
+
+    @Rule
+    public MockitoRule mockitoRule = rule();
+
+    @Mock
+    private CachedPlanManager planManager;
+    @Mock
+    private ResultsSummaryManager resultsSummaryManager;
+    @Mock
+    private AllureSettingsManager settingsManager;
+    @Mock
+    private AllureReportQueue reportQueue;
+    @Mock
+    private ImmutableChain chain;
+    @Mock
+    private BuildDefinition buildDefinition;
+    @Mock
+    private ChainResultsSummary summary;
+
+    private final Map<String, String> customData = new HashMap<>();
+
+    @Before
+    public void setUp() {
+        when(chain.getBuildDefinition()).thenReturn(buildDefinition);
+        when(buildDefinition.getCustomConfiguration()).thenReturn(new HashMap<>());
+        when(summary.getCustomBuildData()).thenReturn(customData);
+        when(settingsManager.getSettings()).thenReturn(new AllureGlobalConfig());
+        when(planManager.getPlanByKey(getPlanKey(PLAN_KEY), ImmutableChain.class)).thenReturn(chain);
+        when(resultsSummaryManager.getResultsSummary(PLAN_RESULT_KEY, ChainResultsSummary.class)).thenReturn(summary);
+    }
+
+    @Test
+    public void itShouldQueueTheRecordedResultsOnFirstView() {
+        withReportStatus(AllureReportStatus.ON_DEMAND)
+                .withResultsArtifactName("recorded-results")
+                .dumpToCustomData(customData);
+        final ArgumentCaptor<AllureReportJob> job = ArgumentCaptor.forClass(AllureReportJob.class);
+
+        final boolean started = newTrigger().start(PLAN_RESULT_KEY);
+
+        assertThat(started).isTrue();
+        verify(resultsSummaryManager).saveResultsSummary(summary);
+        verify(reportQueue).submit(job.capture());
+        assertThat(job.getValue().isOnDemand()).isTrue();
+        assertThat(job.getValue().getBuildConfig().getArtifactName()).isEqualTo("recorded-results");
+        assertThat(fromCustomData(customData).getStatus()).isEqualTo(AllureReportStatus.PENDING);
+    }
+
+    @Test
+    public void itShouldNotQueueReportsThatAreAlreadyQueued() {
+        withReportStatus(AllureReportStatus.PENDING).dumpToCustomData(customData);
+
+        final boolean started = newTrigger().start(PLAN_RESULT_KEY);
+
+        assertThat(started).isTrue();
+        verify(reportQueue, never()).submit(any(AllureReportJob.class));
+    }
+
+    @Test
+    public void itShouldResumeInterruptedReportsWhateverTheirRecordedStatus() {
+        withReportStatus(AllureReportStatus.PENDING).dumpToCustomData(customData);
+        final ArgumentCaptor<AllureReportJob> job = ArgumentCaptor.forClass(AllureReportJob.class);
+
+        final boolean resumed = newTrigger().resume(PLAN_RESULT_KEY, false);
+
+        assertThat(resumed).isTrue();
+        verify(reportQueue).submit(job.capture());
+        assertThat(job.getValue().isOnDemand()).isFalse();
+    }
+
+    @Test
+    public void itShouldRefuseBuildsThatNoLongerExist() {
+        when(resultsSummaryManager.getResultsSummary(PLAN_RESULT_KEY, ChainResultsSummary.class)).thenReturn(null);
+
+        final boolean started = newTrigger().start(PLAN_RESULT_KEY);
+
+        assertThat(started).isFalse();
+        verify(reportQueue, never()).submit(any(AllureReportJob.class));
+    }
+
+    private AllureOnDemandReportTrigger newTrigger() {
+        return new AllureOnDemandReportTrigger(planManager, resultsSummaryManager, settingsManager, reportQueue);
+    }
+}
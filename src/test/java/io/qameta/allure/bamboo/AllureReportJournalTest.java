@@ -0,0 +1,82 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SuppressWarnings("checkstyle:MultipleStringLiterals")
+public class AllureReportJournalTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void itShouldReadBackTheCompletedStages() throws Exception {
+        final Path workspace = temporaryFolder.getRoot().toPath();
+        final AllureReportJournal journal = new AllureReportJournal();
+        journal.setPlanKey("PROJ-PLAN");
+        journal.setBuildNumber(5);
+        journal.setOnDemand(true);
+        journal.getArtifactsPaths().add("allure-results");
+        journal.setDownloadedBytes(42);
+
+        journal.complete(AllureReportStage.DOWNLOAD, workspace);
+        journal.complete(AllureReportStage.DOWNLOAD, workspace);
+        journal.complete(AllureReportStage.HISTORY, workspace);
+
+        final AllureReportJournal read = AllureReportJournal.read(workspace).orElseThrow();
+        assertThat(read.getPlanKey()).isEqualTo("PROJ-PLAN");
+        assertThat(read.getBuildNumber()).isEqualTo(5);
+        assertThat(read.isOnDemand()).isTrue();
+        assertThat(read.getCompletedStages()).containsExactly("DOWNLOAD", "HISTORY");
+        assertThat(read.isCompleted(AllureReportStage.GENERATE)).isFalse();
+        assertThat(read.getArtifactsPaths()).containsExactly("allure-results");
+        assertThat(read.getDownloadedBytes()).isEqualTo(42);
+        assertThat(workspace.resolve(AllureReportJournal.FILE_NAME + ".tmp")).doesNotExist();
+    }
+
+    @Test
+    public void itShouldIgnoreMissingAndCorruptJournals() throws Exception {
+        final Path workspace = temporaryFolder.getRoot().toPath();
+
+        assertThat(AllureReportJournal.read(workspace)).isEmpty();
+
+        Files.writeString(workspace.resolve(AllureReportJournal.FILE_NAME), "{\"planKey\":");
+
+        assertThat(AllureReportJournal.read(workspace)).isEmpty();
+    }
+
+    @Test
+    public void itShouldKeepTheWorkspacesInTheScratchDirectoryWhenConfigured() {
+        final AllureGlobalConfig config = new AllureGlobalConfig(true, false, null, "/var/allure", true, false);
+
+        assertThat(AllureReportJournal.workspaceOf(config, "PROJ-PLAN", 5))
+                .isEqualTo(Paths.get("/var/allure", AllureReportJournal.WORK_SUBDIR, "PROJ-PLAN", "5"));
+
+        config.withScratchPath(" /mnt/nvme ");
+
+        assertThat(AllureReportJournal.workspaceOf(config, "PROJ-PLAN", 5))
+                .isEqualTo(Paths.get("/mnt/nvme", AllureReportJournal.WORK_SUBDIR, "PROJ-PLAN", "5"));
+    }
+}
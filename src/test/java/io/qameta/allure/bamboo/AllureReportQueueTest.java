@@ -0,0 +1,319 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import com.atlassian.bamboo.chains.ChainResultsSummary;
+import com.atlassian.bamboo.plan.cache.ImmutableChain;
+import com.atlassian.bamboo.resultsummary.ResultsSummary;
+import com.atlassian.bamboo.resultsummary.ResultsSummaryManager;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoRule;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static com.atlassian.bamboo.plan.PlanKeys.getPlanKey;
+import static com.atlassian.bamboo.plan.PlanKeys.getPlanResultKey;
+import static io.qameta.allure.bamboo.AllureBuildResult.allureBuildResult;
+import static io.qameta.allure.bamboo.AllureBuildResult.fromCustomData;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_COALESCE_BUILDS;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_PRIORITY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.junit.MockitoJUnit.rule;
+
+@SuppressWarnings("checkstyle:MultipleStringLiterals")
+public class AllureReportQueueTest {
+
+    private static final String PLAN_KEY = "PROJ-PLAN";
+    private static final int BUILD_NUMBER = 5;
+
+    @Rule
+    public MockitoRule mockitoRule = rule();
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private AllureReportGenerator generator;
+    @Mock
+    private ResultsSummaryManager resultsSummaryManager;
+    @Mock
+    private AllureGenerationLimiter limiter;
+    @Mock
+    private ImmutableChain chain;
+    @Mock
+    private ChainResultsSummary chainResultsSummary;
+    @Mock
+    private ResultsSummary storedSummary;
+
+    private final List<Runnable> queuedTasks = new ArrayList<>();
+    private final Map<String, String> storedCustomData = new HashMap<>();
+
+    @Before
+    public void setUp() {
+        when(chain.getPlanKey()).thenReturn(getPlanKey(PLAN_KEY));
+        when(chainResultsSummary.getBuildNumber()).thenReturn(BUILD_NUMBER);
+        when(chainResultsSummary.getCustomBuildData()).thenReturn(new HashMap<>());
+        when(storedSummary.getCustomBuildData()).thenReturn(storedCustomData);
+        when(resultsSummaryManager.getResultsSummary(getPlanResultKey(PLAN_KEY, BUILD_NUMBER)))
+                .thenReturn(storedSummary);
+    }
+
+    @Test
+    public void itShouldOnlyMarkTheReportPendingOnSubmit() {
+        final AllureReportQueue queue = new AllureReportQueue(generator, resultsSummaryManager, limiter, queuedTasks::add);
+
+        queue.submit(job());
+
+        assertThat(queuedTasks).hasSize(1);
+        assertThat(fromCustomData(chainResultsSummary.getCustomBuildData()).getStatus())
+                .isEqualTo(AllureReportStatus.PENDING);
+        assertThat(fromCustomData(chainResultsSummary.getCustomBuildData()).hasInfo()).isTrue();
+        verify(generator, never()).generate(any(AllureReportJob.class), anyMap());
+    }
+
+    @Test
+    public void itShouldPublishTheWorkerResultIntoTheStoredSummary() {
+        final AllureReportQueue queue = new AllureReportQueue(generator, resultsSummaryManager, limiter, queuedTasks::add);
+        doAnswer(invocation -> {
+            final Map<String, String> customBuildData = invocation.getArgument(1);
+            assertThat(fromCustomData(storedCustomData).getStatus()).isEqualTo(AllureReportStatus.IN_PROGRESS);
+            allureBuildResult(true, null).withHandlerClass("handler").dumpToCustomData(customBuildData);
+            return null;
+        }).when(generator).generate(any(AllureReportJob.class), anyMap());
+
+        queue.submit(job());
+        queuedTasks.forEach(Runnable::run);
+
+        final AllureBuildResult stored = fromCustomData(storedCustomData);
+        assertThat(stored.getStatus()).isEqualTo(AllureReportStatus.FINISHED);
+        assertThat(stored.isSuccess()).isTrue();
+        assertThat(stored.getArtifactHandlerClass()).isEqualTo("handler");
+        assertThat(fromCustomData(chainResultsSummary.getCustomBuildData()).isSuccess()).isTrue();
+        verify(resultsSummaryManager, times(2)).saveResultsSummary(storedSummary);
+    }
+
+    @Test
+    public void itShouldRecordFailureWhenTheWorkerThrows() {
+        final AllureReportQueue queue = new AllureReportQueue(generator, resultsSummaryManager, limiter, Runnable::run);
+        doAnswer(invocation -> {
+            throw new IllegalStateException("boom");
+        }).when(generator).generate(any(AllureReportJob.class), anyMap());
+
+        queue.submit(job());
+
+        final AllureBuildResult stored = fromCustomData(storedCustomData);
+        assertThat(stored.getStatus()).isEqualTo(AllureReportStatus.FINISHED);
+        assertThat(stored.isSuccess()).isFalse();
+        assertThat(stored.getFailureDetails()).contains("boom");
+        verify(limiter).release();
+    }
+
+    @Test
+    public void itShouldFinishTheReportWhenTheWorkerRecordsNoStatus() {
+        final AllureReportQueue queue = new AllureReportQueue(generator, resultsSummaryManager, limiter, Runnable::run);
+
+        queue.submit(job());
+
+        assertThat(fromCustomData(storedCustomData).getStatus()).isEqualTo(AllureReportStatus.FINISHED);
+        assertThat(fromCustomData(chainResultsSummary.getCustomBuildData()).getStatus())
+                .isEqualTo(AllureReportStatus.FINISHED);
+    }
+
+    @Test
+    public void itShouldGenerateOnlyAfterAcquiringAGenerationSlot() throws InterruptedException {
+        final AllureReportQueue queue = new AllureReportQueue(generator, resultsSummaryManager, limiter, Runnable::run);
+
+        queue.submit(job());
+
+        final InOrder inOrder = inOrder(limiter, generator);
+        inOrder.verify(limiter).acquire();
+        inOrder.verify(generator).generate(any(AllureReportJob.class), anyMap());
+        inOrder.verify(limiter).release();
+    }
+
+    @Test
+    public void itShouldSupersedeOlderPendingBuildsOfTheSamePlan() {
+        final AllureReportQueue queue = new AllureReportQueue(generator, resultsSummaryManager, limiter, queuedTasks::add);
+        final ChainResultsSummary newerSummary = mock(ChainResultsSummary.class);
+        when(newerSummary.getBuildNumber()).thenReturn(BUILD_NUMBER + 1);
+        when(newerSummary.getCustomBuildData()).thenReturn(new HashMap<>());
+        final AllureReportJob older = job(chainResultsSummary, coalescing());
+        final AllureReportJob newer = job(newerSummary, coalescing());
+
+        queue.submit(older);
+        queue.submit(newer);
+        queuedTasks.forEach(Runnable::run);
+
+        assertThat(fromCustomData(chainResultsSummary.getCustomBuildData()).getStatus())
+                .isEqualTo(AllureReportStatus.SUPERSEDED);
+        assertThat(fromCustomData(storedCustomData).getStatus()).isEqualTo(AllureReportStatus.SUPERSEDED);
+        verify(generator, never()).generate(eq(older), anyMap());
+        verify(generator).generate(eq(newer), anyMap());
+        verify(generator).discard(older);
+        verify(generator, never()).discard(newer);
+    }
+
+    @Test
+    public void itShouldJournalJobsSoTheyAreResumedIfTheServerStopsBeforeTheyRun() {
+        final AllureReportQueue queue = new AllureReportQueue(generator, resultsSummaryManager, limiter, queuedTasks::add);
+
+        queue.submit(job());
+
+        assertThat(AllureReportJournal.read(workspaceOf(BUILD_NUMBER))).hasValueSatisfying(journal -> {
+            assertThat(journal.getPlanKey()).isEqualTo(PLAN_KEY);
+            assertThat(journal.getBuildNumber()).isEqualTo(BUILD_NUMBER);
+            assertThat(journal.getCompletedStages()).isEmpty();
+        });
+    }
+
+    @Test
+    public void itShouldKeepTheJournalOfAResumedJob() throws Exception {
+        final AllureReportQueue queue = new AllureReportQueue(generator, resultsSummaryManager, limiter, queuedTasks::add);
+        final Path workspace = workspaceOf(BUILD_NUMBER);
+        final AllureReportJournal interrupted = new AllureReportJournal(job());
+        interrupted.complete(AllureReportStage.DOWNLOAD, Files.createDirectories(workspace));
+
+        queue.submit(job());
+
+        assertThat(AllureReportJournal.read(workspace)).hasValueSatisfying(
+                journal -> assertThat(journal.getCompletedStages()).containsExactly("DOWNLOAD")
+        );
+    }
+
+    @Test
+    public void itShouldGenerateEveryBuildWhenCoalescingIsDisabled() {
+        final AllureReportQueue queue = new AllureReportQueue(generator, resultsSummaryManager, limiter, queuedTasks::add);
+
+        queue.submit(job());
+        queue.submit(job());
+        queuedTasks.forEach(Runnable::run);
+
+        verify(generator, times(2)).generate(any(AllureReportJob.class), anyMap());
+    }
+
+    @Test
+    public void itShouldGenerateFailedBuildsBeforeOlderGreenOnes() {
+        final AllureReportQueue queue = new AllureReportQueue(generator, resultsSummaryManager, limiter, queuedTasks::add);
+        final ChainResultsSummary failedSummary = mock(ChainResultsSummary.class);
+        when(failedSummary.getBuildNumber()).thenReturn(BUILD_NUMBER + 1);
+        when(failedSummary.getCustomBuildData()).thenReturn(new HashMap<>());
+        when(failedSummary.isFailed()).thenReturn(true);
+        final AllureReportJob green = job();
+        final AllureReportJob failed = job(failedSummary, AllureBuildConfig.fromContext(new HashMap<>()));
+
+        queue.submit(green);
+        queue.submit(failed);
+        queuedTasks.forEach(Runnable::run);
+
+        final InOrder inOrder = inOrder(generator);
+        inOrder.verify(generator).generate(eq(failed), anyMap());
+        inOrder.verify(generator).generate(eq(green), anyMap());
+    }
+
+    @Test
+    public void itShouldSizeTheWorkersByTheGenerationSlots() {
+        final ThreadPoolExecutor pool = AllureReportQueue.newWorkerPool(1);
+        try {
+            final AllureReportQueue queue = new AllureReportQueue(generator, resultsSummaryManager, limiter, pool);
+            when(limiter.refreshPermits()).thenReturn(3);
+            queue.submit(job());
+
+            assertThat(pool.getCorePoolSize()).isEqualTo(3);
+            assertThat(pool.getMaximumPoolSize()).isEqualTo(3);
+
+            when(limiter.refreshPermits()).thenReturn(2);
+            queue.submit(job());
+
+            assertThat(pool.getCorePoolSize()).isEqualTo(2);
+            assertThat(pool.getMaximumPoolSize()).isEqualTo(2);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void itShouldReportTheWaitingJobsAndTheTimeTheySpentQueued() {
+        final AllureReportQueue queue = new AllureReportQueue(generator, resultsSummaryManager, limiter, queuedTasks::add);
+        final AllureReportJob job = job();
+
+        queue.submit(job);
+        assertThat(queue.getWaitingJobs()).isEqualTo(1);
+
+        queuedTasks.forEach(Runnable::run);
+        final long queuedAtMost = System.currentTimeMillis() - job.getCreatedAt();
+
+        assertThat(queue.getWaitingJobs()).isZero();
+        assertThat(queue.getLastQueuedMillis()).isBetween(0L, queuedAtMost);
+        assertThat(queue.getAverageQueuedMillis()).isEqualTo(queue.getLastQueuedMillis());
+    }
+
+    @Test
+    public void itShouldMoveJobsAheadByTheirPlanPriority() {
+        final Map<String, String> context = new HashMap<>();
+        context.put(ALLURE_CONFIG_PRIORITY, "3");
+        final AllureReportJob prioritized = job(chainResultsSummary, AllureBuildConfig.fromContext(context));
+        final AllureReportJob plain = job();
+
+        assertThat(AllureReportQueue.rank(prioritized))
+                .isEqualTo(prioritized.getCreatedAt() - 3 * AllureReportQueue.PRIORITY_HEAD_START_MILLIS);
+        assertThat(AllureReportQueue.rank(plain)).isEqualTo(plain.getCreatedAt());
+    }
+
+    private AllureBuildConfig coalescing() {
+        final Map<String, String> context = new HashMap<>();
+        context.put(ALLURE_CONFIG_COALESCE_BUILDS, "true");
+        return AllureBuildConfig.fromContext(context);
+    }
+
+    private AllureReportJob job() {
+        return job(chainResultsSummary, AllureBuildConfig.fromContext(new HashMap<>()));
+    }
+
+    private AllureReportJob job(final ChainResultsSummary summary,
+                                final AllureBuildConfig buildConfig) {
+        return new AllureReportJob(chain, summary, buildConfig, globalConfig());
+    }
+
+    private AllureGlobalConfig globalConfig() {
+        return new AllureGlobalConfig(
+                "true", "false", "https://downloads.example/", temporaryFolder.getRoot().getAbsolutePath(), "false", "false"
+        );
+    }
+
+    private Path workspaceOf(final int buildNumber) {
+        return AllureReportJournal.workspaceOf(globalConfig(), PLAN_KEY, buildNumber);
+    }
+}
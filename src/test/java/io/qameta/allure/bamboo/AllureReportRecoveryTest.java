@@ -0,0 +1,109 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoRule;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.atlassian.bamboo.plan.PlanKeys.getPlanResultKey;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.junit.MockitoJUnit.rule;
+
+@SuppressWarnings("checkstyle:MultipleStringLiterals")
+public class AllureReportRecoveryTest {
+
+    private static final String PLAN_KEY = "PROJ-PLAN";
+
+    @Rule
+    public MockitoRule mockitoRule = rule();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private AllureSettingsManager settingsManager;
+    @Mock
+    private AllureOnDemandReportTrigger reportTrigger;
+
+    private AllureGlobalConfig globalConfig;
+
+    @Before
+    public void setUp() {
+        globalConfig = new AllureGlobalConfig(
+                "true",
+                "false",
+                "https://downloads.example/",
+                temporaryFolder.getRoot().getAbsolutePath(),
+                "false",
+                "false"
+        );
+        when(settingsManager.getSettings()).thenReturn(globalConfig);
+    }
+
+    @Test
+    public void itShouldResumeJournaledWorkspaces() throws Exception {
+        final Path workspace = journaled(7, true);
+        when(reportTrigger.resume(getPlanResultKey(PLAN_KEY, 7), true)).thenReturn(true);
+
+        new AllureReportRecovery(settingsManager, reportTrigger).onStart();
+
+        verify(reportTrigger).resume(getPlanResultKey(PLAN_KEY, 7), true);
+        assertThat(workspace).exists();
+    }
+
+    @Test
+    public void itShouldRemoveWorkspacesOfBuildsThatNoLongerExist() throws Exception {
+        final Path workspace = journaled(8, false);
+        when(reportTrigger.resume(getPlanResultKey(PLAN_KEY, 8), false)).thenReturn(false);
+
+        new AllureReportRecovery(settingsManager, reportTrigger).onStart();
+
+        assertThat(workspace).doesNotExist();
+    }
+
+    @Test
+    public void itShouldRemoveWorkspacesWithoutJournal() throws Exception {
+        final Path workspace = Files.createDirectories(AllureReportJournal.workspaceOf(globalConfig, PLAN_KEY, 9));
+
+        new AllureReportRecovery(settingsManager, reportTrigger).onStart();
+
+        verify(reportTrigger, never()).resume(any(), anyBoolean());
+        assertThat(workspace).doesNotExist();
+    }
+
+    private Path journaled(final int buildNumber,
+                           final boolean onDemand) throws Exception {
+        final Path workspace = Files.createDirectories(AllureReportJournal.workspaceOf(globalConfig, PLAN_KEY, buildNumber));
+        final AllureReportJournal journal = new AllureReportJournal();
+        journal.setPlanKey(PLAN_KEY);
+        journal.setBuildNumber(buildNumber);
+        journal.setOnDemand(onDemand);
+        journal.write(workspace);
+        return workspace;
+    }
+}
@@ -87,6 +87,8 @@ public class AllureReportServletTest {
     private LoginUriProvider loginUriProvider;
     @Mock
     private UserManager userManager;
+    @Mock
+    private AllureOnDemandReportTrigger onDemandReportTrigger;
 
     private ByteArrayOutputStream outputStream;
     private StringWriter responseWriter;
@@ -96,7 +98,7 @@ public class AllureReportServletTest {
     public void setUp() throws Exception {
         servlet = new AllureReportServlet(
                 artifactsManager, resultsSummaryManager, permissionManager,
-                loginUriProvider, userManager
+                loginUriProvider, userManager, onDemandReportTrigger
         ) {
             @Override
             public ServletContext getServletContext() {
@@ -317,6 +319,60 @@ public class AllureReportServletTest {
         verify(artifactsManager, never()).getArtifactUrl(anyString(), anyString(), anyString());
     }
 
+    @Test
+    public void itShouldRenderPendingStateWhileReportIsQueued() {
+        final ResultsSummary resultsSummary = org.mockito.Mockito.mock(ResultsSummary.class);
+        final Map<String, String> customData = new HashMap<>();
+        AllureBuildResult.withReportStatus(AllureReportStatus.PENDING).dumpToCustomData(customData);
+        doReturn(customData).when(resultsSummary).getCustomBuildData();
+        when(request.getRequestURI()).thenReturn(reportUri("index.html"));
+        when(resultsSummaryManager.getResultsSummary(getPlanResultKey(PLAN_KEY, BUILD_NUMBER)))
+                .thenReturn(resultsSummary);
+
+        servlet.doGet(request, response);
+
+        assertThat(responseWriter.toString()).contains("waiting in the generation queue");
+        verify(response).setStatus(HttpServletResponse.SC_ACCEPTED);
+        verify(response).setHeader("Refresh", "10");
+        verify(artifactsManager, never()).getArtifactUrl(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void itShouldStartOnDemandGenerationOnFirstView() {
+        final ResultsSummary resultsSummary = org.mockito.Mockito.mock(ResultsSummary.class);
+        final Map<String, String> customData = new HashMap<>();
+        AllureBuildResult.withReportStatus(AllureReportStatus.ON_DEMAND).dumpToCustomData(customData);
+        doReturn(customData).when(resultsSummary).getCustomBuildData();
+        when(request.getRequestURI()).thenReturn(reportUri("index.html"));
+        when(resultsSummaryManager.getResultsSummary(getPlanResultKey(PLAN_KEY, BUILD_NUMBER)))
+                .thenReturn(resultsSummary);
+        when(onDemandReportTrigger.start(getPlanResultKey(PLAN_KEY, BUILD_NUMBER))).thenReturn(true);
+
+        servlet.doGet(request, response);
+
+        verify(onDemandReportTrigger).start(getPlanResultKey(PLAN_KEY, BUILD_NUMBER));
+        assertThat(responseWriter.toString()).contains("waiting in the generation queue");
+        verify(response).setStatus(HttpServletResponse.SC_ACCEPTED);
+        verify(artifactsManager, never()).getArtifactUrl(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void itShouldRequestSupersededReportAndExplainMissingResults() {
+        final ResultsSummary resultsSummary = org.mockito.Mockito.mock(ResultsSummary.class);
+        final Map<String, String> customData = new HashMap<>();
+        AllureBuildResult.withReportStatus(AllureReportStatus.SUPERSEDED).dumpToCustomData(customData);
+        doReturn(customData).when(resultsSummary).getCustomBuildData();
+        when(request.getRequestURI()).thenReturn(reportUri("index.html"));
+        when(resultsSummaryManager.getResultsSummary(getPlanResultKey(PLAN_KEY, BUILD_NUMBER)))
+                .thenReturn(resultsSummary);
+
+        servlet.doGet(request, response);
+
+        verify(onDemandReportTrigger).start(getPlanResultKey(PLAN_KEY, BUILD_NUMBER));
+        assertThat(responseWriter.toString()).contains("no longer exist");
+        verify(artifactsManager, never()).getArtifactUrl(anyString(), anyString(), anyString());
+    }
+
     @Test
     public void itShouldReturnNotFoundForMissingArtifactsOnHeadRequests() throws Exception {
         final java.nio.file.Path missingFile = temporaryFolder.getRoot().toPath().resolve("missing.html");
@@ -0,0 +1,84 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import com.atlassian.bamboo.build.logger.BuildLogger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoRule;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.verify;
+import static org.mockito.junit.MockitoJUnit.rule;
+
+@SuppressWarnings("checkstyle:MultipleStringLiterals")
+public class AllureReportTimingsTest {
+
+    @Rule
+    public MockitoRule mockitoRule = rule();
+
+    @Mock
+    private BuildLogger buildLogger;
+
+    @Test
+    public void itShouldStoreFinishedStagesInCustomBuildData() {
+        final AllureReportTimings timings = new AllureReportTimings();
+        timings.start(AllureReportStage.DOWNLOAD);
+        timings.finish(AllureReportStage.DOWNLOAD, 2048);
+        timings.start(AllureReportStage.GENERATE);
+        final Map<String, String> customData = new HashMap<>();
+
+        timings.dumpToCustomData(customData);
+
+        assertThat(customData)
+                .containsEntry("custom.allure.build.report.timing.download.bytes", "2048")
+                .containsKey("custom.allure.build.report.timing.download.ms")
+                .doesNotContainKey("custom.allure.build.report.timing.generate.ms");
+    }
+
+    @Test
+    public void itShouldReadTimingsBackInStageOrder() {
+        final Map<String, String> customData = new HashMap<>();
+        customData.put("custom.allure.build.report.timing.upload.ms", "30");
+        customData.put("custom.allure.build.report.timing.upload.bytes", "1048576");
+        customData.put("custom.allure.build.report.timing.download.ms", "1200");
+        customData.put("custom.allure.build.report.timing.download.bytes", "10");
+
+        final AllureReportTimings timings = AllureReportTimings.fromCustomData(customData);
+
+        assertThat(timings.getStages())
+                .extracting(AllureReportTimings.StageTiming::getStage)
+                .containsExactly("Artifacts download", "Report upload");
+        assertThat(timings.getStages().get(0).getMillis()).isEqualTo(1200);
+        assertThat(timings.getStages().get(1).getSize()).isEqualTo("1 MB");
+    }
+
+    @Test
+    public void itShouldAppendTimingsToTheBuildLog() {
+        final Map<String, String> customData = new HashMap<>();
+        customData.put("custom.allure.build.report.timing.zip.ms", "15");
+        customData.put("custom.allure.build.report.timing.zip.bytes", "0");
+
+        AllureReportTimings.fromCustomData(customData).logTo(buildLogger);
+
+        verify(buildLogger).addBuildLogEntry(startsWith("Allure Report: Report zip took 15 ms"));
+    }
+}
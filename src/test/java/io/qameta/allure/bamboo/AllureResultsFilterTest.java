@@ -0,0 +1,56 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SuppressWarnings("checkstyle:MultipleStringLiterals")
+public class AllureResultsFilterTest {
+
+    @Test
+    public void itShouldAcceptEverythingWithoutPatterns() {
+        final AllureResultsFilter filter = AllureResultsFilter.of(" ", null);
+
+        assertThat(filter).isSameAs(AllureResultsFilter.ALL);
+        assertThat(filter.acceptsFile("logs/raw.log")).isTrue();
+        assertThat(filter.acceptsDirectory("logs")).isTrue();
+    }
+
+    @Test
+    public void itShouldMatchFileNamePatternsInAnyDirectory() {
+        final AllureResultsFilter filter = AllureResultsFilter.of("*-result.json,\n*-container.json, *-attachment*", "*.hprof");
+
+        assertThat(filter.acceptsFile("a-result.json")).isTrue();
+        assertThat(filter.acceptsFile("nested/deeper/b-container.json")).isTrue();
+        assertThat(filter.acceptsFile("nested\\c-attachment.png")).isTrue();
+        assertThat(filter.acceptsFile("raw.log")).isFalse();
+        assertThat(filter.acceptsFile("heap-result.json.hprof")).isFalse();
+    }
+
+    @Test
+    public void itShouldMatchPathPatternsFromTheArtifactRoot() {
+        final AllureResultsFilter filter = AllureResultsFilter.of("results/**", "**/tmp");
+
+        assertThat(filter.acceptsFile("results/a-result.json")).isTrue();
+        assertThat(filter.acceptsFile("results/nested/a-result.json")).isTrue();
+        assertThat(filter.acceptsFile("other/results/a-result.json")).isFalse();
+        assertThat(filter.acceptsDirectory("tmp")).isFalse();
+        assertThat(filter.acceptsDirectory("results/tmp")).isFalse();
+        assertThat(filter.acceptsDirectory("results")).isTrue();
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import com.atlassian.bamboo.resultsummary.BuildResultsSummary;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoRule;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.atlassian.bamboo.plan.PlanKeys.getPlanResultKey;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.junit.MockitoJUnit.rule;
+
+@SuppressWarnings("checkstyle:MultipleStringLiterals")
+public class AllureResultsPrestagerTest {
+
+    @Rule
+    public MockitoRule mockitoRule = rule();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private AllureArtifactsManager artifactsManager;
+    @Mock
+    private AllureSettingsManager settingsManager;
+    @Mock
+    private BuildResultsSummary jobResult;
+    @Mock
+    private BuildResultsSummary otherJobResult;
+
+    private AllureIoExecutor ioExecutor;
+    private AllureResultsPrestager prestager;
+    private Path workspace;
+    private Path artifactsDir;
+
+    @Before
+    public void setUp() throws Exception {
+        when(settingsManager.getSettings()).thenReturn(new AllureGlobalConfig());
+        when(jobResult.getPlanResultKey()).thenReturn(getPlanResultKey("PROJ-PLAN-JOB1", 5));
+        ioExecutor = new AllureIoExecutor(settingsManager);
+        prestager = new AllureResultsPrestager(artifactsManager, ioExecutor);
+        workspace = temporaryFolder.newFolder("workspace").toPath();
+        artifactsDir = Files.createDirectories(workspace.resolve("artifacts"));
+    }
+
+    @After
+    public void tearDown() {
+        ioExecutor.shutdown();
+    }
+
+    @Test
+    public void itShouldCountAndValidateTheStagedResults() throws Exception {
+        when(artifactsManager.downloadJobArtifactsTo(eq(jobResult), any(File.class), eq("allure-results"), any(AllureResultsFilter.class), any(AllureIngestionBudget.class)))
+                .thenAnswer(invocation -> List.of(writeResults(invocation.getArgument(1, File.class).toPath())));
+
+        final AllureResultsPrestager.Manifest manifest = prestager.stage(workspace, jobResult, "allure-results", AllureResultsFilter.ALL, AllureIngestionBudget.unlimited());
+
+        assertThat(manifest.getPaths()).containsExactly("results");
+        assertThat(manifest.getFiles()).isEqualTo(3);
+        assertThat(manifest.getResults()).isEqualTo(1);
+        assertThat(manifest.getInvalidResults()).isEqualTo(1);
+        assertThat(manifest.getBytes()).isPositive();
+        assertThat(workspace.resolve(AllureResultsPrestager.PRESTAGED_DIR).resolve("PROJ-PLAN-JOB1-5")
+                .resolve(AllureResultsPrestager.MANIFEST_FILE)).isRegularFile();
+    }
+
+    @Test
+    public void itShouldMoveStagedJobsIntoTheArtifactsDirectory() throws Exception {
+        final CountDownLatch downloading = new CountDownLatch(1);
+        when(artifactsManager.downloadJobArtifactsTo(eq(jobResult), any(File.class), eq("allure-results"), any(AllureResultsFilter.class), any(AllureIngestionBudget.class)))
+                .thenAnswer(invocation -> {
+                    assertThat(downloading.await(5, TimeUnit.SECONDS)).isTrue();
+                    return List.of(writeResults(invocation.getArgument(1, File.class).toPath()));
+                });
+
+        prestager.stageAsync(workspace, jobResult, "allure-results", AllureResultsFilter.ALL, new AllureGlobalConfig());
+        downloading.countDown();
+        final Map<String, List<Path>> staged = prestager.adopt(workspace, artifactsDir, AllureIngestionBudget.unlimited());
+
+        assertThat(staged).containsOnlyKeys("PROJ-PLAN-JOB1-5");
+        assertThat(staged.get("PROJ-PLAN-JOB1-5")).containsExactly(artifactsDir.resolve("results"));
+        assertThat(artifactsDir.resolve("results").resolve("a-result.json")).isRegularFile();
+        assertThat(workspace.resolve(AllureResultsPrestager.PRESTAGED_DIR)).doesNotExist();
+    }
+
+    @Test
+    public void itShouldShareOneBudgetBetweenTheJobsOfAChainBuild() throws Exception {
+        when(otherJobResult.getPlanResultKey()).thenReturn(getPlanResultKey("PROJ-PLAN-JOB2", 5));
+        final List<AllureIngestionBudget> budgets = new CopyOnWriteArrayList<>();
+        when(artifactsManager.downloadJobArtifactsTo(
+                any(BuildResultsSummary.class), any(File.class), eq("allure-results"), any(AllureResultsFilter.class), any(AllureIngestionBudget.class)
+        )).thenAnswer(invocation -> {
+            budgets.add(invocation.getArgument(4, AllureIngestionBudget.class));
+            return List.of(writeResults(invocation.getArgument(1, File.class).toPath()));
+        });
+        final AllureGlobalConfig globalConfig = new AllureGlobalConfig().withMaxResultsFiles("4");
+
+        prestager.stageAsync(workspace, jobResult, "allure-results", AllureResultsFilter.ALL, globalConfig);
+        prestager.stageAsync(workspace, otherJobResult, "allure-results", AllureResultsFilter.ALL, globalConfig);
+        final Map<String, List<Path>> staged = prestager.adopt(workspace, artifactsDir, AllureIngestionBudget.unlimited());
+
+        assertThat(staged).containsOnlyKeys("PROJ-PLAN-JOB1-5", "PROJ-PLAN-JOB2-5");
+        assertThat(budgets).hasSize(2);
+        assertThat(budgets.get(0)).isSameAs(budgets.get(1));
+    }
+
+    @Test
+    public void itShouldReserveScratchSpaceBeforeStaging() throws Exception {
+        final AllureResultsPrestager lackingSpace = new AllureResultsPrestager(
+                artifactsManager, ioExecutor, new AllureScratchSpace(dir -> 100)
+        );
+        when(artifactsManager.getExpectedArtifactsSize(jobResult, "allure-results")).thenReturn(1000L);
+
+        lackingSpace.stageAsync(workspace, jobResult, "allure-results", AllureResultsFilter.ALL, new AllureGlobalConfig());
+
+        assertThat(lackingSpace.adopt(workspace, artifactsDir, AllureIngestionBudget.unlimited())).isEmpty();
+        verify(artifactsManager, never()).downloadJobArtifactsTo(
+                any(BuildResultsSummary.class), any(File.class), any(), any(AllureResultsFilter.class), any(AllureIngestionBudget.class)
+        );
+    }
+
+    @Test
+    public void itShouldLeaveResultsReadInPlaceWhereTheyAre() throws Exception {
+        final Path storedResults = writeResults(temporaryFolder.newFolder("stored").toPath());
+        when(artifactsManager.downloadJobArtifactsTo(eq(jobResult), any(File.class), eq("allure-results"), any(AllureResultsFilter.class), any(AllureIngestionBudget.class)))
+                .thenReturn(List.of(storedResults));
+
+        prestager.stage(workspace, jobResult, "allure-results", AllureResultsFilter.ALL, AllureIngestionBudget.unlimited());
+        final Map<String, List<Path>> staged = prestager.adopt(workspace, artifactsDir, AllureIngestionBudget.unlimited());
+
+        assertThat(staged.get("PROJ-PLAN-JOB1-5")).containsExactly(storedResults);
+        assertThat(storedResults.resolve("a-result.json")).isRegularFile();
+        assertThat(artifactsDir).isEmptyDirectory();
+    }
+
+    @Test
+    public void itShouldIgnoreJobsThatWereNotCompletelyStaged() throws Exception {
+        writeResults(workspace.resolve(AllureResultsPrestager.PRESTAGED_DIR).resolve("PROJ-PLAN-JOB2-5"));
+
+        final Map<String, List<Path>> staged = prestager.adopt(workspace, artifactsDir, AllureIngestionBudget.unlimited());
+
+        assertThat(staged).isEmpty();
+        assertThat(artifactsDir).isEmptyDirectory();
+        assertThat(workspace.resolve(AllureResultsPrestager.PRESTAGED_DIR)).doesNotExist();
+    }
+
+    @Test
+    public void itShouldDiscardTheResultsStagedForABuildThatIsNotReported() throws Exception {
+        when(artifactsManager.downloadJobArtifactsTo(eq(jobResult), any(File.class), eq("allure-results"), any(AllureResultsFilter.class), any(AllureIngestionBudget.class)))
+                .thenAnswer(invocation -> List.of(writeResults(invocation.getArgument(1, File.class).toPath())));
+        prestager.stage(workspace, jobResult, "allure-results", AllureResultsFilter.ALL, AllureIngestionBudget.unlimited());
+
+        prestager.discard(workspace);
+
+        assertThat(workspace.resolve(AllureResultsPrestager.PRESTAGED_DIR)).doesNotExist();
+        assertThat(prestager.adopt(workspace, artifactsDir, AllureIngestionBudget.unlimited())).isEmpty();
+    }
+
+    @Test
+    public void itShouldLeaveNothingBehindWhenAStagingIsDiscardedWhileRunning() throws Exception {
+        final CountDownLatch downloading = new CountDownLatch(1);
+        final CountDownLatch discarded = new CountDownLatch(1);
+        when(artifactsManager.downloadJobArtifactsTo(eq(jobResult), any(File.class), eq("allure-results"), any(AllureResultsFilter.class), any(AllureIngestionBudget.class)))
+                .thenAnswer(invocation -> {
+                    final Path results = writeResults(invocation.getArgument(1, File.class).toPath());
+                    downloading.countDown();
+                    try {
+                        discarded.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        // a download that completes even when cancelled
+                        Thread.currentThread().interrupt();
+                    }
+                    return List.of(results);
+                });
+
+        prestager.stageAsync(workspace, jobResult, "allure-results", AllureResultsFilter.ALL, new AllureGlobalConfig());
+        assertThat(downloading.await(5, TimeUnit.SECONDS)).isTrue();
+        prestager.discard(workspace);
+        discarded.countDown();
+
+        final Path jobDir = workspace.resolve(AllureResultsPrestager.PRESTAGED_DIR).resolve("PROJ-PLAN-JOB1-5");
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (Files.exists(jobDir) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(jobDir).doesNotExist();
+    }
+
+    private static Path writeResults(final Path jobDir) throws Exception {
+        final Path results = Files.createDirectories(jobDir.resolve("results"));
+        Files.writeString(results.resolve("a-result.json"), "{\"name\":\"a\"}");
+        Files.writeString(results.resolve("b-result.json"), "{\"name\":");
+        Files.writeString(results.resolve("a-attachment.txt"), "attachment");
+        return results;
+    }
+}
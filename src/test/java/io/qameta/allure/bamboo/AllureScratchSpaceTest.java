@@ -0,0 +1,77 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SuppressWarnings("checkstyle:MultipleStringLiterals")
+public class AllureScratchSpaceTest {
+
+    private static final Path SCRATCH = Paths.get("/scratch");
+    private static final long MEGABYTE = 1024 * 1024;
+
+    @Test
+    public void itShouldReserveRoomForTheResultsTheReportAndItsArchive() throws Exception {
+        final AllureScratchSpace space = new AllureScratchSpace(dir -> 1000);
+
+        try (AllureScratchSpace.Reservation reservation = space.reserve(SCRATCH, 300, 100, "PROJ-PLAN-1")) {
+            assertThat(reservation.getBytes()).isEqualTo(800);
+            assertThat(space.getReserved()).isEqualTo(800);
+        }
+
+        assertThat(space.getReserved()).isZero();
+    }
+
+    @Test
+    public void itShouldFailFastWhenTheReportCanNeverFit() {
+        final AllureScratchSpace space = new AllureScratchSpace(dir -> 500 * MEGABYTE);
+
+        assertThatThrownBy(() -> space.reserve(SCRATCH, 200 * MEGABYTE, 0, "PROJ-PLAN-1"))
+                .isInstanceOf(AllurePluginException.class)
+                .hasMessage("Not enough free space in %s for the report of PROJ-PLAN-1: 600 MB needed, 500 MB available", SCRATCH);
+        assertThat(space.getReserved()).isZero();
+    }
+
+    @Test
+    public void itShouldWaitForTheSpaceReservedByRunningReports() throws Exception {
+        final AllureScratchSpace space = new AllureScratchSpace(dir -> 1000);
+        final AllureScratchSpace.Reservation running = space.reserve(SCRATCH, 200, 0, "PROJ-PLAN-1");
+
+        final CompletableFuture<AllureScratchSpace.Reservation> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return space.reserve(SCRATCH, 200, 0, "PROJ-PLAN-2");
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(200);
+        assertThat(waiting).isNotDone();
+
+        running.close();
+        running.close();
+
+        assertThat(waiting.get(5, TimeUnit.SECONDS).getBytes()).isEqualTo(600);
+        assertThat(space.getReserved()).isEqualTo(600);
+    }
+}
@@ -22,6 +22,7 @@ import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoRule;
 
+import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -29,8 +30,20 @@ import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_CUSTOM_LOGO_
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_DOWNLOAD_ENABLED;
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_DOWNLOAD_URL;
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_ENABLED_BY_DEFAULT;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_HISTORY_MAX_AGE_BUILDS;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_HISTORY_MAX_ITEMS;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_HISTORY_TREND_WINDOW;
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_LOCAL_STORAGE;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_MAX_CONCURRENT_GENERATIONS;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_MAX_IO_CONCURRENCY;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_MAX_PARALLEL_DOWNLOADS;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_MAX_RESULTS_FILES;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_MAX_RESULTS_MB;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_MAX_RESULT_FILE_MB;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_OVERSIZE_ACTION;
 import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_REPORTS_CLEANUP_ENABLED;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_SCRATCH_PATH;
+import static io.qameta.allure.bamboo.AllureConstants.ALLURE_CONFIG_STAGING_MODE;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -58,6 +71,17 @@ public class AllureSettingsManagerTest {
         storage.put(ALLURE_CONFIG_DOWNLOAD_URL, "https://downloads.example/");
         storage.put(ALLURE_CONFIG_LOCAL_STORAGE, "/srv/allure");
         storage.put(ALLURE_CONFIG_REPORTS_CLEANUP_ENABLED, "true");
+        storage.put(ALLURE_CONFIG_MAX_CONCURRENT_GENERATIONS, "3");
+        storage.put(ALLURE_CONFIG_MAX_IO_CONCURRENCY, "64");
+        storage.put(ALLURE_CONFIG_MAX_PARALLEL_DOWNLOADS, "12");
+        storage.put(ALLURE_CONFIG_STAGING_MODE, "COPY");
+        storage.put(ALLURE_CONFIG_MAX_RESULTS_MB, "2048");
+        storage.put(ALLURE_CONFIG_MAX_RESULTS_FILES, "100000");
+        storage.put(ALLURE_CONFIG_MAX_RESULT_FILE_MB, "50");
+        storage.put(ALLURE_CONFIG_OVERSIZE_ACTION, "STOP");
+        storage.put(ALLURE_CONFIG_SCRATCH_PATH, "/mnt/nvme");
+        storage.put(ALLURE_CONFIG_HISTORY_MAX_ITEMS, "10");
+        storage.put(ALLURE_CONFIG_HISTORY_MAX_AGE_BUILDS, "30");
         final AllureSettingsManager manager = new AllureSettingsManager(settingsFactory);
 
         final AllureGlobalConfig config = manager.getSettings();
@@ -68,6 +92,19 @@ public class AllureSettingsManagerTest {
         assertThat(config.getDownloadBaseUrl()).isEqualTo("https://downloads.example/");
         assertThat(config.getLocalStoragePath()).isEqualTo("/srv/allure");
         assertThat(config.isEnabledReportsCleanup()).isTrue();
+        assertThat(config.getMaxConcurrentGenerations()).isEqualTo(3);
+        assertThat(config.getMaxIoConcurrency()).isEqualTo(64);
+        assertThat(config.getMaxParallelDownloads()).isEqualTo(12);
+        assertThat(config.getStagingMode()).isEqualTo(AllureStagingMode.COPY);
+        assertThat(config.getMaxResultsBytes()).isEqualTo(2048L * 1024 * 1024);
+        assertThat(config.getMaxResultsFiles()).isEqualTo(100_000);
+        assertThat(config.getMaxResultFileMb()).isEqualTo(50);
+        assertThat(config.getOversizeAction()).isEqualTo(AllureOversizeAction.STOP);
+        assertThat(config.getScratchDir()).isEqualTo(Paths.get("/mnt/nvme"));
+        assertThat(config.getHistoryMaxItems()).isEqualTo(10);
+        assertThat(config.getHistoryMaxAgeBuilds()).isEqualTo(30);
+        assertThat(config.getHistoryTrendWindow()).isZero();
+        assertThat(config.isHistoryCompactionEnabled()).isTrue();
     }
 
     @Test
@@ -81,7 +118,13 @@ public class AllureSettingsManagerTest {
                 "/srv/allure",
                 true,
                 true
-        );
+        ).withMaxConcurrentGenerations("6")
+                .withMaxIoConcurrency("16")
+                .withMaxParallelDownloads("4")
+                .withStagingMode("copy")
+                .withMaxResultsMb("512")
+                .withOversizeAction("unknown")
+                .withHistoryTrendWindow("50");
 
         manager.saveSettings(config);
 
@@ -91,6 +134,16 @@ public class AllureSettingsManagerTest {
         assertThat(storage.get(ALLURE_CONFIG_DOWNLOAD_URL)).isEqualTo("https://downloads.example/");
         assertThat(storage.get(ALLURE_CONFIG_LOCAL_STORAGE)).isEqualTo("/srv/allure");
         assertThat(storage.get(ALLURE_CONFIG_REPORTS_CLEANUP_ENABLED)).isEqualTo("true");
+        assertThat(storage.get(ALLURE_CONFIG_MAX_CONCURRENT_GENERATIONS)).isEqualTo("6");
+        assertThat(storage.get(ALLURE_CONFIG_MAX_IO_CONCURRENCY)).isEqualTo("16");
+        assertThat(storage.get(ALLURE_CONFIG_MAX_PARALLEL_DOWNLOADS)).isEqualTo("4");
+        assertThat(storage.get(ALLURE_CONFIG_STAGING_MODE)).isEqualTo("COPY");
+        assertThat(storage.get(ALLURE_CONFIG_MAX_RESULTS_MB)).isEqualTo("512");
+        assertThat(storage.get(ALLURE_CONFIG_MAX_RESULTS_FILES)).isEqualTo("0");
+        assertThat(storage.get(ALLURE_CONFIG_OVERSIZE_ACTION)).isEqualTo("SKIP");
+        assertThat(storage.get(ALLURE_CONFIG_SCRATCH_PATH)).isEqualTo("");
+        assertThat(storage.get(ALLURE_CONFIG_HISTORY_MAX_ITEMS)).isEqualTo("0");
+        assertThat(storage.get(ALLURE_CONFIG_HISTORY_TREND_WINDOW)).isEqualTo("50");
     }
 
     private Map<String, Object> storage() {
@@ -39,10 +39,14 @@ public class ConfigureAllureReportActionTest {
 
     @Mock
     private AllureSettingsManager settingsManager;
+    @Mock
+    private AllureGenerationLimiter generationLimiter;
+    @Mock
+    private AllureReportQueue reportQueue;
 
     @Test
     public void itShouldLoadExistingSettingsIntoTheFormOnInput() {
-        final ConfigureAllureReportAction action = new TestConfigureAllureReportAction(settingsManager);
+        final ConfigureAllureReportAction action = new TestConfigureAllureReportAction(settingsManager, generationLimiter, reportQueue);
         final AllureGlobalConfig config = new AllureGlobalConfig(
                 "true",
                 "true",
@@ -66,19 +70,23 @@ public class ConfigureAllureReportActionTest {
 
     @Test
     public void itShouldValidateRequiredFields() {
-        final ConfigureAllureReportAction action = new TestConfigureAllureReportAction(settingsManager);
+        final ConfigureAllureReportAction action = new TestConfigureAllureReportAction(settingsManager, generationLimiter, reportQueue);
         action.setDownloadBaseUrl(" ");
         action.setLocalStoragePath(" ");
+        action.setScratchPath("scratch");
 
         action.validate();
 
-        assertThat(action.getActionErrors())
-                .containsExactly("allure.config.download.url.error.required", "allure.config.local.storage.required");
+        assertThat(action.getActionErrors()).containsExactly(
+                "allure.config.download.url.error.required",
+                "allure.config.local.storage.required",
+                "allure.config.scratch.path.error.invalid"
+        );
     }
 
     @Test
     public void itShouldPersistUpdatedSettings() {
-        final ConfigureAllureReportAction action = new TestConfigureAllureReportAction(settingsManager);
+        final ConfigureAllureReportAction action = new TestConfigureAllureReportAction(settingsManager, generationLimiter, reportQueue);
         final ArgumentCaptor<AllureGlobalConfig> captor = ArgumentCaptor.forClass(AllureGlobalConfig.class);
         when(settingsManager.getSettings()).thenReturn(new AllureGlobalConfig());
         action.setDownloadEnabled(false);
@@ -87,6 +95,16 @@ public class ConfigureAllureReportActionTest {
         action.setEnabledReportsCleanup(true);
         action.setDownloadBaseUrl("https://downloads.example/");
         action.setLocalStoragePath("/tmp/allure");
+        action.setMaxConcurrentGenerations(" 3 ");
+        action.setMaxIoConcurrency("48");
+        action.setMaxParallelDownloads(" 6 ");
+        action.setStagingMode("COPY");
+        action.setMaxResultsMb(" 1024 ");
+        action.setMaxResultFileMb("20");
+        action.setOversizeAction("STOP");
+        action.setScratchPath(" /mnt/nvme ");
+        action.setHistoryMaxItems(" 10 ");
+        action.setHistoryTrendWindow("50");
 
         final String result = action.execute();
 
@@ -95,6 +113,96 @@ public class ConfigureAllureReportActionTest {
         assertThat(captor.getValue().isDownloadEnabled()).isFalse();
         assertThat(captor.getValue().getDownloadBaseUrl()).isEqualTo("https://downloads.example/");
         assertThat(captor.getValue().getLocalStoragePath()).isEqualTo("/tmp/allure");
+        assertThat(captor.getValue().getMaxConcurrentGenerations()).isEqualTo(3);
+        assertThat(captor.getValue().getMaxIoConcurrency()).isEqualTo(48);
+        assertThat(captor.getValue().getMaxParallelDownloads()).isEqualTo(6);
+        assertThat(captor.getValue().getStagingMode()).isEqualTo(AllureStagingMode.COPY);
+        assertThat(captor.getValue().getMaxResultsMb()).isEqualTo(1024);
+        assertThat(captor.getValue().getMaxResultsFiles()).isZero();
+        assertThat(captor.getValue().getMaxResultFileMb()).isEqualTo(20);
+        assertThat(captor.getValue().getOversizeAction()).isEqualTo(AllureOversizeAction.STOP);
+        assertThat(captor.getValue().getScratchPath()).isEqualTo("/mnt/nvme");
+        assertThat(captor.getValue().getHistoryMaxItems()).isEqualTo(10);
+        assertThat(captor.getValue().getHistoryMaxAgeBuilds()).isZero();
+        assertThat(captor.getValue().getHistoryTrendWindow()).isEqualTo(50);
+    }
+
+    @Test
+    public void itShouldRejectNonPositiveGenerationLimit() {
+        final ConfigureAllureReportAction action = new TestConfigureAllureReportAction(settingsManager, generationLimiter, reportQueue);
+        action.setDownloadBaseUrl("https://downloads.example/");
+        action.setLocalStoragePath("/tmp/allure");
+        action.setMaxConcurrentGenerations("0");
+
+        action.validate();
+
+        assertThat(action.getActionErrors())
+                .containsExactly("allure.config.max.concurrent.generations.error.invalid");
+    }
+
+    @Test
+    public void itShouldRejectNumbersOutOfTheRangeOfTheirSetting() {
+        final ConfigureAllureReportAction action = new TestConfigureAllureReportAction(settingsManager, generationLimiter, reportQueue);
+        action.setDownloadBaseUrl("https://downloads.example/");
+        action.setLocalStoragePath("/tmp/allure");
+        action.setMaxIoConcurrency("4294967296");
+        action.setMaxResultsMb("4294967296");
+        action.setMaxResultsFiles("many");
+        action.setHistoryTrendWindow(" ");
+
+        action.validate();
+
+        assertThat(action.getActionErrors()).containsExactly(
+                "allure.config.max.io.concurrency.error.invalid",
+                "allure.config.max.results.error.invalid"
+        );
+    }
+
+    @Test
+    public void itShouldCapTheSizeLimitsAtWhatFitsInBytes() {
+        final ConfigureAllureReportAction action = new TestConfigureAllureReportAction(settingsManager, generationLimiter, reportQueue);
+        action.setDownloadBaseUrl("https://downloads.example/");
+        action.setLocalStoragePath("/tmp/allure");
+        action.setMaxResultsMb(String.valueOf(AllureGlobalConfig.MAX_MEGABYTES));
+        action.setMaxResultFileMb(String.valueOf(AllureGlobalConfig.MAX_MEGABYTES));
+        action.setMaxResultsFiles(String.valueOf(Long.MAX_VALUE));
+
+        action.validate();
+        assertThat(action.getActionErrors()).isEmpty();
+        assertThat(new AllureGlobalConfig().withMaxResultsMb(String.valueOf(AllureGlobalConfig.MAX_MEGABYTES)).getMaxResultsBytes())
+                .isPositive();
+
+        action.setMaxResultFileMb(String.valueOf(AllureGlobalConfig.MAX_MEGABYTES + 1));
+        action.validate();
+        assertThat(action.getActionErrors()).containsExactly("allure.config.max.results.error.invalid");
+    }
+
+    @Test
+    public void itShouldRejectNonPositiveHistoryLimits() {
+        final ConfigureAllureReportAction action = new TestConfigureAllureReportAction(settingsManager, generationLimiter, reportQueue);
+        action.setDownloadBaseUrl("https://downloads.example/");
+        action.setLocalStoragePath("/tmp/allure");
+        action.setHistoryMaxAgeBuilds("-1");
+
+        action.validate();
+
+        assertThat(action.getActionErrors()).containsExactly("allure.config.history.error.invalid");
+    }
+
+    @Test
+    public void itShouldExposeGenerationQueueStatistics() {
+        final ConfigureAllureReportAction action = new TestConfigureAllureReportAction(settingsManager, generationLimiter, reportQueue);
+        when(settingsManager.getSettings()).thenReturn(new AllureGlobalConfig().withMaxConcurrentGenerations("4"));
+        when(generationLimiter.getActivePermits()).thenReturn(2);
+        when(reportQueue.getWaitingJobs()).thenReturn(5);
+        when(reportQueue.getLastQueuedMillis()).thenReturn(900L);
+        when(reportQueue.getAverageQueuedMillis()).thenReturn(1500L);
+
+        assertThat(action.getGenerationPermits()).isEqualTo(4);
+        assertThat(action.getActiveGenerations()).isEqualTo(2);
+        assertThat(action.getQueuedGenerations()).isEqualTo(5);
+        assertThat(action.getLastQueueWaitMillis()).isEqualTo(900L);
+        assertThat(action.getAverageQueueWaitMillis()).isEqualTo(1500L);
     }
 
     @Test
@@ -116,8 +224,10 @@ public class ConfigureAllureReportActionTest {
 
     private static final class TestConfigureAllureReportAction extends ConfigureAllureReportAction {
 
-        private TestConfigureAllureReportAction(final AllureSettingsManager settingsManager) {
-            super(settingsManager);
+        private TestConfigureAllureReportAction(final AllureSettingsManager settingsManager,
+                                                final AllureGenerationLimiter generationLimiter,
+                                                final AllureReportQueue reportQueue) {
+            super(settingsManager, generationLimiter, reportQueue);
         }
 
         @Override
@@ -0,0 +1,298 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo;
+
+import com.atlassian.bamboo.build.artifact.ArtifactFileData;
+import com.atlassian.bamboo.build.artifact.ArtifactLinkDataProvider;
+import com.atlassian.bamboo.build.artifact.TrampolineArtifactFileData;
+import com.sun.net.httpserver.HttpServer;
+import io.qameta.allure.bamboo.util.ArtifactDownloader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoRule;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.junit.MockitoJUnit.rule;
+
+@SuppressWarnings("checkstyle:MultipleStringLiterals")
+public class RemoteArtifactWalkerTest {
+
+    @Rule
+    public MockitoRule mockitoRule = rule();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private AllureSettingsManager settingsManager;
+    @Mock
+    private ArtifactLinkDataProvider dataProvider;
+
+    private AllureIoExecutor ioExecutor;
+    private ArtifactDownloader downloader;
+    private Path targetDir;
+
+    @Before
+    public void setUp() throws Exception {
+        when(settingsManager.getSettings()).thenReturn(new AllureGlobalConfig());
+        ioExecutor = new AllureIoExecutor(settingsManager);
+        downloader = new ArtifactDownloader();
+        targetDir = temporaryFolder.newFolder("target").toPath();
+    }
+
+    @After
+    public void tearDown() {
+        downloader.close();
+        ioExecutor.shutdown();
+    }
+
+    @Test
+    public void itShouldListDirectoriesConcurrently() throws Exception {
+        final CountDownLatch bothListing = new CountDownLatch(2);
+        final TrampolineArtifactFileData first = file("first/a-result.json");
+        final TrampolineArtifactFileData second = file("second/b-result.json");
+        final List<ArtifactFileData> root = List.of(directory("first"), directory("second"));
+        when(dataProvider.listObjects("")).thenReturn(root);
+        when(dataProvider.listObjects("first")).thenAnswer(invocation -> awaitSibling(bothListing, first));
+        when(dataProvider.listObjects("second")).thenAnswer(invocation -> awaitSibling(bothListing, second));
+
+        final long downloaded = walker(RemoteArtifactWalker.LISTING_PARALLELISM, 1, 1).walk();
+
+        assertThat(downloaded).isEqualTo(2);
+        assertThat(targetDir.resolve("a-result.json")).exists();
+        assertThat(targetDir.resolve("b-result.json")).exists();
+    }
+
+    @Test
+    public void itShouldListDirectoriesItselfWhenTheQueueIsFull() throws Exception {
+        final List<ArtifactFileData> root = List.of(directory("one"), directory("two"), directory("three"));
+        final List<ArtifactFileData> one = List.of(file("one/1-result.json"), directory("one/nested"));
+        final List<ArtifactFileData> nested = List.of(file("one/nested/2-result.json"));
+        final List<ArtifactFileData> two = List.of(file("two/3-result.json"));
+        final List<ArtifactFileData> three = List.of(file("three/4-result.json"));
+        when(dataProvider.listObjects("")).thenReturn(root);
+        when(dataProvider.listObjects("one")).thenReturn(one);
+        when(dataProvider.listObjects("one/nested")).thenReturn(nested);
+        when(dataProvider.listObjects("two")).thenReturn(two);
+        when(dataProvider.listObjects("three")).thenReturn(three);
+
+        final long downloaded = walker(1, 1, 1).walk();
+
+        assertThat(downloaded).isEqualTo(4);
+        try (java.util.stream.Stream<Path> files = Files.list(targetDir)) {
+            assertThat(files.map(path -> path.getFileName().toString()))
+                    .containsExactlyInAnyOrder("1-result.json", "2-result.json", "3-result.json", "4-result.json");
+        }
+    }
+
+    @Test
+    public void itShouldExtractAnArtifactHoldingASingleArchive() throws Exception {
+        final TrampolineArtifactFileData archive = file("results.zip");
+        final Path archiveFile = temporaryFolder.getRoot().toPath().resolve("source").resolve("results.zip");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(archiveFile))) {
+            for (final String name : List.of("a-result.json", "attachments/b-attachment.txt")) {
+                zip.putNextEntry(new ZipEntry(name));
+                zip.write("{}".getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        final List<ArtifactFileData> root = List.of(archive);
+        when(dataProvider.listObjects("")).thenReturn(root);
+
+        final long extracted = walker(1, 1, 1).walk();
+
+        assertThat(extracted).isEqualTo(2);
+        assertThat(targetDir.resolve("a-result.json")).hasContent("{}");
+        assertThat(targetDir.resolve("attachments").resolve("b-attachment.txt")).exists();
+        assertThat(targetDir.resolve("results.zip")).doesNotExist();
+    }
+
+    @Test
+    public void itShouldGiveBackWhatABrokenOffArchiveReadAdmittedBeforeRetryingIt() throws Exception {
+        final byte[] attachment = new byte[256 * 1024];
+        new Random(42).nextBytes(attachment);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            zip.putNextEntry(new ZipEntry("a-result.json"));
+            zip.write("{}".getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry(new ZipEntry("b-attachment.bin"));
+            zip.write(attachment);
+            zip.closeEntry();
+        }
+        final byte[] archive = bytes.toByteArray();
+        final AtomicInteger requests = new AtomicInteger();
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/results.zip", exchange -> {
+            exchange.sendResponseHeaders(200, archive.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                // the first read breaks off within the attachment, after the result was extracted
+                body.write(archive, 0, requests.incrementAndGet() == 1 ? archive.length / 2 : archive.length);
+            } catch (IOException e) {
+                // the connection is dropped short of the announced length
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        try {
+            final String url = "http://localhost:" + server.getAddress().getPort() + "/results.zip";
+            final List<ArtifactFileData> root = List.of(fileAt("results.zip", url));
+            when(dataProvider.listObjects("")).thenReturn(root);
+            final AllureIngestionBudget budget = new AllureIngestionBudget(0, 2, 0, AllureOversizeAction.SKIP);
+
+            final long extracted = new RemoteArtifactWalker(
+                    ioExecutor, downloader, dataProvider, targetDir, AllureResultsFilter.ALL, budget, 1, 1, 1
+            ).walk();
+
+            assertThat(requests).hasValue(2);
+            assertThat(extracted).isEqualTo(2);
+            assertThat(budget.isPartial()).isFalse();
+            assertThat(targetDir.resolve("b-attachment.bin")).hasBinaryContent(attachment);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void itShouldDropFilesOverTheBudgetOnceTheirSizeIsKnown() throws Exception {
+        final List<ArtifactFileData> root = List.of(file("a-result.json"), file("b-result.json"), directory("nested"));
+        when(dataProvider.listObjects("")).thenReturn(root);
+        final AllureIngestionBudget budget = new AllureIngestionBudget(3, 0, 0, AllureOversizeAction.SKIP);
+
+        final long downloaded = new RemoteArtifactWalker(
+                ioExecutor, downloader, dataProvider, targetDir, AllureResultsFilter.ALL, budget, 1, 1, 1
+        ).walk();
+
+        assertThat(downloaded).isEqualTo(1);
+        assertThat(budget.isExhausted()).isTrue();
+        try (java.util.stream.Stream<Path> files = Files.list(targetDir)) {
+            assertThat(files).hasSize(1);
+        }
+    }
+
+    @Test
+    public void itShouldNeverWriteARemoteFilePastWhatIsLeftOfTheTotal() throws Exception {
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/big-attachment.bin", exchange -> {
+            // no Content-Length, the size is only known once the body ends
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream body = exchange.getResponseBody()) {
+                for (int chunk = 0; chunk < 48; chunk++) {
+                    body.write(new byte[64 * 1024]);
+                }
+            } catch (IOException e) {
+                // the client stops reading once the file exceeds the limit
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        try {
+            final String url = "http://localhost:" + server.getAddress().getPort() + "/big-attachment.bin";
+            final List<ArtifactFileData> root = List.of(file("a-result.json"), fileAt("big-attachment.bin", url));
+            when(dataProvider.listObjects("")).thenReturn(root);
+            final AllureIngestionBudget budget = new AllureIngestionBudget(1000, 0, 0, AllureOversizeAction.SKIP);
+
+            final long downloaded = new RemoteArtifactWalker(
+                    ioExecutor, downloader, dataProvider, targetDir, AllureResultsFilter.ALL, budget, 1, 1, 1
+            ).walk();
+
+            assertThat(downloaded).isEqualTo(1);
+            assertThat(targetDir.resolve("a-result.json")).exists();
+            assertThat(targetDir.resolve("big-attachment.bin")).doesNotExist();
+            assertThat(budget.getPartialDetails()).isEqualTo("Partial report: staging stopped as the limit of 1000 bytes was reached.");
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void itShouldRethrowTheFirstFailure() throws Exception {
+        final List<ArtifactFileData> root = List.of(file("a-result.json"), directory("broken"));
+        when(dataProvider.listObjects("")).thenReturn(root);
+        when(dataProvider.listObjects("broken")).thenThrow(new IllegalStateException("listing failed"));
+
+        assertThatThrownBy(() -> walker(2, 2, 2).walk())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("listing failed");
+    }
+
+    private RemoteArtifactWalker walker(final int listingParallelism,
+                                        final int maxPendingFiles,
+                                        final int maxPendingDirectories) {
+        return new RemoteArtifactWalker(
+                ioExecutor, downloader, dataProvider, targetDir, AllureResultsFilter.ALL, AllureIngestionBudget.unlimited(),
+                listingParallelism, maxPendingFiles, maxPendingDirectories
+        );
+    }
+
+    private static List<ArtifactFileData> awaitSibling(final CountDownLatch bothListing,
+                                                       final ArtifactFileData content) throws Exception {
+        bothListing.countDown();
+        assertThat(bothListing.await(5, TimeUnit.SECONDS)).isTrue();
+        return List.of(content);
+    }
+
+    private TrampolineArtifactFileData file(final String name) throws Exception {
+        final Path source = temporaryFolder.getRoot().toPath().resolve("source").resolve(name);
+        Files.createDirectories(source.getParent());
+        Files.writeString(source, "{}", StandardCharsets.UTF_8);
+        return fileAt(name, source.toUri().toString());
+    }
+
+    private static TrampolineArtifactFileData fileAt(final String name,
+                                                     final String url) {
+        final TrampolineArtifactFileData trampoline = mock(TrampolineArtifactFileData.class);
+        final ArtifactFileData delegate = mock(ArtifactFileData.class);
+        when(trampoline.getDelegate()).thenReturn(delegate);
+        when(delegate.getFileType()).thenReturn(ArtifactFileData.FileType.REGULAR_FILE);
+        when(delegate.getName()).thenReturn(name);
+        when(delegate.getUrl()).thenReturn(url);
+        return trampoline;
+    }
+
+    private static TrampolineArtifactFileData directory(final String tag) {
+        final TrampolineArtifactFileData trampoline = mock(TrampolineArtifactFileData.class);
+        final ArtifactFileData delegate = mock(ArtifactFileData.class);
+        when(trampoline.getDelegate()).thenReturn(delegate);
+        when(trampoline.getTag()).thenReturn(tag);
+        when(delegate.getFileType()).thenReturn(ArtifactFileData.FileType.DIRECTORY);
+        return trampoline;
+    }
+}
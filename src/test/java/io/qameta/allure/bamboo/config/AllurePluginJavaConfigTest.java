@@ -102,7 +102,9 @@ public class AllurePluginJavaConfigTest {
                         resultsSummaryManager,
                         artifactLinkManager,
                         applicationProperties,
-                        settingsManager
+                        settingsManager,
+                        config.allureIoExecutor(settingsManager),
+                        config.allureArtifactDownloader()
                 )
         );
         final AllurePluginInstallTask installTask = step(
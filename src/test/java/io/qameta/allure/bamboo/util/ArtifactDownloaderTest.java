@@ -0,0 +1,185 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SuppressWarnings("checkstyle:MultipleStringLiterals")
+public class ArtifactDownloaderTest {
+
+    private static final byte[] CONTENT = "{\"name\":\"a result that is transferred in two parts\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final List<String> ranges = new CopyOnWriteArrayList<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final CountDownLatch released = new CountDownLatch(1);
+    private final ExecutorService handlers = Executors.newCachedThreadPool();
+
+    private HttpServer server;
+    private ArtifactDownloader downloader;
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(handlers);
+        server.createContext("/flaky", exchange -> breakOffOnce(exchange, false));
+        server.createContext("/stalling", exchange -> breakOffOnce(exchange, true));
+        server.createContext("/large", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream body = exchange.getResponseBody()) {
+                for (int chunk = 0; chunk < 48; chunk++) {
+                    body.write(new byte[64 * 1024]);
+                }
+            } catch (IOException e) {
+                // the client stops reading once the file exceeds the limit
+            } finally {
+                exchange.close();
+            }
+        });
+        server.createContext("/missing", exchange -> {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+        downloader = new ArtifactDownloader(HttpClient.newHttpClient(), 3, Duration.ZERO, Duration.ofMillis(500));
+    }
+
+    @After
+    public void tearDown() {
+        released.countDown();
+        downloader.close();
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+
+    @Test
+    public void itShouldResumeABrokenOffTransfer() throws Exception {
+        final Path target = tempFolder.getRoot().toPath().resolve("a-result.json");
+
+        downloader.download(uri("/flaky"), target);
+
+        assertThat(target).hasBinaryContent(CONTENT);
+        assertThat(ranges).containsExactly("", "bytes=" + CONTENT.length / 2 + "-");
+    }
+
+    @Test
+    public void itShouldResumeATransferThatStopsReceivingData() throws Exception {
+        final Path target = tempFolder.getRoot().toPath().resolve("a-result.json");
+
+        downloader.download(uri("/stalling"), target);
+
+        assertThat(target).hasBinaryContent(CONTENT);
+        assertThat(ranges).containsExactly("", "bytes=" + CONTENT.length / 2 + "-");
+    }
+
+    @Test
+    public void itShouldNotRetryMissingFiles() {
+        final Path target = tempFolder.getRoot().toPath().resolve("missing.json");
+
+        assertThatThrownBy(() -> downloader.download(uri("/missing"), target))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("404");
+        assertThat(requests).hasValue(1);
+        assertThat(target).doesNotExist();
+    }
+
+    @Test
+    public void itShouldNeverWriteAFilePastTheLimit() {
+        final Path target = tempFolder.getRoot().toPath().resolve("large.bin");
+
+        assertThatThrownBy(() -> downloader.download(uri("/large"), target, 1000))
+                .isInstanceOf(ArtifactDownloader.FileTooLargeException.class);
+        assertThat(target).hasSize(1000);
+    }
+
+    @Test
+    public void itShouldCopyLocalFiles() throws Exception {
+        final Path source = tempFolder.newFile("source.json").toPath();
+        Files.write(source, CONTENT);
+        final Path target = tempFolder.getRoot().toPath().resolve("target.json");
+
+        downloader.download(source.toUri(), target);
+
+        assertThat(target).hasBinaryContent(CONTENT);
+    }
+
+    private URI uri(final String path) {
+        return URI.create("http://localhost:" + server.getAddress().getPort() + path);
+    }
+
+    /**
+     * Sends half of the content on the first request, then either drops the connection or keeps it
+     * open without sending anything more. Later requests are served ranges.
+     */
+    private void breakOffOnce(final HttpExchange exchange,
+                              final boolean stall) throws IOException {
+        final String range = exchange.getRequestHeaders().getFirst("Range");
+        ranges.add(range == null ? "" : range);
+        exchange.getResponseHeaders().add("ETag", "\"v1\"");
+        try (OutputStream body = exchange.getResponseBody()) {
+            if (range == null) {
+                exchange.sendResponseHeaders(200, CONTENT.length);
+                body.write(CONTENT, 0, CONTENT.length / 2);
+                if (stall) {
+                    body.flush();
+                    released.await(10, TimeUnit.SECONDS);
+                }
+                return;
+            }
+            final int from = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+            exchange.getResponseHeaders().add("Content-Range", "bytes " + from + "-" + (CONTENT.length - 1) + "/" + CONTENT.length);
+            exchange.sendResponseHeaders(206, CONTENT.length - from);
+            body.write(CONTENT, from, CONTENT.length - from);
+        } catch (IOException e) {
+            // closing the exchange before the announced length is written drops the connection
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo.util;
+
+import io.qameta.allure.bamboo.info.AddExecutorInfo;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LinkUtilTest {
+
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void itShouldRecreateTheTreeWithHardLinks() throws Exception {
+        final Path source = tempFolder.newFolder("source").toPath();
+        Files.writeString(source.resolve("a-result.json"), "{}", StandardCharsets.UTF_8);
+        Files.createDirectories(source.resolve("nested"));
+        Files.writeString(source.resolve("nested").resolve("video.mp4"), "frames", StandardCharsets.UTF_8);
+        final Path target = tempFolder.getRoot().toPath().resolve("target");
+
+        final long linked = LinkUtil.linkTree(source, target);
+
+        assertThat(linked).isEqualTo(2);
+        assertThat(Files.isSameFile(source.resolve("a-result.json"), target.resolve("a-result.json"))).isTrue();
+        assertThat(target.resolve("nested").resolve("video.mp4")).hasContent("frames");
+    }
+
+    @Test
+    public void itShouldNotReplaceExistingFiles() throws Exception {
+        final Path source = tempFolder.newFile("source.json").toPath();
+        final Path target = tempFolder.newFile("target.json").toPath();
+
+        assertThatThrownBy(() -> LinkUtil.linkOrCopy(source, target)).isInstanceOf(FileAlreadyExistsException.class);
+    }
+
+    @Test
+    public void itShouldNotWriteExecutorInfoThroughALinkedResult() throws Exception {
+        final Path source = tempFolder.newFolder("artifact").toPath();
+        Files.writeString(source.resolve("executor.json"), "{\"name\":\"agent\"}", StandardCharsets.UTF_8);
+        final Path results = tempFolder.getRoot().toPath().resolve("results");
+        LinkUtil.linkTree(source, results);
+
+        new AddExecutorInfo("https://bamboo.example", "5", "Build", "https://bamboo.example/browse/P-5", "report")
+                .invoke(results.toFile());
+
+        assertThat(source.resolve("executor.json")).hasContent("{\"name\":\"agent\"}");
+        assertThat(Files.isSameFile(source.resolve("executor.json"), results.resolve("executor.json"))).isFalse();
+    }
+}
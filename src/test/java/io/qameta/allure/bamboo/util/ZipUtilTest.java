@@ -0,0 +1,115 @@
+/*
+ *  Copyright 2016-2026 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.bamboo.util;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SuppressWarnings("checkstyle:MultipleStringLiterals")
+public class ZipUtilTest {
+
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void itShouldExtractZipArchivesFromAStream() throws Exception {
+        final Path output = tempFolder.newFolder("zip").toPath();
+        final byte[] archive = zip("a-result.json", "nested/b-container.json", "logs/raw.log");
+
+        final long extracted = ZipUtil.extract(
+                new ByteArrayInputStream(archive), "allure-results.zip", output, name -> !name.startsWith("logs")
+        );
+
+        assertThat(extracted).isEqualTo(2);
+        assertThat(output.resolve("a-result.json")).hasContent("a-result.json");
+        assertThat(output.resolve("nested").resolve("b-container.json")).hasContent("nested/b-container.json");
+        assertThat(output.resolve("logs")).doesNotExist();
+    }
+
+    @Test
+    public void itShouldExtractGzippedTarArchivesFromAStream() throws Exception {
+        final Path output = tempFolder.newFolder("tar").toPath();
+
+        final long extracted = ZipUtil.extract(
+                new ByteArrayInputStream(tarGz("a-result.json", "nested/b-attachment.txt")), "results.tar.gz", output, name -> true
+        );
+
+        assertThat(extracted).isEqualTo(2);
+        assertThat(output.resolve("nested").resolve("b-attachment.txt")).hasContent("nested/b-attachment.txt");
+    }
+
+    @Test
+    public void itShouldRejectEntriesOutsideTheOutputDirectory() throws Exception {
+        final Path output = tempFolder.newFolder("slip").toPath();
+        final byte[] archive = zip("../evil-result.json");
+
+        assertThatThrownBy(() -> ZipUtil.extract(new ByteArrayInputStream(archive), "evil.zip", output, name -> true))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("evil-result.json");
+        assertThat(output.getParent().resolve("evil-result.json")).doesNotExist();
+    }
+
+    @Test
+    public void itShouldOnlyTreatKnownExtensionsAsArchives() {
+        assertThat(ZipUtil.isArchive("results.ZIP")).isTrue();
+        assertThat(ZipUtil.isArchive("results.tgz")).isTrue();
+        assertThat(ZipUtil.isArchive("results.tar.gz")).isTrue();
+        assertThat(ZipUtil.isArchive("results.gz")).isFalse();
+        assertThat(ZipUtil.isArchive("a-result.json")).isFalse();
+    }
+
+    private static byte[] zip(final String... names) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (final String name : names) {
+                zip.putNextEntry(new ZipEntry(name));
+                zip.write(name.getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] tarGz(final String... names) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new GZIPOutputStream(bytes))) {
+            for (final String name : names) {
+                final byte[] content = name.getBytes(StandardCharsets.UTF_8);
+                final TarArchiveEntry entry = new TarArchiveEntry(name);
+                entry.setSize(content.length);
+                tar.putArchiveEntry(entry);
+                tar.write(content);
+                tar.closeArchiveEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}